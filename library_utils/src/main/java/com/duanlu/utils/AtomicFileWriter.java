@@ -0,0 +1,312 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/********************************
+ * @name AtomicFileWriter
+ * @author 段露
+ * @createDate 2026/10/19 00:10
+ * @updateDate 2026/10/19 00:10
+ * @version V1.0.0
+ * @describe 原子、持久地写入整个文件.
+ * 先写入同一目录下的临时文件，FileChannel.force()落盘后再重命名为目标文件，
+ * 任何时刻目标文件要么是旧内容要么是完整的新内容，写入中途崩溃不会留下截断的文件.
+ * 多个缓冲区使用聚集写(gathering write)一次写入.
+ * 同时写入很多小文件时使用{@link #batch()}，先写完所有临时文件，再并发地落盘，最后统一重命名，
+ * 多个fsync可以由文件系统合并到同一次日志提交中.
+ * 注意：重命名后没有同步目录本身(Android上无法打开目录的FileChannel)，掉电时可能回到旧内容，但不会损坏.
+ ********************************/
+public final class AtomicFileWriter {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //批量提交时同时打开的临时文件数.
+    private static final int GROUP_SIZE = 32;
+    private static final int FORCE_THREADS = 4;
+
+    private AtomicFileWriter() {
+
+    }
+
+    /**
+     * 写入字节.
+     *
+     * @param buffers 依次写入的内容，写入后position不变.
+     * @return 是否写入成功，失败时目标文件保持原样.
+     */
+    public static boolean write(@NonNull File file, @NonNull ByteBuffer... buffers) {
+        final Pending pending = new Pending(file, buffers);
+        try {
+            pending.writeTemp();
+            pending.force();
+            return pending.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            pending.cleanup();
+        }
+    }
+
+    /**
+     * 按指定编码写入字符串.
+     *
+     * @return 是否写入成功，失败时目标文件保持原样.
+     */
+    public static boolean write(@NonNull File file, @NonNull CharSequence content, @NonNull Charset charset) {
+        return write(file, encode(content, charset));
+    }
+
+    /**
+     * 写入输入流的全部内容，完成后关闭输入流.
+     *
+     * @return 是否写入成功，失败时目标文件保持原样.
+     */
+    public static boolean write(@NonNull File file, @NonNull InputStream is) {
+        final Pending pending = new Pending(file, null);
+        try {
+            pending.open();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                wrapped.clear().limit(len);
+                while (wrapped.hasRemaining()) {
+                    pending.channel.write(wrapped);
+                }
+            }
+            pending.force();
+            return pending.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            CloseUtils.closeIOQuietly(is);
+            pending.cleanup();
+        }
+    }
+
+    /**
+     * 开始一次批量写入.
+     */
+    public static Batch batch() {
+        return new Batch();
+    }
+
+    private static ByteBuffer encode(CharSequence content, Charset charset) {
+        return charset.encode(CharBuffer.wrap(content));
+    }
+
+    /**
+     * 批量写入，{@link #commit()}之前不会写任何文件.
+     * 不是线程安全的.
+     */
+    public static final class Batch {
+
+        private final List<Pending> mPending = new ArrayList<>();
+
+        private Batch() {
+
+        }
+
+        public Batch add(@NonNull File file, @NonNull ByteBuffer... buffers) {
+            mPending.add(new Pending(file, buffers));
+            return this;
+        }
+
+        public Batch add(@NonNull File file, @NonNull CharSequence content, @NonNull Charset charset) {
+            return add(file, encode(content, charset));
+        }
+
+        public int size() {
+            return mPending.size();
+        }
+
+        /**
+         * 写入所有文件，每个文件单独保证原子性，一个文件失败不影响其他文件.
+         * 提交后Batch被清空，可以继续添加.
+         *
+         * @return 失败的文件在{@link FileOperationResult#getFailures()}中.
+         */
+        public FileOperationResult commit() {
+            final List<File> failures = new ArrayList<>();
+            int succeeded = 0;
+            ThreadPoolExecutor executor = null;
+            try {
+                for (int start = 0; start < mPending.size(); start += GROUP_SIZE) {
+                    final List<Pending> group = mPending.subList(start, Math.min(start + GROUP_SIZE, mPending.size()));
+                    final List<Pending> written = new ArrayList<>(group.size());
+                    for (Pending pending : group) {
+                        try {
+                            pending.writeTemp();
+                            written.add(pending);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                            failures.add(pending.target);
+                        }
+                    }
+                    if (written.size() > 1 && null == executor) {
+                        executor = new ThreadPoolExecutor(FORCE_THREADS, FORCE_THREADS, 1, TimeUnit.SECONDS,
+                                new LinkedBlockingQueue<Runnable>());
+                    }
+                    for (Pending pending : forceAll(written, executor, failures)) {
+                        if (pending.commit()) {
+                            succeeded++;
+                        } else {
+                            failures.add(pending.target);
+                        }
+                    }
+                    for (Pending pending : group) {
+                        pending.cleanup();
+                    }
+                }
+            } finally {
+                if (null != executor) executor.shutdownNow();
+                for (Pending pending : mPending) {
+                    pending.cleanup();
+                }
+                mPending.clear();
+            }
+            return new FileOperationResult(succeeded, failures, false);
+        }
+
+        /**
+         * 并发落盘.
+         *
+         * @return 落盘成功的文件.
+         */
+        private static List<Pending> forceAll(List<Pending> written, ThreadPoolExecutor executor, List<File> failures) {
+            final List<Pending> forced = new ArrayList<>(written.size());
+            if (written.size() <= 1) {
+                for (Pending pending : written) {
+                    try {
+                        pending.force();
+                        forced.add(pending);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        failures.add(pending.target);
+                    }
+                }
+                return forced;
+            }
+            final List<Future<Void>> futures = new ArrayList<>(written.size());
+            for (final Pending pending : written) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        pending.force();
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < written.size(); i++) {
+                try {
+                    futures.get(i).get();
+                    forced.add(written.get(i));
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    failures.add(written.get(i).target);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(written.get(i).target);
+                }
+            }
+            return forced;
+        }
+    }
+
+    /**
+     * 一个待写入的文件.
+     */
+    private static final class Pending {
+
+        final File target;
+        private final ByteBuffer[] mBuffers;
+        private File mTemp;
+        private FileOutputStream mOut;
+        FileChannel channel;
+
+        Pending(File target, ByteBuffer[] buffers) {
+            this.target = target;
+            this.mBuffers = buffers;
+        }
+
+        void open() throws IOException {
+            final File dir = target.getAbsoluteFile().getParentFile();
+            if (!FileUtils.createOrExistsDir(dir)) throw new IOException("can not create dir " + dir);
+            //临时文件与目标文件在同一目录下，保证重命名不跨分区，前缀至少3个字符.
+            mTemp = File.createTempFile("." + target.getName() + ".", TEMP_SUFFIX, dir);
+            mOut = new FileOutputStream(mTemp);
+            channel = mOut.getChannel();
+        }
+
+        /**
+         * 聚集写入所有缓冲区，不改变调用者的缓冲区.
+         */
+        void writeTemp() throws IOException {
+            open();
+            final ByteBuffer[] buffers = new ByteBuffer[mBuffers.length];
+            long remaining = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = mBuffers[i].duplicate();
+                remaining += buffers[i].remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+        }
+
+        void force() throws IOException {
+            channel.force(true);
+        }
+
+        /**
+         * 关闭临时文件并重命名为目标文件.
+         */
+        boolean commit() {
+            try {
+                mOut.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            mOut = null;
+            if (mTemp.renameTo(target)) {
+                mTemp = null;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 关闭并删除没有提交的临时文件.
+         */
+        void cleanup() {
+            CloseUtils.closeIOQuietly(mOut);
+            mOut = null;
+            if (null != mTemp) {
+                //noinspection ResultOfMethodCallIgnored
+                mTemp.delete();
+                mTemp = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.duanlu.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+
+/********************************
+ * @name BitmapCodec
+ * @author 段露
+ * @createDate 2026/10/19 02:10
+ * @updateDate 2026/10/19 03:40
+ * @version V1.0.0
+ * @describe Bitmap的解码和编码.
+ * 解码先只读取宽高(inJustDecodeBounds)，按目标宽高算出inSampleSize.
+ * 传入{@link BitmapPool}时才复用：从池中取字节数足够的Bitmap作为inBitmap解码，不能复用时退回普通解码，
+ * 这时解码出的Bitmap是可变的，用完后可以放回池中；不传时与BitmapFactory一样返回新的不可变Bitmap.
+ * 编码时每个线程复用输出缓冲区，只在最后复制一次刚好大小的结果.
+ ********************************/
+public final class BitmapCodec {
+
+    //线程复用的编码缓冲区最大保留的字节数.
+    private static final int MAX_REUSED_BUFFER = 1024 * 1024;
+
+    private static final ThreadLocal<ReusableOutputStream> sOutput = new ThreadLocal<ReusableOutputStream>() {
+        @Override
+        protected ReusableOutputStream initialValue() {
+            return new ReusableOutputStream();
+        }
+    };
+
+    private BitmapCodec() {
+
+    }
+
+    /**
+     * 解码字节数组.
+     *
+     * @param reqWidth  目标宽度，小于等于0时不缩小.
+     * @param reqHeight 目标高度，小于等于0时不缩小.
+     * @param pool      复用的池，为null时不复用.
+     * @return 数据无法解码时返回null.
+     */
+    @Nullable
+    public static Bitmap decode(@NonNull final byte[] data, final int offset, final int length,
+                                int reqWidth, int reqHeight, @Nullable Bitmap.Config config,
+                                @Nullable BitmapPool pool) {
+        return decode(new Source() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeByteArray(data, offset, length, options);
+            }
+        }, reqWidth, reqHeight, config, pool);
+    }
+
+    /**
+     * 解码文件.
+     *
+     * @see #decode(byte[], int, int, int, int, Bitmap.Config, BitmapPool)
+     */
+    @Nullable
+    public static Bitmap decodeFile(@NonNull final String path, int reqWidth, int reqHeight,
+                                    @Nullable Bitmap.Config config, @Nullable BitmapPool pool) {
+        return decode(new Source() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeFile(path, options);
+            }
+        }, reqWidth, reqHeight, config, pool);
+    }
+
+    /**
+     * 解码资源图片.
+     *
+     * @see #decode(byte[], int, int, int, int, Bitmap.Config, BitmapPool)
+     */
+    @Nullable
+    public static Bitmap decodeResource(@NonNull final Resources res, final int id, int reqWidth, int reqHeight,
+                                        @Nullable Bitmap.Config config, @Nullable BitmapPool pool) {
+        return decode(new Source() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeResource(res, id, options);
+            }
+        }, reqWidth, reqHeight, config, pool);
+    }
+
+    /**
+     * 不小于目标宽高的最大的2的幂采样率.
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return sampleSize;
+        while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 编码为字节数组.
+     *
+     * @param quality 0~100，PNG忽略该参数.
+     * @return 编码失败时返回null.
+     */
+    @Nullable
+    public static byte[] encode(@NonNull Bitmap bitmap, @NonNull Bitmap.CompressFormat format, int quality) {
+        final ReusableOutputStream out = sOutput.get();
+        try {
+            return bitmap.compress(format, quality, out) ? out.toByteArray() : null;
+        } finally {
+            out.recycle();
+        }
+    }
+
+    /**
+     * 将Drawable绘制为Bitmap，BitmapDrawable直接返回其中的Bitmap.
+     *
+     * @param width  宽度，小于等于0时使用Drawable的固有宽度(也没有时为1).
+     * @param height 高度，小于等于0时使用Drawable的固有高度(也没有时为1).
+     * @return 创建Bitmap失败时返回null.
+     */
+    @Nullable
+    public static Bitmap drawable2Bitmap(@NonNull Drawable drawable, int width, int height) {
+        if (drawable instanceof BitmapDrawable) {
+            final Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            if (null != bitmap) return bitmap;
+        }
+        if (width <= 0) width = Math.max(1, drawable.getIntrinsicWidth());
+        if (height <= 0) height = Math.max(1, drawable.getIntrinsicHeight());
+        final Bitmap.Config config = drawable.getOpacity() == PixelFormat.OPAQUE
+                ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        final Bitmap bitmap = BitmapUtils.createBitmapSafely(width, height, config, 1);
+        if (null == bitmap) return null;
+        final Canvas canvas = new Canvas(bitmap);
+        final Rect bounds = new Rect(drawable.getBounds());
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(canvas);
+        drawable.setBounds(bounds);
+        return bitmap;
+    }
+
+    private static Bitmap decode(Source source, int reqWidth, int reqHeight, Bitmap.Config config, BitmapPool pool) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        source.decode(options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        if (null != config) options.inPreferredConfig = config;
+        if (null != pool) {
+            options.inMutable = true;
+            //按向上取整估算解码后的宽高，保证inBitmap的字节数足够.
+            final int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            final int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            final Bitmap.Config target = null != options.inPreferredConfig ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+            options.inBitmap = pool.getDirty(width, height, target);
+            if (null != options.inBitmap) {
+                try {
+                    final Bitmap bitmap = source.decode(options);
+                    if (null != bitmap) return bitmap;
+                } catch (IllegalArgumentException e) {
+                    //格式不支持复用，退回普通解码.
+                }
+                pool.put(options.inBitmap);
+                options.inBitmap = null;
+            }
+        }
+        try {
+            return source.decode(options);
+        } catch (OutOfMemoryError e) {
+            e.printStackTrace();
+            //池中的Bitmap全部让出后重试一次.
+            final BitmapPool evictable = null != pool ? pool : BitmapPool.getDefault();
+            if (evictable.evict(Long.MAX_VALUE) == 0) return null;
+            return source.decode(options);
+        }
+    }
+
+    /**
+     * 图片数据的来源，可以重复读取.
+     */
+    private interface Source {
+
+        Bitmap decode(BitmapFactory.Options options);
+    }
+
+    /**
+     * 可以直接复用内部数组的输出流.
+     */
+    private static final class ReusableOutputStream extends ByteArrayOutputStream {
+
+        ReusableOutputStream() {
+            super(32 * 1024);
+        }
+
+        /**
+         * 清空内容，过大的数组不保留.
+         */
+        void recycle() {
+            if (buf.length > MAX_REUSED_BUFFER) buf = new byte[32 * 1024];
+            count = 0;
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+package com.duanlu.utils;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/********************************
+ * @name BitmapMemoryCache
+ * @author 段露
+ * @createDate 2026/10/19 02:40
+ * @updateDate 2026/10/19 05:10
+ * @version V1.0.0
+ * @describe Bitmap内存缓存.
+ * 按放入时的getAllocationByteCount()统计占用，超过上限时按最近使用顺序淘汰.
+ * 默认实例的上限为应用内存等级(memory class)的1/8，调用{@link #init(Context)}后按实际的内存等级计算
+ * 并响应onTrimMemory()：进入后台时清空，界面隐藏或内存紧张时减半，同时修剪{@link BitmapPool}.
+ * 被移除的Bitmap通过{@link OnEntryRemovedListener}通知.
+ * 缓存中的Bitmap会返回给多个调用者，调用者不能修改或recycle()，被移除后也可能仍在显示，
+ * 所以缓存不会把它们放入{@link BitmapPool}，交给GC回收.
+ * 线程安全.
+ ********************************/
+public final class BitmapMemoryCache {
+
+    private static final int DEFAULT_MEMORY_FRACTION = 8;
+
+    private static volatile BitmapMemoryCache sDefault;
+
+    private final LinkedHashMap<String, Entry> mMap = new LinkedHashMap<>(16, 0.75f, true);
+    private long mMaxSize;
+    private long mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mPutCount;
+    private int mEvictionCount;
+    private volatile OnEntryRemovedListener mListener;
+
+    /**
+     * @param maxSize 缓存中Bitmap的最大总字节数.
+     */
+    public BitmapMemoryCache(long maxSize) {
+        this.mMaxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * 全局共享的缓存，没有调用{@link #init(Context)}时上限为最大堆内存的1/8.
+     */
+    public static BitmapMemoryCache getDefault() {
+        if (null == sDefault) {
+            synchronized (BitmapMemoryCache.class) {
+                if (null == sDefault) {
+                    sDefault = new BitmapMemoryCache(Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_FRACTION);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 按应用的内存等级设置默认缓存的上限，并注册onTrimMemory()回调.
+     * 只需要调用一次，建议在Application.onCreate()中调用.
+     */
+    public static void init(@NonNull Context context) {
+        final Context appContext = context.getApplicationContext();
+        getDefault().setMaxSize(getMemoryClassBytes(appContext) / DEFAULT_MEMORY_FRACTION);
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                getDefault().trimMemory(level);
+                BitmapPool.getDefault().trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+
+            }
+
+            @Override
+            public void onLowMemory() {
+                getDefault().clear();
+                BitmapPool.getDefault().clear();
+            }
+        });
+    }
+
+    /**
+     * 应用可用的堆内存字节数，声明了largeHeap时使用getLargeMemoryClass().
+     */
+    public static long getMemoryClassBytes(@NonNull Context context) {
+        final ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (null == am) return Runtime.getRuntime().maxMemory();
+        final boolean largeHeap = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_LARGE_HEAP) != 0;
+        final int memoryClass = largeHeap ? am.getLargeMemoryClass() : am.getMemoryClass();
+        return memoryClass * 1024L * 1024L;
+    }
+
+    public void setOnEntryRemovedListener(@Nullable OnEntryRemovedListener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * @return 没有缓存或已经被回收时返回null.
+     */
+    @Nullable
+    public Bitmap get(@NonNull String key) {
+        synchronized (this) {
+            final Entry entry = mMap.get(key);
+            if (null != entry && !entry.bitmap.isRecycled()) {
+                mHitCount++;
+                return entry.bitmap;
+            }
+            if (null != entry) {
+                //被调用者回收了，不再通知.
+                mMap.remove(key);
+                mSize -= entry.size;
+            }
+            mMissCount++;
+            return null;
+        }
+    }
+
+    /**
+     * 放入缓存，超过上限的Bitmap不缓存.
+     *
+     * @return 是否被缓存.
+     */
+    public boolean put(@NonNull String key, @NonNull Bitmap bitmap) {
+        if (bitmap.isRecycled()) return false;
+        final int size = bitmap.getAllocationByteCount();
+        final Entry previous;
+        final List<Map.Entry<String, Bitmap>> evicted;
+        synchronized (this) {
+            if (size > mMaxSize) return false;
+            mPutCount++;
+            previous = mMap.put(key, new Entry(bitmap, size));
+            mSize += size;
+            if (null != previous) mSize -= previous.size;
+            evicted = trim(mMaxSize);
+        }
+        if (null != previous && previous.bitmap != bitmap) notifyRemoved(key, previous.bitmap, false);
+        notifyEvicted(evicted);
+        return true;
+    }
+
+    /**
+     * 移除缓存.
+     *
+     * @return 被移除的Bitmap.
+     */
+    @Nullable
+    public Bitmap remove(@NonNull String key) {
+        final Entry previous;
+        synchronized (this) {
+            previous = mMap.remove(key);
+            if (null != previous) mSize -= previous.size;
+        }
+        if (null == previous) return null;
+        notifyRemoved(key, previous.bitmap, false);
+        return previous.bitmap;
+    }
+
+    /**
+     * 淘汰最久没有使用的Bitmap，直到总字节数不超过maxSize.
+     */
+    public void trimToSize(long maxSize) {
+        final List<Map.Entry<String, Bitmap>> evicted;
+        synchronized (this) {
+            evicted = trim(maxSize);
+        }
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * 按onTrimMemory()的级别修剪.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(getMaxSize() / 2);
+        }
+    }
+
+    /**
+     * 淘汰全部.
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 修改上限，超出的部分立即淘汰.
+     */
+    public void setMaxSize(long maxSize) {
+        synchronized (this) {
+            mMaxSize = Math.max(0, maxSize);
+        }
+        trimToSize(maxSize);
+    }
+
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 缓存中Bitmap的总字节数.
+     */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getPutCount() {
+        return mPutCount;
+    }
+
+    /**
+     * 因为超过上限或修剪而淘汰的次数，不包括{@link #remove(String)}和替换.
+     */
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final int accesses = mHitCount + mMissCount;
+        final int hitPercent = accesses != 0 ? (100 * mHitCount / accesses) : 0;
+        return "BitmapMemoryCache{" +
+                "size=" + mSize +
+                ", maxSize=" + mMaxSize +
+                ", entries=" + mMap.size() +
+                ", hits=" + mHitCount +
+                ", misses=" + mMissCount +
+                ", hitRate=" + hitPercent + "%" +
+                ", puts=" + mPutCount +
+                ", evictions=" + mEvictionCount +
+                '}';
+    }
+
+    /**
+     * 在锁内淘汰，返回被淘汰的条目，在锁外通知.
+     */
+    private List<Map.Entry<String, Bitmap>> trim(long maxSize) {
+        List<Map.Entry<String, Bitmap>> evicted = null;
+        final Iterator<Map.Entry<String, Entry>> iterator = mMap.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+            iterator.remove();
+            mSize -= entry.getValue().size;
+            mEvictionCount++;
+            if (null == evicted) evicted = new ArrayList<>();
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().bitmap));
+        }
+        return evicted;
+    }
+
+    private void notifyEvicted(List<Map.Entry<String, Bitmap>> evicted) {
+        if (null == evicted) return;
+        for (Map.Entry<String, Bitmap> entry : evicted) {
+            notifyRemoved(entry.getKey(), entry.getValue(), true);
+        }
+    }
+
+    private void notifyRemoved(String key, Bitmap bitmap, boolean evicted) {
+        final OnEntryRemovedListener listener = mListener;
+        if (null != listener) listener.onEntryRemoved(key, bitmap, evicted);
+    }
+
+    /**
+     * 缓存的Bitmap和放入时的字节数.
+     * Bitmap被回收后getAllocationByteCount()可能返回0，所以移除时减去放入时记录的值.
+     */
+    private static final class Entry {
+
+        final Bitmap bitmap;
+        final int size;
+
+        Entry(Bitmap bitmap, int size) {
+            this.bitmap = bitmap;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Bitmap被移出缓存的监听，在锁外回调.
+     * Bitmap可能仍被之前的调用者使用，不能在回调中recycle()或放入{@link BitmapPool}.
+     */
+    public interface OnEntryRemovedListener {
+
+        /**
+         * @param evicted true表示因为超过上限或修剪被淘汰，false表示被移除或替换.
+         */
+        void onEntryRemoved(@NonNull String key, @NonNull Bitmap bitmap, boolean evicted);
+    }
+
+}
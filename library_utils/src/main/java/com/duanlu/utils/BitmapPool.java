@@ -0,0 +1,216 @@
+package com.duanlu.utils;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/********************************
+ * @name BitmapPool
+ * @author 段露
+ * @createDate 2026/10/19 02:10
+ * @updateDate 2026/10/19 02:40
+ * @version V1.0.0
+ * @describe 可复用Bitmap池.
+ * 按getAllocationByteCount()分桶，取用时找不小于所需字节数的最小的桶，再通过reconfigure()改成需要的宽高和格式，
+ * 也可以作为BitmapFactory.Options.inBitmap供解码复用(API 19起只要求字节数足够).
+ * 总字节数超过上限时按桶的最近使用顺序淘汰，淘汰的Bitmap直接recycle().
+ * 只接收可变(isMutable)且没有回收的Bitmap，放入后调用者不能再使用.
+ * 线程安全.
+ ********************************/
+public final class BitmapPool {
+
+    //桶的字节数超过所需的这个倍数时不复用，避免小图长期占用大块内存.
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    private static volatile BitmapPool sDefault;
+
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> mBuckets = new TreeMap<>();
+    //与mBuckets是同一组队列，按访问顺序排列，用于淘汰.
+    private final LinkedHashMap<Integer, ArrayDeque<Bitmap>> mLru = new LinkedHashMap<>(16, 0.75f, true);
+    private long mMaxSize;
+    private long mSize;
+
+    /**
+     * @param maxSize 池中Bitmap的最大总字节数.
+     */
+    public BitmapPool(long maxSize) {
+        this.mMaxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * 全局共享的池，上限为最大堆内存的1/16.
+     */
+    public static BitmapPool getDefault() {
+        if (null == sDefault) {
+            synchronized (BitmapPool.class) {
+                if (null == sDefault) {
+                    sDefault = new BitmapPool(Runtime.getRuntime().maxMemory() / 16);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 每个像素的字节数，无法复用的格式(如HARDWARE)返回0.
+     */
+    static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) return 4;
+        if (config == Bitmap.Config.RGB_565) return 2;
+        if (config == Bitmap.Config.ARGB_4444) return 2;
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        return 0;
+    }
+
+    /**
+     * 放入池中.
+     *
+     * @return 是否被接收，不接收时Bitmap保持原样，由调用者自行处理.
+     */
+    public boolean put(@Nullable Bitmap bitmap) {
+        if (null == bitmap || bitmap.isRecycled() || !bitmap.isMutable()
+                || bytesPerPixel(bitmap.getConfig()) == 0) {
+            return false;
+        }
+        final int size = bitmap.getAllocationByteCount();
+        synchronized (this) {
+            if (size > mMaxSize) return false;
+            ArrayDeque<Bitmap> bucket = mBuckets.get(size);
+            if (null == bucket) {
+                bucket = new ArrayDeque<>();
+                mBuckets.put(size, bucket);
+            }
+            mLru.put(size, bucket);
+            bucket.addLast(bitmap);
+            mSize += size;
+            trimToSize(mMaxSize);
+        }
+        return true;
+    }
+
+    /**
+     * 取一个已经改成指定宽高和格式、内容清为透明的Bitmap.
+     *
+     * @return 池中没有合适的Bitmap时返回null.
+     */
+    @Nullable
+    public Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        final Bitmap bitmap = getDirty(width, height, config);
+        if (null == bitmap) return null;
+        try {
+            bitmap.reconfigure(width, height, config);
+        } catch (IllegalArgumentException e) {
+            //理论上不会发生，字节数在取出时已经检查过.
+            bitmap.recycle();
+            return null;
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * 取一个字节数足够容纳指定宽高和格式的Bitmap，宽高、格式和内容都没有处理.
+     * 用作inBitmap时解码器会自行调整，不需要清空.
+     *
+     * @return 池中没有合适的Bitmap时返回null.
+     */
+    @Nullable
+    public Bitmap getDirty(int width, int height, @NonNull Bitmap.Config config) {
+        final int bpp = bytesPerPixel(config);
+        if (width <= 0 || height <= 0 || bpp == 0) return null;
+        final long required = (long) width * height * bpp;
+        if (required > Integer.MAX_VALUE) return null;
+        synchronized (this) {
+            final Integer size = mBuckets.ceilingKey((int) required);
+            if (null == size || size > required * MAX_SIZE_MULTIPLE) return null;
+            final ArrayDeque<Bitmap> bucket = mLru.get(size);
+            final Bitmap bitmap = bucket.pollLast();
+            if (bucket.isEmpty()) removeBucket(size);
+            mSize -= size;
+            return bitmap;
+        }
+    }
+
+    /**
+     * 淘汰最久没有使用的Bitmap，直到总字节数不超过maxSize.
+     */
+    public synchronized void trimToSize(long maxSize) {
+        final Iterator<Map.Entry<Integer, ArrayDeque<Bitmap>>> iterator = mLru.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            final Map.Entry<Integer, ArrayDeque<Bitmap>> entry = iterator.next();
+            final ArrayDeque<Bitmap> bucket = entry.getValue();
+            while (mSize > maxSize && !bucket.isEmpty()) {
+                bucket.pollFirst().recycle();
+                mSize -= entry.getKey();
+            }
+            if (bucket.isEmpty()) {
+                iterator.remove();
+                mBuckets.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 为了腾出内存至少淘汰bytes字节(池中不够时全部淘汰).
+     *
+     * @return 实际淘汰的字节数.
+     */
+    public synchronized long evict(long bytes) {
+        final long before = mSize;
+        trimToSize(Math.max(0, mSize - bytes));
+        return before - mSize;
+    }
+
+    /**
+     * 按onTrimMemory()的级别修剪：进入后台时清空，界面隐藏或内存紧张时减半.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(getMaxSize() / 2);
+        }
+    }
+
+    /**
+     * 淘汰全部.
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 修改上限，超出的部分立即淘汰.
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        mMaxSize = Math.max(0, maxSize);
+        trimToSize(mMaxSize);
+    }
+
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 池中Bitmap的总字节数.
+     */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    private void removeBucket(int size) {
+        mBuckets.remove(size);
+        mLru.remove(size);
+    }
+
+}
@@ -11,37 +11,110 @@ import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.widget.ImageView;
 
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /********************************
  * @name BitmapUtils
  * @author 段露
  * @createDate 2019/01/04 20:14.
- * @updateDate 2019/01/04 20:14.
+ * @updateDate 2026/10/19 03:10.
  * @version V1.0.0
  * @describe Bitmap工具类.
+ * 解码、编码见{@link BitmapCodec}，可复用的Bitmap见{@link BitmapPool}.
+ * 带cacheKey的方法结果保存在{@link BitmapMemoryCache#getDefault()}中，相同的key直接返回缓存.
+ * 绘制用的Canvas和Paint每个线程一份，不同线程的绘制互不阻塞.
  ********************************/
 public class BitmapUtils {
 
-    //节省每次创建时产生的开销，但要注意多线程操作synchronized
-    private static final Canvas sCanvas = new Canvas();
+    //节省每次创建时产生的开销，每个线程一份，不需要加锁.
+    private static final ThreadLocal<Renderer> sRenderer = new ThreadLocal<Renderer>() {
+        @Override
+        protected Renderer initialValue() {
+            return new Renderer();
+        }
+    };
 
     private BitmapUtils() {
 
     }
 
     public static Bitmap color(Bitmap mOriginalBitmap, int color) {
-        Bitmap bitmap = createBitmapSafely(mOriginalBitmap.getWidth(), mOriginalBitmap.getHeight(), Bitmap.Config.ARGB_8888, 1);
-        if (null != bitmap) {
-            synchronized (sCanvas) {
-                Canvas canvas = sCanvas;
-                canvas.setBitmap(bitmap);
-                canvas.save();
-                Paint paint = new Paint();
-                paint.setAntiAlias(true);
-                canvas.drawBitmap(mOriginalBitmap, 0, 0, paint);
-                canvas.drawColor(color, PorterDuff.Mode.SRC_ATOP);
-                canvas.restore();
-                canvas.setBitmap(null);
+        final Renderer renderer = Renderer.acquire();
+        try {
+            return renderer.color(mOriginalBitmap, color);
+        } finally {
+            renderer.release();
+        }
+    }
+
+    /**
+     * 批量着色，所有图片使用同一套Canvas和Paint一次完成.
+     *
+     * @return 与originals一一对应，创建失败的位置为null.
+     */
+    public static List<Bitmap> color(@NonNull List<Bitmap> originals, int color) {
+        final List<Bitmap> result = new ArrayList<>(originals.size());
+        final Renderer renderer = Renderer.acquire();
+        try {
+            for (Bitmap original : originals) {
+                result.add(renderer.color(original, color));
+            }
+        } finally {
+            renderer.release();
+        }
+        return result;
+    }
+
+    /**
+     * 缩放为指定宽高(开启双线性过滤).
+     *
+     * @return 创建失败时返回null.
+     */
+    public static Bitmap scale(Bitmap original, int width, int height) {
+        final Renderer renderer = Renderer.acquire();
+        try {
+            return renderer.scale(original, width, height);
+        } finally {
+            renderer.release();
+        }
+    }
+
+    /**
+     * 批量按比例缩放，所有图片使用同一套Canvas和Paint一次完成.
+     *
+     * @param scale 缩放比例，缩放后的宽高至少为1.
+     * @return 与originals一一对应，创建失败的位置为null.
+     */
+    public static List<Bitmap> scale(@NonNull List<Bitmap> originals, float scale) {
+        final List<Bitmap> result = new ArrayList<>(originals.size());
+        final Renderer renderer = Renderer.acquire();
+        try {
+            for (Bitmap original : originals) {
+                result.add(renderer.scale(original, Math.max(1, Math.round(original.getWidth() * scale)),
+                        Math.max(1, Math.round(original.getHeight() * scale))));
             }
+        } finally {
+            renderer.release();
+        }
+        return result;
+    }
+
+    /**
+     * 着色，结果按cacheKey和color缓存.
+     * 返回的Bitmap可能被多处共享，不能修改或recycle().
+     *
+     * @param cacheKey 标识原图内容的key，原图变化时需要换一个key.
+     */
+    public static Bitmap color(Bitmap mOriginalBitmap, int color, @NonNull String cacheKey) {
+        final String key = "color:" + cacheKey + ":" + color;
+        final BitmapMemoryCache cache = BitmapMemoryCache.getDefault();
+        Bitmap bitmap = cache.get(key);
+        if (null == bitmap) {
+            bitmap = color(mOriginalBitmap, color);
+            if (null != bitmap) cache.put(key, bitmap);
         }
         return bitmap;
     }
@@ -69,8 +142,9 @@ public class BitmapUtils {
         Bitmap bitmap = createBitmapSafely((int) (view.getWidth() * scale),
                 (int) (view.getHeight() * scale), Bitmap.Config.ARGB_8888, 1);
         if (bitmap != null) {
-            synchronized (sCanvas) {
-                Canvas canvas = sCanvas;
+            final Renderer renderer = Renderer.acquire();
+            try {
+                Canvas canvas = renderer.mCanvas;
                 canvas.setBitmap(bitmap);
                 canvas.save();
                 canvas.drawColor(Color.WHITE); // 防止 View 上面有些区域空白导致最终 Bitmap 上有些区域变黑
@@ -78,11 +152,35 @@ public class BitmapUtils {
                 view.draw(canvas);
                 canvas.restore();
                 canvas.setBitmap(null);
+            } finally {
+                renderer.release();
             }
         }
         return bitmap;
     }
 
+    /**
+     * 从一个view创建Bitmap，结果按cacheKey和scale缓存.
+     * 返回的Bitmap可能被多处共享，不能修改或recycle().
+     *
+     * @param cacheKey 标识view当前状态的key，view的内容变化时需要换一个key.
+     * @see #createBitmapFromView(View, float)
+     */
+    public static Bitmap createBitmapFromView(View view, float scale, @NonNull String cacheKey) {
+        if (view instanceof ImageView && ((ImageView) view).getDrawable() instanceof BitmapDrawable) {
+            //直接返回ImageView正在显示的Bitmap，不缓存.
+            return createBitmapFromView(view, scale);
+        }
+        final String key = "view:" + cacheKey + ":" + scale;
+        final BitmapMemoryCache cache = BitmapMemoryCache.getDefault();
+        Bitmap bitmap = cache.get(key);
+        if (null == bitmap) {
+            bitmap = createBitmapFromView(view, scale);
+            if (null != bitmap) cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
     /**
      * 从一个view创建Bitmap。把view的区域截掉leftCrop/topCrop/rightCrop/bottomCrop
      */
@@ -106,7 +204,8 @@ public class BitmapUtils {
 
     /**
      * 安全的创建Bitmap.
-     * 如果新建 Bitmap 时产生了 OOM，可以主动进行一次 GC - System.gc()，然后再次尝试创建.
+     * 优先从{@link BitmapPool#getDefault()}复用；新建时产生了 OOM，先淘汰池中的 Bitmap 腾出内存，
+     * 池中没有可淘汰的时再主动进行一次 GC - System.gc()，然后再次尝试创建.
      * 参考自QMUI.
      *
      * @param width      Bitmap 宽度.
@@ -116,16 +215,70 @@ public class BitmapUtils {
      * @return 返回创建的 Bitmap.
      */
     public static Bitmap createBitmapSafely(int width, int height, Bitmap.Config config, int retryCount) {
+        final BitmapPool pool = BitmapPool.getDefault();
+        final Bitmap reused = pool.get(width, height, config);
+        if (null != reused) return reused;
         try {
             return Bitmap.createBitmap(width, height, config);
         } catch (OutOfMemoryError e) {
             e.printStackTrace();
             if (retryCount > 0) {
-                System.gc();
+                if (pool.evict(Long.MAX_VALUE) == 0) System.gc();
                 return createBitmapSafely(width, height, config, retryCount - 1);
             }
             return null;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 线程私有的Canvas和Paint.
+     * 同一线程嵌套使用时(如view.draw()中又调用了着色)临时创建一份，避免互相覆盖.
+     */
+    private static final class Renderer {
+
+        private final Canvas mCanvas = new Canvas();
+        private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        private final Rect mDst = new Rect();
+        private boolean mInUse;
+
+        static Renderer acquire() {
+            final Renderer renderer = sRenderer.get();
+            if (renderer.mInUse) return new Renderer();
+            renderer.mInUse = true;
+            return renderer;
+        }
+
+        void release() {
+            mInUse = false;
+        }
+
+        Bitmap color(Bitmap original, int color) {
+            Bitmap bitmap = createBitmapSafely(original.getWidth(), original.getHeight(), Bitmap.Config.ARGB_8888, 1);
+            if (null != bitmap) {
+                Canvas canvas = mCanvas;
+                canvas.setBitmap(bitmap);
+                canvas.save();
+                canvas.drawBitmap(original, 0, 0, mPaint);
+                canvas.drawColor(color, PorterDuff.Mode.SRC_ATOP);
+                canvas.restore();
+                canvas.setBitmap(null);
+            }
+            return bitmap;
+        }
+
+        Bitmap scale(Bitmap original, int width, int height) {
+            final Bitmap.Config config = null != original.getConfig() && BitmapPool.bytesPerPixel(original.getConfig()) != 0
+                    ? original.getConfig() : Bitmap.Config.ARGB_8888;
+            Bitmap bitmap = createBitmapSafely(width, height, config, 1);
+            if (null != bitmap) {
+                Canvas canvas = mCanvas;
+                canvas.setBitmap(bitmap);
+                mDst.set(0, 0, width, height);
+                canvas.drawBitmap(original, null, mDst, mPaint);
+                canvas.setBitmap(null);
+            }
+            return bitmap;
+        }
+    }
+
+}
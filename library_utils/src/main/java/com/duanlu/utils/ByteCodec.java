@@ -0,0 +1,383 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/********************************
+ * @name ByteCodec
+ * @author 段露
+ * @createDate 2026/10/19 01:10
+ * @updateDate 2026/10/19 01:10
+ * @version V1.0.0
+ * @describe 十六进制和二进制字符串编解码.
+ * 全部查表完成：编码时每个字节直接取出对应的2个(或8个)字符，解码时每个字符查一次表，不区分大小写，不产生中间字符串.
+ * 可以写入调用者提供的char[]/byte[]/ByteBuffer的指定位置，大数据使用流式接口分块处理.
+ * 非法字符抛出IllegalArgumentException.
+ ********************************/
+public final class ByteCodec {
+
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+
+    //每个字节对应的两个十六进制字符，下标为(b & 0xFF) * 2.
+    private static final char[] HEX_PAIRS_UPPER = new char[512];
+    private static final char[] HEX_PAIRS_LOWER = new char[512];
+    //字符对应的值，非法字符为-1.
+    private static final byte[] HEX_VALUES = new byte[128];
+    //每个字节对应的8个二进制字符，下标为(b & 0xFF) * 8.
+    private static final char[] BITS = new char[256 * 8];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS_UPPER[i << 1] = HEX_UPPER[i >>> 4];
+            HEX_PAIRS_UPPER[(i << 1) + 1] = HEX_UPPER[i & 0x0F];
+            HEX_PAIRS_LOWER[i << 1] = HEX_LOWER[i >>> 4];
+            HEX_PAIRS_LOWER[(i << 1) + 1] = HEX_LOWER[i & 0x0F];
+            for (int j = 0; j < 8; j++) {
+                BITS[(i << 3) + j] = ((i >>> (7 - j)) & 1) == 0 ? '0' : '1';
+            }
+        }
+        for (int i = 0; i < HEX_VALUES.length; i++) {
+            HEX_VALUES[i] = -1;
+        }
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_UPPER[i]] = (byte) i;
+            HEX_VALUES[HEX_LOWER[i]] = (byte) i;
+        }
+    }
+
+    private ByteCodec() {
+
+    }
+
+    //------------------------------------------十六进制------------------------------------------/
+
+    /**
+     * 编码为十六进制字符串.
+     */
+    public static String encodeHex(@NonNull byte[] src, int srcOffset, int length, boolean upperCase) {
+        final char[] chars = new char[length << 1];
+        encodeHex(src, srcOffset, length, chars, 0, upperCase);
+        return new String(chars);
+    }
+
+    /**
+     * 编码到dst中，需要length * 2个字符的空间.
+     *
+     * @return 写入的字符数.
+     */
+    public static int encodeHex(@NonNull byte[] src, int srcOffset, int length,
+                                @NonNull char[] dst, int dstOffset, boolean upperCase) {
+        final char[] pairs = upperCase ? HEX_PAIRS_UPPER : HEX_PAIRS_LOWER;
+        int j = dstOffset;
+        for (int i = srcOffset, end = srcOffset + length; i < end; i++) {
+            final int index = (src[i] & 0xFF) << 1;
+            dst[j++] = pairs[index];
+            dst[j++] = pairs[index + 1];
+        }
+        return j - dstOffset;
+    }
+
+    /**
+     * 编码src中剩余的字节到dst中，src的position移到末尾.
+     *
+     * @return 写入的字符数.
+     */
+    public static int encodeHex(@NonNull ByteBuffer src, @NonNull char[] dst, int dstOffset, boolean upperCase) {
+        if (src.hasArray()) {
+            final int length = src.remaining();
+            encodeHex(src.array(), src.arrayOffset() + src.position(), length, dst, dstOffset, upperCase);
+            src.position(src.limit());
+            return length << 1;
+        }
+        final char[] pairs = upperCase ? HEX_PAIRS_UPPER : HEX_PAIRS_LOWER;
+        int j = dstOffset;
+        while (src.hasRemaining()) {
+            final int index = (src.get() & 0xFF) << 1;
+            dst[j++] = pairs[index];
+            dst[j++] = pairs[index + 1];
+        }
+        return j - dstOffset;
+    }
+
+    /**
+     * 解码后的字节数，字符数为奇数时在前面补一个'0'.
+     */
+    public static int decodedHexLength(int charCount) {
+        return (charCount + 1) >> 1;
+    }
+
+    /**
+     * 解码十六进制字符串，字符数为奇数时在前面补一个'0'.
+     */
+    public static byte[] decodeHex(@NonNull CharSequence src) {
+        final byte[] bytes = new byte[decodedHexLength(src.length())];
+        decodeHex(src, 0, src.length(), bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * 解码src[start, end)到dst中，字符数为奇数时在前面补一个'0'.
+     *
+     * @return 写入的字节数.
+     */
+    public static int decodeHex(@NonNull CharSequence src, int start, int end, @NonNull byte[] dst, int dstOffset) {
+        int i = start;
+        int j = dstOffset;
+        if (((end - start) & 1) != 0) {
+            dst[j++] = (byte) hexValue(src.charAt(i++));
+        }
+        while (i < end) {
+            dst[j++] = (byte) (hexValue(src.charAt(i)) << 4 | hexValue(src.charAt(i + 1)));
+            i += 2;
+        }
+        return j - dstOffset;
+    }
+
+    /**
+     * 解码src[start, end)写入dst的当前位置，字符数为奇数时在前面补一个'0'.
+     *
+     * @return 写入的字节数.
+     */
+    public static int decodeHex(@NonNull CharSequence src, int start, int end, @NonNull ByteBuffer dst) {
+        final int length = decodedHexLength(end - start);
+        if (dst.hasArray()) {
+            if (dst.remaining() < length) throw new IllegalArgumentException("dst remaining < " + length);
+            decodeHex(src, start, end, dst.array(), dst.arrayOffset() + dst.position());
+            dst.position(dst.position() + length);
+            return length;
+        }
+        int i = start;
+        if (((end - start) & 1) != 0) {
+            dst.put((byte) hexValue(src.charAt(i++)));
+        }
+        while (i < end) {
+            dst.put((byte) (hexValue(src.charAt(i)) << 4 | hexValue(src.charAt(i + 1))));
+            i += 2;
+        }
+        return length;
+    }
+
+    /**
+     * 流式编码，读完in为止，不关闭流.
+     *
+     * @return 读取的字节数.
+     */
+    public static long encodeHex(@NonNull InputStream in, @NonNull Writer out, boolean upperCase) throws IOException {
+        final byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        final char[] chars = new char[STREAM_BUFFER_SIZE << 1];
+        long total = 0;
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            out.write(chars, 0, encodeHex(bytes, 0, read, chars, 0, upperCase));
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 流式解码，读完in为止，不关闭流.
+     * 不能预先知道总长度，所以要求字符数为偶数.
+     *
+     * @return 写入的字节数.
+     */
+    public static long decodeHex(@NonNull Reader in, @NonNull OutputStream out) throws IOException {
+        final char[] chars = new char[STREAM_BUFFER_SIZE << 1];
+        final byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        final CharArraySequence sequence = new CharArraySequence(chars);
+        long total = 0;
+        int pending = 0;//上一次剩下的半个字节.
+        int read;
+        while ((read = in.read(chars, pending, chars.length - pending)) != -1) {
+            final int available = pending + read;
+            final int even = available & ~1;
+            final int written = decodeHex(sequence, 0, even, bytes, 0);
+            out.write(bytes, 0, written);
+            total += written;
+            pending = available - even;
+            if (pending != 0) chars[0] = chars[even];
+        }
+        if (pending != 0) throw new IllegalArgumentException("odd hex length");
+        return total;
+    }
+
+    private static int hexValue(char c) {
+        final int value = c < 128 ? HEX_VALUES[c] : -1;
+        if (value < 0) throw new IllegalArgumentException("illegal hex char: " + c);
+        return value;
+    }
+
+    //------------------------------------------二进制------------------------------------------/
+
+    /**
+     * 编码为二进制字符串，每个字节8个字符，高位在前.
+     */
+    public static String encodeBits(@NonNull byte[] src, int srcOffset, int length) {
+        final char[] chars = new char[length << 3];
+        encodeBits(src, srcOffset, length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * 编码到dst中，需要length * 8个字符的空间.
+     *
+     * @return 写入的字符数.
+     */
+    public static int encodeBits(@NonNull byte[] src, int srcOffset, int length, @NonNull char[] dst, int dstOffset) {
+        int j = dstOffset;
+        for (int i = srcOffset, end = srcOffset + length; i < end; i++) {
+            System.arraycopy(BITS, (src[i] & 0xFF) << 3, dst, j, 8);
+            j += 8;
+        }
+        return j - dstOffset;
+    }
+
+    /**
+     * 解码后的字节数，字符数不是8的倍数时在前面补'0'.
+     */
+    public static int decodedBitsLength(int charCount) {
+        return (charCount + 7) >> 3;
+    }
+
+    /**
+     * 解码二进制字符串，字符数不是8的倍数时在前面补'0'.
+     */
+    public static byte[] decodeBits(@NonNull CharSequence src) {
+        final byte[] bytes = new byte[decodedBitsLength(src.length())];
+        decodeBits(src, 0, src.length(), bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * 解码src[start, end)到dst中，字符数不是8的倍数时在前面补'0'.
+     *
+     * @return 写入的字节数.
+     */
+    public static int decodeBits(@NonNull CharSequence src, int start, int end, @NonNull byte[] dst, int dstOffset) {
+        int i = start;
+        int j = dstOffset;
+        //第一个字节可能不足8位.
+        int head = (end - start) & 7;
+        if (head == 0 && end > start) head = 8;
+        while (i < end) {
+            int value = 0;
+            for (final int byteEnd = i + head; i < byteEnd; i++) {
+                value = value << 1 | bitValue(src.charAt(i));
+            }
+            dst[j++] = (byte) value;
+            head = 8;
+        }
+        return j - dstOffset;
+    }
+
+    /**
+     * 解码src[start, end)写入dst的当前位置，字符数不是8的倍数时在前面补'0'.
+     *
+     * @return 写入的字节数.
+     */
+    public static int decodeBits(@NonNull CharSequence src, int start, int end, @NonNull ByteBuffer dst) {
+        final int length = decodedBitsLength(end - start);
+        if (dst.remaining() < length) throw new IllegalArgumentException("dst remaining < " + length);
+        if (dst.hasArray()) {
+            decodeBits(src, start, end, dst.array(), dst.arrayOffset() + dst.position());
+            dst.position(dst.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            decodeBits(src, start, end, bytes, 0);
+            dst.put(bytes);
+        }
+        return length;
+    }
+
+    /**
+     * 流式编码，读完in为止，不关闭流.
+     *
+     * @return 读取的字节数.
+     */
+    public static long encodeBits(@NonNull InputStream in, @NonNull Writer out) throws IOException {
+        final byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        final char[] chars = new char[STREAM_BUFFER_SIZE << 3];
+        long total = 0;
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            out.write(chars, 0, encodeBits(bytes, 0, read, chars, 0));
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 流式解码，读完in为止，不关闭流.
+     * 不能预先知道总长度，所以要求字符数为8的倍数.
+     *
+     * @return 写入的字节数.
+     */
+    public static long decodeBits(@NonNull Reader in, @NonNull OutputStream out) throws IOException {
+        final char[] chars = new char[STREAM_BUFFER_SIZE << 3];
+        final byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        final CharArraySequence sequence = new CharArraySequence(chars);
+        long total = 0;
+        int pending = 0;//上一次剩下的不足8位的字符数.
+        int read;
+        while ((read = in.read(chars, pending, chars.length - pending)) != -1) {
+            final int available = pending + read;
+            final int whole = available & ~7;
+            final int written = decodeBits(sequence, 0, whole, bytes, 0);
+            out.write(bytes, 0, written);
+            total += written;
+            pending = available - whole;
+            System.arraycopy(chars, whole, chars, 0, pending);
+        }
+        if (pending != 0) throw new IllegalArgumentException("bits length is not a multiple of 8");
+        return total;
+    }
+
+    private static int bitValue(char c) {
+        final int value = c - '0';
+        if ((value & ~1) != 0) throw new IllegalArgumentException("illegal bit char: " + c);
+        return value;
+    }
+
+    /**
+     * 直接包装char[]，流式解码时不需要每次创建字符串.
+     */
+    private static final class CharArraySequence implements CharSequence {
+
+        private final char[] mChars;
+
+        CharArraySequence(char[] chars) {
+            this.mChars = chars;
+        }
+
+        @Override
+        public int length() {
+            return mChars.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return mChars[index];
+        }
+
+        @NonNull
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(mChars, start, end - start);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return new String(mChars);
+        }
+    }
+
+}
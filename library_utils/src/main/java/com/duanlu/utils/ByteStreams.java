@@ -0,0 +1,298 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/********************************
+ * @name ByteStreams
+ * @author 段露
+ * @createDate 2026/10/19 01:40
+ * @updateDate 2026/10/19 06:20
+ * @version V1.0.0
+ * @describe 输入流读取为字节或字符串.
+ * 按调用者给出的大小提示(available()、Content-Length、文件长度等)分配缓冲区，提示准确时不扩容也不再复制；
+ * 缓冲区从全局池中按容量档位取用，用完归还.
+ * {@link #read(InputStream, long, boolean)}返回的{@link PooledBytes}可以直接以ByteBuffer的形式使用，不复制.
+ * 字符串解码时每个线程复用CharsetDecoder和字符缓冲区.
+ * 每个方法都通过closeStream参数明确是否关闭输入流.
+ ********************************/
+public final class ByteStreams {
+
+    //没有大小提示时的初始容量.
+    private static final int DEFAULT_CAPACITY = 8 * 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    //池中缓冲区的容量档位为4KB * 2^n，最大1MB，每档最多保留2个.
+    private static final int MIN_POOLED_SHIFT = 12;
+    private static final int MAX_POOLED_SHIFT = 20;
+    private static final int MAX_PER_CLASS = 2;
+    //线程复用的字符缓冲区最大保留的字符数.
+    private static final int MAX_REUSED_CHARS = 256 * 1024;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ArrayDeque<byte[]>[] sPool = new ArrayDeque[MAX_POOLED_SHIFT - MIN_POOLED_SHIFT + 1];
+
+    static {
+        for (int i = 0; i < sPool.length; i++) {
+            sPool[i] = new ArrayDeque<>(MAX_PER_CLASS);
+        }
+    }
+
+    private static final ThreadLocal<Decoders> sDecoders = new ThreadLocal<Decoders>() {
+        @Override
+        protected Decoders initialValue() {
+            return new Decoders();
+        }
+    };
+
+    private ByteStreams() {
+
+    }
+
+    /**
+     * 读取全部内容，结果放在池中的缓冲区里，使用完后必须调用{@link PooledBytes#close()}归还.
+     *
+     * @param sizeHint    预计的字节数，不知道时传小于等于0的值.
+     * @param closeStream 读取完成(或失败)后是否关闭输入流.
+     */
+    public static PooledBytes read(@NonNull InputStream in, long sizeHint, boolean closeStream) throws IOException {
+        try {
+            //多留一个字节，提示准确时读满之前就能读到流末尾，不需要扩容.
+            final PooledBytes bytes = new PooledBytes(acquire(capacityFor(sizeHint, 1)));
+            try {
+                bytes.readFrom(in);
+            } catch (IOException | RuntimeException e) {
+                bytes.close();
+                throw e;
+            }
+            return bytes;
+        } finally {
+            if (closeStream) CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    /**
+     * 读取全部内容为刚好大小的字节数组.
+     * 大小提示准确时直接读入最终的数组，没有任何复制.
+     *
+     * @param sizeHint    预计的字节数，不知道时传小于等于0的值.
+     * @param closeStream 读取完成(或失败)后是否关闭输入流.
+     */
+    public static byte[] toByteArray(@NonNull InputStream in, long sizeHint, boolean closeStream) throws IOException {
+        try {
+            if (sizeHint <= 0 || sizeHint > MAX_ARRAY_SIZE) {
+                final PooledBytes bytes = read(in, sizeHint, false);
+                try {
+                    return bytes.toByteArray();
+                } finally {
+                    bytes.close();
+                }
+            }
+            final byte[] exact = new byte[(int) sizeHint];
+            int count = 0;
+            int read;
+            while (count < exact.length && (read = in.read(exact, count, exact.length - count)) != -1) {
+                count += read;
+            }
+            if (count < exact.length) return Arrays.copyOf(exact, count);
+            final int next = in.read();
+            if (next == -1) return exact;
+            //提示偏小，已读的部分放入池中的缓冲区继续读.
+            final PooledBytes bytes = new PooledBytes(acquire(capacityFor(exact.length * 2L, 0)));
+            try {
+                bytes.append(exact, exact.length);
+                bytes.append((byte) next);
+                bytes.readFrom(in);
+                return bytes.toByteArray();
+            } finally {
+                bytes.close();
+            }
+        } finally {
+            if (closeStream) CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    /**
+     * 读取全部内容并按charset解码，不产生中间字节数组.
+     *
+     * @param sizeHint    预计的字节数，不知道时传小于等于0的值.
+     * @param closeStream 读取完成(或失败)后是否关闭输入流.
+     */
+    public static String toString(@NonNull InputStream in, long sizeHint, @NonNull Charset charset,
+                                  boolean closeStream) throws IOException {
+        final PooledBytes bytes = read(in, sizeHint, closeStream);
+        try {
+            return bytes.toString(charset);
+        } finally {
+            bytes.close();
+        }
+    }
+
+    private static int capacityFor(long sizeHint, int extra) {
+        if (sizeHint <= 0) return DEFAULT_CAPACITY;
+        return (int) Math.min(MAX_ARRAY_SIZE, sizeHint + extra);
+    }
+
+    /**
+     * 从池中取至少minCapacity的缓冲区，池中没有或超过最大档位时新建.
+     */
+    static byte[] acquire(int minCapacity) {
+        final int shift = Math.max(MIN_POOLED_SHIFT, 32 - Integer.numberOfLeadingZeros(minCapacity - 1));
+        if (shift > MAX_POOLED_SHIFT) return new byte[minCapacity];
+        final ArrayDeque<byte[]> pool = sPool[shift - MIN_POOLED_SHIFT];
+        synchronized (pool) {
+            final byte[] pooled = pool.pollLast();
+            if (null != pooled) return pooled;
+        }
+        return new byte[1 << shift];
+    }
+
+    /**
+     * 归还缓冲区，不是池中档位大小的数组直接丢弃.
+     */
+    static void release(byte[] buffer) {
+        final int length = buffer.length;
+        if (Integer.bitCount(length) != 1) return;
+        final int shift = Integer.numberOfTrailingZeros(length);
+        if (shift < MIN_POOLED_SHIFT || shift > MAX_POOLED_SHIFT) return;
+        final ArrayDeque<byte[]> pool = sPool[shift - MIN_POOLED_SHIFT];
+        synchronized (pool) {
+            if (pool.size() < MAX_PER_CLASS) pool.addLast(buffer);
+        }
+    }
+
+    /**
+     * 池中缓冲区里的一段字节.
+     * 关闭后缓冲区回到池中，之前取得的ByteBuffer不能再使用.
+     * 不是线程安全的.
+     */
+    public static final class PooledBytes implements Closeable {
+
+        private byte[] mBuffer;
+        private int mCount;
+
+        PooledBytes(byte[] buffer) {
+            this.mBuffer = buffer;
+        }
+
+        public int size() {
+            return mCount;
+        }
+
+        /**
+         * 直接包装缓冲区的只读视图，不复制，关闭后失效.
+         */
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buffer(), 0, mCount).asReadOnlyBuffer();
+        }
+
+        /**
+         * 复制为刚好大小的数组，关闭后仍然可用.
+         */
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer(), mCount);
+        }
+
+        /**
+         * 使用线程复用的CharsetDecoder解码.
+         */
+        public String toString(@NonNull Charset charset) throws CharacterCodingException {
+            return sDecoders.get().decode(ByteBuffer.wrap(buffer(), 0, mCount), charset);
+        }
+
+        @Override
+        public void close() {
+            if (null != mBuffer) {
+                release(mBuffer);
+                mBuffer = null;
+            }
+        }
+
+        private byte[] buffer() {
+            if (null == mBuffer) throw new IllegalStateException("already closed");
+            return mBuffer;
+        }
+
+        void readFrom(InputStream in) throws IOException {
+            int read;
+            while (true) {
+                if (mCount == mBuffer.length) grow(mCount + 1);
+                read = in.read(mBuffer, mCount, mBuffer.length - mCount);
+                if (read == -1) return;
+                mCount += read;
+            }
+        }
+
+        void append(byte[] bytes, int length) {
+            if (mCount + length > mBuffer.length) grow(mCount + length);
+            System.arraycopy(bytes, 0, mBuffer, mCount, length);
+            mCount += length;
+        }
+
+        void append(byte b) {
+            if (mCount == mBuffer.length) grow(mCount + 1);
+            mBuffer[mCount++] = b;
+        }
+
+        private void grow(int minCapacity) {
+            if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) throw new OutOfMemoryError("stream too large");
+            final int capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(minCapacity, mBuffer.length * 2L));
+            final byte[] larger = acquire(capacity);
+            System.arraycopy(mBuffer, 0, larger, 0, mCount);
+            release(mBuffer);
+            mBuffer = larger;
+        }
+    }
+
+    /**
+     * 每个线程复用的解码器和字符缓冲区.
+     */
+    private static final class Decoders {
+
+        private Charset mCharset;
+        private CharsetDecoder mDecoder;
+        private char[] mChars = new char[1024];
+
+        String decode(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+            if (!charset.equals(mCharset)) {
+                mCharset = charset;
+                mDecoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            final CharsetDecoder decoder = mDecoder.reset();
+            final long estimate = (long) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte());
+            char[] chars = mChars.length >= estimate ? mChars : new char[(int) Math.min(MAX_ARRAY_SIZE, estimate)];
+            CharBuffer out = CharBuffer.wrap(chars);
+            boolean flushing = false;
+            while (true) {
+                final CoderResult result = flushing ? decoder.flush(out) : decoder.decode(bytes, out, true);
+                if (result.isUnderflow()) {
+                    if (flushing) break;
+                    flushing = true;
+                } else if (result.isOverflow()) {
+                    chars = Arrays.copyOf(chars, chars.length * 2 + 16);
+                    final int position = out.position();
+                    out = CharBuffer.wrap(chars);
+                    out.position(position);
+                } else {
+                    result.throwException();
+                }
+            }
+            if (chars.length > mChars.length && chars.length <= MAX_REUSED_CHARS) mChars = chars;
+            return new String(chars, 0, out.position());
+        }
+    }
+
+}
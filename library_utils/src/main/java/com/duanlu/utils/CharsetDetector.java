@@ -0,0 +1,334 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/********************************
+ * @name CharsetDetector
+ * @author 段露
+ * @createDate 2026/10/19 00:40
+ * @updateDate 2026/10/19 00:40
+ * @version V1.0.0
+ * @describe 根据文件开头的内容猜测文本编码.
+ * 依次判断：BOM；0字节集中在奇数位或偶数位的UTF-16；严格校验UTF-8结构(纯ASCII部分8字节一组跳过)；
+ * 都不符合时按GBK的双字节结构和常用汉字区的比例打分.
+ * 最多读取文件开头的{@link #DEFAULT_MAX_BYTES}字节(可指定)，读取缓冲区每个线程复用.
+ * 结果按(路径, 长度, 修改时间, 读取字节数)缓存.
+ ********************************/
+public final class CharsetDetector {
+
+    public static final String UTF_8 = "UTF-8";
+    public static final String UTF_16LE = "UTF-16LE";
+    public static final String UTF_16BE = "UTF-16BE";
+    public static final String UTF_32LE = "UTF-32LE";
+    public static final String GBK = "GBK";
+
+    public static final int DEFAULT_MAX_BYTES = 16 * 1024;
+
+    private static final int MAX_CACHE_SIZE = 64;
+    private static final int MAX_REUSED_BUFFER = 256 * 1024;
+
+    private static final ThreadLocal<byte[]> sBuffer = new ThreadLocal<>();
+
+    private static final LinkedHashMap<String, Result> sCache = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private CharsetDetector() {
+
+    }
+
+    /**
+     * 读取文件开头{@link #DEFAULT_MAX_BYTES}字节判断编码.
+     *
+     * @return 读取失败时返回null.
+     */
+    public static Result detect(File file) {
+        return detect(file, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * 读取文件开头最多maxBytes字节判断编码.
+     *
+     * @return 读取失败时返回null.
+     */
+    public static Result detect(File file, int maxBytes) {
+        if (null == file || !file.isFile() || maxBytes <= 0) return null;
+        final String path = file.getAbsolutePath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        Result cached;
+        synchronized (sCache) {
+            cached = sCache.get(path);
+        }
+        if (null != cached && cached.length == length && cached.lastModified == lastModified
+                && cached.maxBytes == maxBytes) {
+            return cached;
+        }
+
+        byte[] buffer = sBuffer.get();
+        if (null == buffer || buffer.length < maxBytes) {
+            buffer = new byte[maxBytes];
+            //特别大的缓冲区不保留.
+            if (maxBytes <= MAX_REUSED_BUFFER) sBuffer.set(buffer);
+        }
+        int read = 0;
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            int n;
+            while (read < maxBytes && (n = in.read(buffer, read, maxBytes - read)) != -1) {
+                read += n;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            CloseUtils.closeIOQuietly(in);
+        }
+        final Result detected = detect(buffer, 0, read, read < length);
+        final Result result = new Result(detected.charsetName, detected.confidence, detected.bomLength,
+                length, lastModified, maxBytes);
+        synchronized (sCache) {
+            sCache.put(path, result);
+        }
+        return result;
+    }
+
+    /**
+     * 判断一段字节的编码.
+     *
+     * @param truncated 数据是否被截断(后面还有内容)，截断时末尾不完整的多字节字符不算错误.
+     */
+    @NonNull
+    public static Result detect(@NonNull byte[] data, int offset, int length, boolean truncated) {
+        final int end = offset + length;
+        final Result bom = detectBom(data, offset, end);
+        if (null != bom) return bom;
+
+        final Result utf16 = detectUtf16(data, offset, end);
+        if (null != utf16) return utf16;
+
+        final int multiBytes = validateUtf8(data, offset, end, truncated);
+        if (multiBytes == 0) {
+            //纯ASCII，兼容UTF-8和GBK.
+            return new Result(UTF_8, 60, 0);
+        }
+        if (multiBytes > 0) {
+            //出现的多字节字符越多，越不可能是巧合.
+            return new Result(UTF_8, Math.min(99, 80 + multiBytes * 5), 0);
+        }
+        return new Result(GBK, scoreGbk(data, offset, end, truncated), 0);
+    }
+
+    /**
+     * 清空缓存.
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    private static Result detectBom(byte[] data, int offset, int end) {
+        final int length = end - offset;
+        if (length >= 3 && (data[offset] & 0xFF) == 0xEF && (data[offset + 1] & 0xFF) == 0xBB
+                && (data[offset + 2] & 0xFF) == 0xBF) {
+            return new Result(UTF_8, 100, 3);
+        }
+        if (length >= 2) {
+            final int first = data[offset] & 0xFF;
+            final int second = data[offset + 1] & 0xFF;
+            if (first == 0xFF && second == 0xFE) {
+                if (length >= 4 && data[offset + 2] == 0 && data[offset + 3] == 0) {
+                    return new Result(UTF_32LE, 100, 4);
+                }
+                return new Result(UTF_16LE, 100, 2);
+            }
+            if (first == 0xFE && second == 0xFF) {
+                return new Result(UTF_16BE, 100, 2);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 没有BOM的UTF-16：ASCII字符的高字节为0，0字节集中在偶数位(BE)或奇数位(LE).
+     */
+    private static Result detectUtf16(byte[] data, int offset, int end) {
+        final int pairs = (end - offset) >> 1;
+        if (pairs < 2) return null;
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = offset, last = offset + pairs * 2; i < last; i += 2) {
+            if (data[i] == 0) evenZeros++;
+            if (data[i + 1] == 0) oddZeros++;
+        }
+        if (oddZeros * 10 >= pairs * 3 && evenZeros * 20 < pairs) {
+            return new Result(UTF_16LE, Math.min(95, oddZeros * 100 / pairs + 20), 0);
+        }
+        if (evenZeros * 10 >= pairs * 3 && oddZeros * 20 < pairs) {
+            return new Result(UTF_16BE, Math.min(95, evenZeros * 100 / pairs + 20), 0);
+        }
+        return null;
+    }
+
+    /**
+     * 严格校验UTF-8(拒绝过长编码、代理区和超过U+10FFFF的码点).
+     *
+     * @return 多字节字符的个数，不是合法的UTF-8时返回-1.
+     */
+    static int validateUtf8(byte[] data, int offset, int end, boolean truncated) {
+        int count = 0;
+        int i = offset;
+        while (i < end) {
+            //8个字节都是ASCII(最高位为0)时整组跳过.
+            while (i + 8 <= end && (data[i] | data[i + 1] | data[i + 2] | data[i + 3]
+                    | data[i + 4] | data[i + 5] | data[i + 6] | data[i + 7]) >= 0) {
+                i += 8;
+            }
+            if (i >= end) break;
+            final int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            final int need;
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                need = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                need = 2;
+                if (b == 0xE0) min = 0xA0;
+                if (b == 0xED) max = 0x9F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                need = 3;
+                if (b == 0xF0) min = 0x90;
+                if (b == 0xF4) max = 0x8F;
+            } else {
+                return -1;
+            }
+            if (i + need >= end) {
+                //截断处不完整的字符，已有的字节合法即可.
+                if (!truncated) return -1;
+                for (int k = i + 1; k < end; k++) {
+                    final int c = data[k] & 0xFF;
+                    if (k == i + 1 ? c < min || c > max : c < 0x80 || c > 0xBF) return -1;
+                }
+                break;
+            }
+            final int second = data[i + 1] & 0xFF;
+            if (second < min || second > max) return -1;
+            for (int k = 2; k <= need; k++) {
+                final int c = data[i + k] & 0xFF;
+                if (c < 0x80 || c > 0xBF) return -1;
+            }
+            count++;
+            i += need + 1;
+        }
+        return count;
+    }
+
+    /**
+     * GBK的可信度：合法双字节的比例，再按GB2312常用汉字区(0xB0-0xF7, 0xA1-0xFE)的比例加权.
+     */
+    private static int scoreGbk(byte[] data, int offset, int end, boolean truncated) {
+        int pairs = 0;
+        int common = 0;
+        int invalid = 0;
+        int i = offset;
+        while (i < end) {
+            final int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            if (b == 0x80 || b == 0xFF) {
+                invalid++;
+                i++;
+                continue;
+            }
+            if (i + 1 >= end) {
+                if (!truncated) invalid++;
+                break;
+            }
+            final int t = data[i + 1] & 0xFF;
+            if (t >= 0x40 && t <= 0xFE && t != 0x7F) {
+                pairs++;
+                if (b >= 0xB0 && b <= 0xF7 && t >= 0xA1) common++;
+                i += 2;
+            } else {
+                invalid++;
+                i++;
+            }
+        }
+        if (pairs == 0) return 0;
+        final double valid = pairs / (double) (pairs + invalid);
+        final double commonRatio = common / (double) pairs;
+        return (int) Math.round(100 * valid * (0.5 + 0.5 * commonRatio));
+    }
+
+    public static final class Result {
+
+        final String charsetName;
+        final int confidence;
+        final int bomLength;
+        final long length;
+        final long lastModified;
+        final int maxBytes;
+
+        Result(String charsetName, int confidence, int bomLength) {
+            this(charsetName, confidence, bomLength, -1, -1, -1);
+        }
+
+        Result(String charsetName, int confidence, int bomLength, long length, long lastModified, int maxBytes) {
+            this.charsetName = charsetName;
+            this.confidence = confidence;
+            this.bomLength = bomLength;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * 编码名称，可以直接用于Charset.forName().
+         */
+        @NonNull
+        public String getCharsetName() {
+            return charsetName;
+        }
+
+        /**
+         * 可信度，0~100，有BOM时为100.
+         */
+        public int getConfidence() {
+            return confidence;
+        }
+
+        /**
+         * BOM的字节数，没有BOM时为0，解码时需要跳过.
+         */
+        public int getBomLength() {
+            return bomLength;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "charsetName='" + charsetName + '\'' +
+                    ", confidence=" + confidence +
+                    ", bomLength=" + bomLength +
+                    '}';
+        }
+    }
+
+}
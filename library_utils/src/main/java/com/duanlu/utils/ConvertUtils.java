@@ -18,14 +18,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 /********************************
  * @name ConvertUtils
  * @author 段露
  * @createDate 2017/9/6 13:58.
- * @updateDate 2017/9/6 13:58.
+ * @updateDate 2026/10/19 03:40.
  * @version V1.0.0
  * @describe 转换相关工具类.
+ * 十六进制和二进制字符串的编解码见{@link ByteCodec}，输入流的读取见{@link ByteStreams}，
+ * Bitmap的编解码见{@link BitmapCodec}.
  ********************************/
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class ConvertUtils {
@@ -79,8 +82,6 @@ public class ConvertUtils {
     }
     //--------------------------------------时间相关常量 end--------------------------------------/
 
-    private static final char hexDigits[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
-
     private ConvertUtils() {
 
     }
@@ -94,54 +95,33 @@ public class ConvertUtils {
      * @return 16进制大写字符串
      */
     public static String bytes2HexString(byte[] bytes) {
-        if (bytes == null) return null;
-        int len = bytes.length;
-        if (len <= 0) return null;
-        char[] ret = new char[len << 1];
-        for (int i = 0, j = 0; i < len; i++) {
-            ret[j++] = hexDigits[bytes[i] >>> 4 & 0x0f];
-            ret[j++] = hexDigits[bytes[i] & 0x0f];
-        }
-        return new String(ret);
+        return bytes2HexString(bytes, true);
+    }
+
+    /**
+     * byteArr转hexString
+     *
+     * @param bytes     字节数组
+     * @param upperCase 是否大写
+     * @return 16进制字符串
+     */
+    public static String bytes2HexString(byte[] bytes, boolean upperCase) {
+        if (bytes == null || bytes.length <= 0) return null;
+        return ByteCodec.encodeHex(bytes, 0, bytes.length, upperCase);
     }
 
     /**
      * hexString转byteArr
      * 例如：
      * hexString2Bytes("00A8") returns { 0, (byte) 0xA8 }
+     * 不区分大小写，长度为奇数时在前面补0，含有非法字符时抛出IllegalArgumentException
      *
      * @param hexString 十六进制字符串
      * @return 字节数组
      */
     public static byte[] hexString2Bytes(String hexString) {
-        if (TextUtils.isEmpty(hexString.trim())) return null;
-        int len = hexString.length();
-        if (len % 2 != 0) {
-            hexString = "0" + hexString;
-            len = len + 1;
-        }
-        char[] hexBytes = hexString.toUpperCase().toCharArray();
-        byte[] ret = new byte[len >> 1];
-        for (int i = 0; i < len; i += 2) {
-            ret[i >> 1] = (byte) (hex2Dec(hexBytes[i]) << 4 | hex2Dec(hexBytes[i + 1]));
-        }
-        return ret;
-    }
-
-    /**
-     * hexChar转int
-     *
-     * @param hexChar hex单个字节
-     * @return 0..15
-     */
-    private static int hex2Dec(char hexChar) {
-        if (hexChar >= '0' && hexChar <= '9') {
-            return hexChar - '0';
-        } else if (hexChar >= 'A' && hexChar <= 'F') {
-            return hexChar - 'A' + 10;
-        } else {
-            throw new IllegalArgumentException();
-        }
+        if (hexString == null || TextUtils.isEmpty(hexString.trim())) return null;
+        return ByteCodec.decodeHex(hexString);
     }
 
     /**
@@ -346,39 +326,18 @@ public class ConvertUtils {
      * @return bits
      */
     public static String bytes2Bits(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte aByte : bytes) {
-            for (int j = 7; j >= 0; --j) {
-                sb.append(((aByte >> j) & 0x01) == 0 ? '0' : '1');
-            }
-        }
-        return sb.toString();
+        return ByteCodec.encodeBits(bytes, 0, bytes.length);
     }
 
     /**
      * bits转bytes
+     * 长度不是8的倍数时在前面补0，含有'0'、'1'以外的字符时抛出IllegalArgumentException
      *
      * @param bits 二进制
      * @return bytes
      */
     public static byte[] bits2Bytes(String bits) {
-        int lenMod = bits.length() % 8;
-        int byteLen = bits.length() / 8;
-        // 不是8的倍数前面补0
-        if (lenMod != 0) {
-            for (int i = lenMod; i < 8; i++) {
-                bits = "0" + bits;
-            }
-            byteLen++;
-        }
-        byte[] bytes = new byte[byteLen];
-        for (int i = 0; i < byteLen; ++i) {
-            for (int j = 0; j < 8; ++j) {
-                bytes[i] <<= 1;
-                bytes[i] |= bits.charAt(i * 8 + j) - '0';
-            }
-        }
-        return bytes;
+        return ByteCodec.decodeBits(bits);
     }
 
     /**
@@ -417,14 +376,32 @@ public class ConvertUtils {
     }
 
     /**
-     * inputStream转byteArr
+     * inputStream转byteArr，以available()作为大小提示，读取后关闭输入流
      *
      * @param is 输入流
      * @return 字节数组
      */
     public static byte[] inputStream2Bytes(InputStream is) {
         if (is == null) return null;
-        return input2OutputStream(is).toByteArray();
+        return inputStream2Bytes(is, availableHint(is), true);
+    }
+
+    /**
+     * inputStream转byteArr，见{@link ByteStreams#toByteArray(InputStream, long, boolean)}
+     *
+     * @param is          输入流
+     * @param sizeHint    预计的字节数(如Content-Length、文件长度)，不知道时传0
+     * @param closeStream 读取后是否关闭输入流
+     * @return 字节数组
+     */
+    public static byte[] inputStream2Bytes(InputStream is, long sizeHint, boolean closeStream) {
+        if (is == null) return null;
+        try {
+            return ByteStreams.toByteArray(is, sizeHint, closeStream);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
@@ -471,7 +448,7 @@ public class ConvertUtils {
     }
 
     /**
-     * inputStream转string按编码
+     * inputStream转string按编码，以available()作为大小提示，读取后关闭输入流
      *
      * @param is          输入流
      * @param charsetName 编码格式
@@ -479,14 +456,46 @@ public class ConvertUtils {
      */
     public static String inputStream2String(InputStream is, String charsetName) {
         if (is == null || TextUtils.isEmpty(charsetName.trim())) return null;
+        final Charset charset;
         try {
-            return new String(inputStream2Bytes(is), charsetName);
-        } catch (UnsupportedEncodingException e) {
+            charset = Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return inputStream2String(is, availableHint(is), charset, true);
+    }
+
+    /**
+     * inputStream转string，不产生中间字节数组，复用解码器，见{@link ByteStreams#toString(InputStream, long, Charset, boolean)}
+     *
+     * @param is          输入流
+     * @param sizeHint    预计的字节数(如Content-Length、文件长度)，不知道时传0
+     * @param charset     编码格式
+     * @param closeStream 读取后是否关闭输入流
+     * @return 字符串
+     */
+    public static String inputStream2String(InputStream is, long sizeHint, Charset charset, boolean closeStream) {
+        if (is == null || charset == null) return null;
+        try {
+            return ByteStreams.toString(is, sizeHint, charset, closeStream);
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * available()只是提示，不可靠时返回0
+     */
+    private static long availableHint(InputStream is) {
+        try {
+            return is.available();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
     /**
      * string转inputStream按编码
      *
@@ -546,14 +555,24 @@ public class ConvertUtils {
      * @return 字节数组
      */
     public static byte[] bitmap2Bytes(Bitmap bitmap, Bitmap.CompressFormat format) {
+        return bitmap2Bytes(bitmap, format, 100);
+    }
+
+    /**
+     * bitmap转byteArr，输出缓冲区每个线程复用
+     *
+     * @param bitmap  bitmap对象
+     * @param format  格式
+     * @param quality 压缩质量，0~100，PNG忽略该参数
+     * @return 字节数组
+     */
+    public static byte[] bitmap2Bytes(Bitmap bitmap, Bitmap.CompressFormat format, int quality) {
         if (bitmap == null) return null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(format, 100, baos);
-        return baos.toByteArray();
+        return BitmapCodec.encode(bitmap, format, quality);
     }
 
     /**
-     * byteArr转bitmap
+     * byteArr转bitmap，按原始大小解码为不可变的bitmap
      *
      * @param bytes 字节数组
      * @return bitmap
@@ -563,13 +582,27 @@ public class ConvertUtils {
     }
 
     /**
-     * drawable转bitmap
+     * byteArr转bitmap，按目标宽高缩小采样，并复用{@link BitmapPool#getDefault()}中的Bitmap
+     * 返回的bitmap是可变的，可能来自复用池，不再使用时可以放回池中
+     *
+     * @param bytes     字节数组
+     * @param reqWidth  目标宽度，小于等于0时不缩小
+     * @param reqHeight 目标高度，小于等于0时不缩小
+     * @return bitmap
+     */
+    public static Bitmap bytes2Bitmap(byte[] bytes, int reqWidth, int reqHeight) {
+        return (bytes == null || bytes.length == 0) ? null
+                : BitmapCodec.decode(bytes, 0, bytes.length, reqWidth, reqHeight, null, BitmapPool.getDefault());
+    }
+
+    /**
+     * drawable转bitmap，不是BitmapDrawable时按固有大小绘制
      *
      * @param drawable drawable对象
      * @return bitmap
      */
     public static Bitmap drawable2Bitmap(Drawable drawable) {
-        return drawable == null ? null : ((BitmapDrawable) drawable).getBitmap();
+        return drawable == null ? null : BitmapCodec.drawable2Bitmap(drawable, 0, 0);
     }
 
     /**
@@ -4,7 +4,10 @@ import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
 import androidx.annotation.NonNull;
+import android.util.Log;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
 
 /********************************
@@ -17,6 +20,10 @@ import java.lang.Thread.UncaughtExceptionHandler;
  ********************************/
 public class CrashHandler {
 
+    private static final String TAG = CrashHandler.class.getSimpleName();
+    //日志目录下的崩溃文件.
+    public static final String CRASH_FILE_NAME = "crash.txt";
+
     //系统默认的UncaughtException处理类
     private UncaughtExceptionHandler mDefaultUncaughtExceptionHandler;
     //CrashHandler实例
@@ -50,6 +57,7 @@ public class CrashHandler {
         this.mCustomUncaughtExceptionHandler = handler;
 
         ensureInnerHandler();
+        openCrashFile();
 
         captureMainException();
         captureThreadException();
@@ -60,6 +68,9 @@ public class CrashHandler {
         mInnerUncaughtExceptionHandler = new CustomUncaughtExceptionHandler() {
             @Override
             public boolean handleMainThreadException(Context applicationContext, Thread thread, Throwable e) {
+                //写入崩溃现场，并把还在队列中的日志写入文件.
+                LogUtils.dumpCrashRing(thread, e);
+                LogUtils.flush();
 
                 if (null != mCustomUncaughtExceptionHandler) {
                     return mCustomUncaughtExceptionHandler.handleMainThreadException(mApplicationContext, thread, e);
@@ -76,6 +87,9 @@ public class CrashHandler {
 
             @Override
             public boolean handleOtherThreadException(Context applicationContext, Thread thread, Throwable e) {
+                //写入崩溃现场，并把还在队列中的日志写入文件.
+                LogUtils.dumpCrashRing(thread, e);
+                LogUtils.flush();
 
                 if (null != mCustomUncaughtExceptionHandler) {
                     return mCustomUncaughtExceptionHandler.handleOtherThreadException(mApplicationContext, thread, e);
@@ -92,6 +106,17 @@ public class CrashHandler {
         };
     }
 
+    /**
+     * 预先打开日志目录下的崩溃文件，崩溃时把异常和{@link LogUtils#initCrashRing(int)}保存的最近日志同步写入.
+     */
+    private void openCrashFile() {
+        try {
+            LogUtils.openCrashFile(new File(AppFolderManager.getLogFolder(), CRASH_FILE_NAME));
+        } catch (IOException | RuntimeException e) {//AppFolderManager未初始化或没有存储权限.
+            Log.w(TAG, "open crash file failed: " + e);
+        }
+    }
+
     private void captureMainException() {
         new Handler(Looper.getMainLooper()).post(new Runnable() {
             @Override
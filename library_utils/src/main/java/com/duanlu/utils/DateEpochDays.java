@@ -0,0 +1,75 @@
+package com.duanlu.utils;
+
+import java.util.TimeZone;
+
+/********************************
+ * @name DateEpochDays
+ * @author 段露
+ * @createDate 2026/10/18 19:20
+ * @updateDate 2026/10/18 19:20
+ * @version V1.0.0
+ * @describe 按时区计算本地日期序号(距1970-01-01的天数)，不使用Calendar.
+ * 今天的开始/结束毫秒值缓存起来，跨天或时区变化时重新计算；当天有时区偏移变化(夏令时切换)时不缓存.
+ ********************************/
+final class DateEpochDays {
+
+    private static volatile Today sToday;
+
+    private DateEpochDays() {
+
+    }
+
+    /**
+     * millis在timeZone下的本地日期序号.
+     */
+    static long localEpochDay(long millis, TimeZone timeZone) {
+        return DateFastFormat.floorDiv(millis + timeZone.getOffset(millis), DateUtils.MILLISECOND_IN_DAY);
+    }
+
+    /**
+     * 今天在timeZone下的本地日期序号.
+     */
+    static long today(TimeZone timeZone) {
+        final long now = System.currentTimeMillis();
+        Today today = sToday;
+        if (null == today || now < today.start || now >= today.end || !today.zoneId.equals(timeZone.getID())) {
+            today = new Today(now, timeZone);
+            sToday = today;
+        }
+        return today.epochDay;
+    }
+
+    /**
+     * 本地日期序号对应的星期，0为周日，与{@link java.util.Calendar#DAY_OF_WEEK} - 1相同.
+     */
+    static int dayOfWeek(long epochDay) {
+        //1970-01-01是周四.
+        final int index = (int) ((epochDay + 4) % 7);
+        return index < 0 ? index + 7 : index;
+    }
+
+    private static final class Today {
+
+        final String zoneId;
+        final long epochDay;
+        final long start;//今天开始的毫秒值(包含).
+        final long end;//明天开始的毫秒值(不包含).
+
+        Today(long now, TimeZone timeZone) {
+            this.zoneId = timeZone.getID();
+            final int offset = timeZone.getOffset(now);
+            this.epochDay = DateFastFormat.floorDiv(now + offset, DateUtils.MILLISECOND_IN_DAY);
+            final long start = epochDay * DateUtils.MILLISECOND_IN_DAY - offset;
+            final long end = start + DateUtils.MILLISECOND_IN_DAY;
+            if (timeZone.getOffset(start) == offset && timeZone.getOffset(end - 1) == offset) {
+                this.start = start;
+                this.end = end;
+            } else {
+                //当天偏移有变化，开始结束时间不能简单推算，每次重新计算.
+                this.start = now;
+                this.end = now;
+            }
+        }
+    }
+
+}
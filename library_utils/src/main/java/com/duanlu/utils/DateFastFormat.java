@@ -0,0 +1,191 @@
+package com.duanlu.utils;
+
+import java.util.TimeZone;
+
+/********************************
+ * @name DateFastFormat
+ * @author 段露
+ * @createDate 2026/10/18 18:40
+ * @updateDate 2026/10/18 18:40
+ * @version V1.0.0
+ * @describe 常用固定宽度格式的快速格式化和解析.
+ * 只支持{@link DateUtils#DEFAULT_PATTERN}、{@link DateUtils#DEFAULT_DETAIL_PATTERN}、{@link DateUtils#PATTERN_YEAR_MONTH_DAY}、{@link DateUtils#PATTERN_HOUR_MINUTE}，
+ * 由毫秒值直接按公历计算年月日(civil from days)写入char[]，不使用Calendar和SimpleDateFormat.
+ * 结果与SimpleDateFormat一致，超出1600~9999年、解析的内容不是严格的固定宽度或需要宽松解析、本地时间靠近夏令时切换时返回失败，由调用者回退到SimpleDateFormat.
+ ********************************/
+final class DateFastFormat {
+
+    static final int PATTERN_NONE = -1;
+    static final int PATTERN_DEFAULT = 0;//yyyy-MM-dd HH:mm:ss
+    static final int PATTERN_DETAIL = 1;//yyyy-MM-dd HH:mm:ss:SSS
+    static final int PATTERN_YEAR_MONTH_DAY = 2;//yyyy-MM-dd
+    static final int PATTERN_HOUR_MINUTE = 3;//HH:mm
+
+    static final long PARSE_FAILED = Long.MIN_VALUE;
+
+    private static final int[] LENGTHS = {19, 23, 10, 5};
+
+    //SimpleDateFormat在1582年之前使用儒略历，只处理这个范围内的本地日期.
+    static final long MIN_EPOCH_DAY = epochDay(1600, 1, 1);
+    static final long MAX_EPOCH_DAY = epochDay(9999, 12, 31);
+
+    private DateFastFormat() {
+
+    }
+
+    /**
+     * 获取pattern对应的快速格式，不支持时返回{@link #PATTERN_NONE}.
+     */
+    static int patternOf(String pattern) {
+        if (null == pattern) return PATTERN_NONE;
+        if (DateUtils.DEFAULT_PATTERN.equals(pattern)) return PATTERN_DEFAULT;
+        if (DateUtils.DEFAULT_DETAIL_PATTERN.equals(pattern)) return PATTERN_DETAIL;
+        if (DateUtils.PATTERN_YEAR_MONTH_DAY.equals(pattern)) return PATTERN_YEAR_MONTH_DAY;
+        if (DateUtils.PATTERN_HOUR_MINUTE.equals(pattern)) return PATTERN_HOUR_MINUTE;
+        return PATTERN_NONE;
+    }
+
+    /**
+     * 格式化.
+     *
+     * @return 超出支持的范围时返回null.
+     */
+    static String format(int pattern, long millis, TimeZone timeZone) {
+        final long local = millis + timeZone.getOffset(millis);
+        final long day = floorDiv(local, DateUtils.MILLISECOND_IN_DAY);
+        if (day < MIN_EPOCH_DAY || day > MAX_EPOCH_DAY) return null;
+        final int millisOfDay = (int) (local - day * DateUtils.MILLISECOND_IN_DAY);
+
+        final char[] chars = new char[LENGTHS[pattern]];
+        int position = 0;
+        if (pattern != PATTERN_HOUR_MINUTE) {
+            //civil from days，以3月1日为一年的开始，闰日在年末.
+            final long z = day + 719468;
+            final long era = (z >= 0 ? z : z - 146096) / 146097;
+            final int dayOfEra = (int) (z - era * 146097);
+            final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            final int mp = (5 * dayOfYear + 2) / 153;
+            final int dayOfMonth = dayOfYear - (153 * mp + 2) / 5 + 1;
+            final int month = mp < 10 ? mp + 3 : mp - 9;
+            final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+            position = put2(chars, position, year / 100);
+            position = put2(chars, position, year % 100);
+            chars[position++] = '-';
+            position = put2(chars, position, month);
+            chars[position++] = '-';
+            position = put2(chars, position, dayOfMonth);
+            if (pattern == PATTERN_YEAR_MONTH_DAY) return new String(chars);
+            chars[position++] = ' ';
+        }
+        final int seconds = millisOfDay / 1000;
+        position = put2(chars, position, seconds / 3600);
+        chars[position++] = ':';
+        position = put2(chars, position, seconds / 60 % 60);
+        if (pattern == PATTERN_HOUR_MINUTE) return new String(chars);
+        chars[position++] = ':';
+        position = put2(chars, position, seconds % 60);
+        if (pattern == PATTERN_DETAIL) {
+            final int millisOfSecond = millisOfDay % 1000;
+            chars[position++] = ':';
+            chars[position++] = (char) ('0' + millisOfSecond / 100);
+            put2(chars, position, millisOfSecond % 100);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解析，只接受长度严格相同、每个字段都在正常范围内的字符串.
+     *
+     * @return 毫秒值，不能快速解析时返回{@link #PARSE_FAILED}.
+     */
+    static long parse(int pattern, String text, TimeZone timeZone) {
+        if (text.length() != LENGTHS[pattern]) return PARSE_FAILED;
+        long day = 0;
+        int position = 0;
+        if (pattern != PATTERN_HOUR_MINUTE) {
+            final int century = get2(text, 0);
+            final int yearOfCentury = get2(text, 2);
+            final int month = get2(text, 5);
+            final int dayOfMonth = get2(text, 8);
+            if (century < 0 || yearOfCentury < 0 || month < 1 || month > 12 || dayOfMonth < 1
+                    || text.charAt(4) != '-' || text.charAt(7) != '-') {
+                return PARSE_FAILED;
+            }
+            final int year = century * 100 + yearOfCentury;
+            if (dayOfMonth > DateUtils.getDaysOfMonth(year, month)) return PARSE_FAILED;
+            day = epochDay(year, month, dayOfMonth);
+            if (day < MIN_EPOCH_DAY) return PARSE_FAILED;
+            if (pattern == PATTERN_YEAR_MONTH_DAY) return toUtc(day * DateUtils.MILLISECOND_IN_DAY, timeZone);
+            if (text.charAt(10) != ' ') return PARSE_FAILED;
+            position = 11;
+        }
+        final int hour = get2(text, position);
+        final int minute = get2(text, position + 3);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || text.charAt(position + 2) != ':') {
+            return PARSE_FAILED;
+        }
+        long local = day * DateUtils.MILLISECOND_IN_DAY + hour * DateUtils.MILLISECOND_IN_HOUR + minute * DateUtils.MILLISECOND_IN_MINUTE;
+        if (pattern == PATTERN_HOUR_MINUTE) return toUtc(local, timeZone);
+        final int second = get2(text, position + 6);
+        if (second < 0 || second > 59 || text.charAt(position + 5) != ':') return PARSE_FAILED;
+        local += second * DateUtils.MILLISECOND_IN_SECOND;
+        if (pattern == PATTERN_DETAIL) {
+            final int hundreds = digit(text.charAt(position + 9));
+            final int rest = get2(text, position + 10);
+            if (hundreds < 0 || rest < 0 || text.charAt(position + 8) != ':') return PARSE_FAILED;
+            local += hundreds * 100 + rest;
+        }
+        return toUtc(local, timeZone);
+    }
+
+    /**
+     * 本地时间转换为UTC毫秒值，前后一天内有时区偏移变化(夏令时切换)时返回失败，避免与Calendar的处理方式不同.
+     */
+    private static long toUtc(long local, TimeZone timeZone) {
+        final int offset = timeZone.getOffset(local - timeZone.getRawOffset());
+        final long utc = local - offset;
+        if (timeZone.getOffset(utc - DateUtils.MILLISECOND_IN_DAY) != offset
+                || timeZone.getOffset(utc + DateUtils.MILLISECOND_IN_DAY) != offset) {
+            return PARSE_FAILED;
+        }
+        return utc;
+    }
+
+    /**
+     * 公历年月日对应的距1970-01-01的天数(days from civil).
+     *
+     * @param month 1~12.
+     */
+    static long epochDay(int year, int month, int dayOfMonth) {
+        final int y = month <= 2 ? year - 1 : year;
+        final long era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = (int) (y - era * 400);
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    static long floorDiv(long x, long y) {
+        final long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    private static int put2(char[] chars, int position, int value) {
+        chars[position] = (char) ('0' + value / 10);
+        chars[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+    private static int get2(String text, int position) {
+        final int high = digit(text.charAt(position));
+        final int low = digit(text.charAt(position + 1));
+        return high < 0 || low < 0 ? -1 : high * 10 + low;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.duanlu.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/********************************
+ * @name DateFormatCache
+ * @author 段露
+ * @createDate 2026/10/18 18:10
+ * @updateDate 2026/10/18 18:10
+ * @version V1.0.0
+ * @describe SimpleDateFormat缓存.
+ * SimpleDateFormat不是线程安全的，所以每个线程各自缓存，按(pattern, locale, timezone)查找，每个线程最多缓存{@link #MAX_SIZE}个，超过时淘汰最久未使用的.
+ * 查找时复用同一个key对象，命中时不产生新对象.
+ ********************************/
+final class DateFormatCache {
+
+    private static final int MAX_SIZE = 16;
+
+    private static final ThreadLocal<DateFormatCache> sCaches = new ThreadLocal<DateFormatCache>() {
+        @Override
+        protected DateFormatCache initialValue() {
+            return new DateFormatCache();
+        }
+    };
+
+    private final Key mProbe = new Key();
+    private final LinkedHashMap<Key, SimpleDateFormat> mFormats = new LinkedHashMap<Key, SimpleDateFormat>(MAX_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SimpleDateFormat> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private DateFormatCache() {
+
+    }
+
+    /**
+     * 获取当前线程缓存的SimpleDateFormat，只能在当前线程中使用，不能修改pattern等设置.
+     *
+     * @param pattern  格式化模板，不能为空.
+     * @param locale   区域，不能为null.
+     * @param timeZone 时区，不能为null.
+     */
+    static SimpleDateFormat obtain(String pattern, Locale locale, TimeZone timeZone) {
+        return sCaches.get().get(pattern, locale, timeZone);
+    }
+
+    private SimpleDateFormat get(String pattern, Locale locale, TimeZone timeZone) {
+        final Key probe = mProbe;
+        probe.set(pattern, locale, timeZone.getID());
+        SimpleDateFormat format = mFormats.get(probe);
+        if (null == format) {
+            format = new SimpleDateFormat(pattern, locale);
+            final Key key = new Key();
+            key.set(pattern, locale, probe.timeZoneId);
+            mFormats.put(key, format);
+        }
+        //同一个时区ID的规则可能被更新，解析带时区的字符串也可能修改内部Calendar的时区，每次重新设置.
+        format.setTimeZone(timeZone);
+        probe.set(null, null, null);
+        return format;
+    }
+
+    private static final class Key {
+
+        String pattern;
+        Locale locale;
+        String timeZoneId;
+
+        void set(String pattern, Locale locale, String timeZoneId) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.timeZoneId = timeZoneId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return pattern.equals(key.pattern)
+                    && locale.equals(key.locale)
+                    && timeZoneId.equals(key.timeZoneId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = pattern.hashCode();
+            result = 31 * result + locale.hashCode();
+            result = 31 * result + timeZoneId.hashCode();
+            return result;
+        }
+    }
+
+}
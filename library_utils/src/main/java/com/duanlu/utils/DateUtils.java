@@ -18,9 +18,11 @@ import java.util.TimeZone;
  * @name DateUtils
  * @author 段露
  * @createDate 2017/9/6 13:58.
- * @updateDate 2017/9/6 13:58.
+ * @updateDate 2026/10/18 18:10.
  * @version V1.0.0
  * @describe 日期时间处理工具类.
+ * SimpleDateFormat按(pattern, locale, timezone)在每个线程中缓存复用，见{@link DateFormatCache}.
+ * 默认区域下的几种常用格式不经过SimpleDateFormat，见{@link DateFastFormat}.
  ********************************/
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class DateUtils {
@@ -73,6 +75,15 @@ public class DateUtils {
     public static final String TIME_UNIT_HOUR = "h";//时间单位——小时
     public static final String TIME_UNIT_DAY = "d";//时间单位——天
 
+    /**
+     * 相对今天的日期描述，下标为相对天数+1
+     */
+    private static final String[] RELATIVE_DAY_LABELS = {"昨天", "今天", "明天"};
+    /**
+     * 星期描述，下标为Calendar.DAY_OF_WEEK - 1
+     */
+    private static final String[] DAY_OF_WEEK_LABELS = {"周日", "周一", "周二", "周三", "周四", "周五", "周六"};
+
     private DateUtils() {
 
     }
@@ -132,14 +143,45 @@ public class DateUtils {
      * @param locale  区域
      * @return 根据pattern格式化后的String类型时间字符串
      */
-    @SuppressWarnings("ConstantConditions")
     public static String date2Str(@NonNull Date date, String pattern, Locale locale) {
+        return date2Str(date, pattern, locale, null);
+    }
+
+    /**
+     * 将Date时间根据pattern格式化为String类型
+     *
+     * @param date     需要格式化的Date类型时间
+     * @param pattern  格式化模板
+     * @param locale   区域
+     * @param timeZone 时区,默认为系统当前时区
+     * @return 根据pattern格式化后的String类型时间字符串
+     */
+    @SuppressWarnings("ConstantConditions")
+    public static String date2Str(@NonNull Date date, String pattern, Locale locale, TimeZone timeZone) {
         if (null == date) {
             throw new IllegalArgumentException("The date must not be null");
         }
+        return format(date.getTime(), pattern, locale, timeZone);
+    }
+
+    /**
+     * 将毫秒值根据pattern格式化为String类型
+     *
+     * @param millisecond 需要格式化的毫秒值
+     * @param pattern     格式化模板
+     * @param locale      区域
+     * @param timeZone    时区,默认为系统当前时区
+     * @return 根据pattern格式化后的String类型时间字符串,失败时返回""
+     */
+    private static String format(long millisecond, String pattern, Locale locale, TimeZone timeZone) {
+        final int fastPattern = getFastPattern(pattern, locale);
+        if (DateFastFormat.PATTERN_NONE != fastPattern) {
+            String str = DateFastFormat.format(fastPattern, millisecond, null == timeZone ? TimeZone.getDefault() : timeZone);
+            if (null != str) return str;
+        }
         try {
-            SimpleDateFormat sdf = getSimpleDateFormat(pattern, locale);
-            return sdf.format(date);
+            SimpleDateFormat sdf = getSimpleDateFormat(pattern, locale, timeZone);
+            return sdf.format(new Date(millisecond));
         } catch (Exception e) {
             LogUtils.e(TAG, "formatDate failed" + e.getMessage());
             return "";
@@ -179,10 +221,28 @@ public class DateUtils {
      * @return 根据pattern格式化后的Date类型时间
      */
     public static Date str2Date(String strDate, String pattern, Locale locale) {
+        return str2Date(strDate, pattern, locale, null);
+    }
+
+    /**
+     * 将String类时间字符串格式化为Date时间
+     *
+     * @param strDate  需要格式化的String类型时间
+     * @param pattern  格式化模板
+     * @param locale   区域
+     * @param timeZone 时区,默认为系统当前时区
+     * @return 根据pattern格式化后的Date类型时间
+     */
+    public static Date str2Date(String strDate, String pattern, Locale locale, TimeZone timeZone) {
         if (TextUtils.isEmpty(strDate)) {
             return new Date();
         }
-        SimpleDateFormat sdf = getSimpleDateFormat(pattern, locale);
+        final int fastPattern = getFastPattern(pattern, locale);
+        if (DateFastFormat.PATTERN_NONE != fastPattern) {
+            long millisecond = DateFastFormat.parse(fastPattern, strDate, null == timeZone ? TimeZone.getDefault() : timeZone);
+            if (DateFastFormat.PARSE_FAILED != millisecond) return new Date(millisecond);
+        }
+        SimpleDateFormat sdf = getSimpleDateFormat(pattern, locale, timeZone);
         try {
             return sdf.parse(strDate);
         } catch (ParseException e) {
@@ -211,15 +271,27 @@ public class DateUtils {
      * @return 根据pattern格式化后的String时间
      */
     public static String millisecond2Str(long millisecond, String pattern) {
-        //将Unix时间戳转换为普通时间时需要先乘以1000
-        if (10 == String.valueOf(millisecond).length()) millisecond *= UNIX_TIME_MULTIPLE;
-        Date date = new Date(millisecond);
-        return date2Str(date, pattern);
+        return format(toMillisecond(millisecond), pattern, null, null);
+    }
+
+    /**
+     * 将Unix时间戳(秒)转换为毫秒值，其他值原样返回
+     * 注：与String.valueOf(millisecond).length()为10时乘以1000的判断相同，不产生字符串
+     *
+     * @param millisecond 毫秒值或Unix时间戳
+     * @return 毫秒值
+     */
+    private static long toMillisecond(long millisecond) {
+        if ((millisecond >= 1000000000L && millisecond <= 9999999999L)
+                || (millisecond >= -999999999L && millisecond <= -100000000L)) {
+            return millisecond * UNIX_TIME_MULTIPLE;
+        }
+        return millisecond;
     }
 
     public static String computerDuration(long millisecond1, long millisecond2) {
-        if (10 == String.valueOf(millisecond1).length()) millisecond1 *= UNIX_TIME_MULTIPLE;
-        if (10 == String.valueOf(millisecond2).length()) millisecond2 *= UNIX_TIME_MULTIPLE;
+        millisecond1 = toMillisecond(millisecond1);
+        millisecond2 = toMillisecond(millisecond2);
         return computerDuration(millisecond1 > millisecond2 ? (millisecond1 - millisecond2) : (millisecond2 - millisecond1));
     }
 
@@ -392,63 +464,38 @@ public class DateUtils {
      */
     public static String format2TodayYesterday(long millisecond, String format1, String format2) {
         //将Unix时间戳转换为普通时间时需要先乘以1000
-        if (10 == String.valueOf(millisecond).length()) millisecond *= UNIX_TIME_MULTIPLE;
+        millisecond = toMillisecond(millisecond);
 
-        Calendar calendar = getCalendar();
-        calendar.set(Calendar.MILLISECOND, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        //今天开始的毫秒值
-        long todayStartMillis = calendar.getTimeInMillis();
-        String des;
-        long total;
-//        if (todayStartMillis + 2 * 24 * 60 * 60 * 1000 <= millisecond) {
-//            des = "后天";
-//            if (!TextUtils.isEmpty(format1))
-//                des += DateUtils.millisecond2Str(todayStartMillis, format1);
-//        } else
-        if ((total = todayStartMillis + 2 * 24 * 60 * 60 * 1000) < millisecond) {
-            des = DateUtils.millisecond2Str(millisecond, format2);
-        } else if ((total = todayStartMillis + 24 * 60 * 60 * 1000) <= millisecond) {
-            des = "明天";
-            if (!TextUtils.isEmpty(format1)) des += DateUtils.millisecond2Str(millisecond, format1);
-        } else if (todayStartMillis <= millisecond) {
-            des = "今天";
-            des += DateUtils.millisecond2Str(millisecond, format1);
-        } else if (todayStartMillis - 24 * 60 * 60 * 1000 <= millisecond) {
-            des = "昨天";
-            if (!TextUtils.isEmpty(format1)) des += DateUtils.millisecond2Str(millisecond, format1);
-        }
-//        else if (todayStartMillis - 2 * 24 * 60 * 60 * 1000 <= millisecond) {
-//            des = "前天";
-//            if (!TextUtils.isEmpty(format1)) des += DateUtils.millisecond2Str(millisecond, format1);
-//        }
-        else {
-            des = DateUtils.millisecond2Str(millisecond, format2);
+        final TimeZone timeZone = TimeZone.getDefault();
+        //相对今天的天数
+        final long days = DateEpochDays.localEpochDay(millisecond, timeZone) - DateEpochDays.today(timeZone);
+        if (days < -1 || days > 1) {
+            return format(millisecond, format2, null, timeZone);
         }
-        return des;
+        final String des = RELATIVE_DAY_LABELS[(int) days + 1];
+        if (0 != days && TextUtils.isEmpty(format1)) {
+            return des;
+        }
+        return des.concat(format(millisecond, format1, null, timeZone));
     }
 
     public static String dayOfWeek(Calendar calendar) {
-        switch (calendar.get(Calendar.DAY_OF_WEEK)) {
-            case Calendar.SUNDAY:
-                return "周日";
-            case Calendar.MONDAY:
-                return "周一";
-            case Calendar.TUESDAY:
-                return "周二";
-            case Calendar.WEDNESDAY:
-                return "周三";
-            case Calendar.THURSDAY:
-                return "周四";
-            case Calendar.FRIDAY:
-                return "周五";
-            case Calendar.SATURDAY:
-                return "周六";
-            default:
-                return "";
+        final int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+        if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY) {
+            return "";
         }
+        return DAY_OF_WEEK_LABELS[dayOfWeek - Calendar.SUNDAY];
+    }
+
+    /**
+     * 获取毫秒值在系统当前时区下是星期几
+     *
+     * @param millisecond 毫秒值
+     * @return 周日、周一...周六
+     */
+    public static String dayOfWeek(long millisecond) {
+        final long epochDay = DateEpochDays.localEpochDay(toMillisecond(millisecond), TimeZone.getDefault());
+        return DAY_OF_WEEK_LABELS[DateEpochDays.dayOfWeek(epochDay)];
     }
 
     /**
@@ -480,13 +527,8 @@ public class DateUtils {
         if (null == date1 || null == date2) {
             throw new IllegalArgumentException("The date must not be null");
         }
-        Calendar calendar1 = getCalendar();
-        calendar1.setTime(date1);
-
-        Calendar calendar2 = getCalendar();
-        calendar2.setTime(date2);
-
-        return isSameDay(calendar1, calendar2);
+        final TimeZone timeZone = TimeZone.getDefault();
+        return DateEpochDays.localEpochDay(date1.getTime(), timeZone) == DateEpochDays.localEpochDay(date2.getTime(), timeZone);
     }
 
     /**
@@ -496,12 +538,8 @@ public class DateUtils {
      * @return true明天，false不是
      */
     public static boolean isTomorrow(@NonNull Date date) {
-        Calendar calendar1 = getCalendar();
-        calendar1.setTime(date);
-
-        Calendar calendar2 = getCalendar();
-        calendar2.add(Calendar.DAY_OF_MONTH, 1);
-        return isSameDay(calendar1, calendar2);
+        final TimeZone timeZone = TimeZone.getDefault();
+        return DateEpochDays.localEpochDay(date.getTime(), timeZone) == DateEpochDays.today(timeZone) + 1;
     }
 
     /**
@@ -877,20 +915,38 @@ public class DateUtils {
     }
 
     /**
-     * 获取SimpleDateFormat实例
+     * 获取当前线程缓存的SimpleDateFormat实例，不能传递给其他线程使用
      *
-     * @param pattern 格式化模板,默认为 DEFAULT_PATTERN
-     * @param locale  区域,默认为 DEFAULT_LOCALE
+     * @param pattern  格式化模板,默认为 DEFAULT_PATTERN
+     * @param locale   区域,默认为 DEFAULT_LOCALE
+     * @param timeZone 时区,默认为系统当前时区
      * @return SimpleDateFormat实例
      */
-    private static SimpleDateFormat getSimpleDateFormat(String pattern, Locale locale) {
+    private static SimpleDateFormat getSimpleDateFormat(String pattern, Locale locale, TimeZone timeZone) {
         if (TextUtils.isEmpty(pattern)) {
             pattern = DEFAULT_PATTERN;
         }
         if (null == locale) {
             locale = DEFAULT_LOCALE;
         }
-        return new SimpleDateFormat(pattern, locale);
+        if (null == timeZone) {
+            timeZone = TimeZone.getDefault();
+        }
+        return DateFormatCache.obtain(pattern, locale, timeZone);
+    }
+
+    /**
+     * 获取pattern对应的快速格式化方式，只有默认区域下的常用格式才支持
+     *
+     * @param pattern 格式化模板,默认为 DEFAULT_PATTERN
+     * @param locale  区域,默认为 DEFAULT_LOCALE
+     * @return 不支持时返回 DateFastFormat.PATTERN_NONE
+     */
+    private static int getFastPattern(String pattern, Locale locale) {
+        if (null != locale && !DEFAULT_LOCALE.equals(locale)) {
+            return DateFastFormat.PATTERN_NONE;
+        }
+        return DateFastFormat.patternOf(TextUtils.isEmpty(pattern) ? DEFAULT_PATTERN : pattern);
     }
 
     public static Calendar getCalendar() {
@@ -0,0 +1,332 @@
+package com.duanlu.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/********************************
+ * @name DirSizeIndex
+ * @author 段露
+ * @createDate 2026/10/18 22:00
+ * @updateDate 2026/10/18 22:00
+ * @version V1.0.0
+ * @describe 可持久化的目录大小索引.
+ * 每个目录记录修改时间、直接包含的文件数和字节数、子目录名.
+ * 查询时只检查每个目录的修改时间(一次stat)，只有修改时间变化的目录才重新listFiles，重复查询的开销与变化的目录数成正比.
+ * 注意：目录的修改时间只在增加、删除、重命名子项时变化，原地改写已有文件(如追加日志)不会被发现，
+ * 这类目录写入后需要调用{@link #invalidate(File)}，或者使用不带索引的{@link FileUtils#getDirLength(File)}.
+ * 所有方法线程安全.
+ ********************************/
+public final class DirSizeIndex {
+
+    private static final String TAG = "DirSizeIndex";
+
+    private static final int MAGIC = 0x44534931;//DSI1
+    //修改时间距扫描时间太近时，同一秒内的后续修改可能不改变修改时间(部分文件系统精度为秒)，这种目录下次重新扫描.
+    private static final long UNSTABLE_MILLIS = 2000;
+
+    private final File mIndexFile;
+    private final ConcurrentHashMap<String, Node> mNodes = new ConcurrentHashMap<>();
+    private boolean mDirty;
+
+    private DirSizeIndex(File indexFile) {
+        this.mIndexFile = indexFile;
+    }
+
+    /**
+     * 打开索引，indexFile存在时读取之前保存的内容，内容损坏时从空索引开始.
+     *
+     * @param indexFile 索引文件，最好放在被统计的目录之外.
+     */
+    public static DirSizeIndex open(@NonNull File indexFile) {
+        final DirSizeIndex index = new DirSizeIndex(indexFile);
+        index.load();
+        return index;
+    }
+
+    /**
+     * 获取目录大小.
+     *
+     * @return 字节数，不是目录时返回-1.
+     */
+    public long getLength(File dir) {
+        return getLength(dir, 1);
+    }
+
+    /**
+     * 获取目录大小，目录从未扫描过时使用多线程扫描.
+     *
+     * @param parallelism 首次扫描最多使用的线程数，小于等于1时在当前线程扫描.
+     * @return 字节数，不是目录时返回-1.
+     */
+    public synchronized long getLength(File dir, int parallelism) {
+        if (!FileUtils.isDir(dir)) return -1;
+        final String path = dir.getAbsolutePath();
+        if (parallelism > 1 && !mNodes.containsKey(path)) {
+            scanParallel(dir, parallelism);
+        }
+        return total(dir, path, null);
+    }
+
+    /**
+     * 获取目录下的文件数(包括子目录中的文件，不包括目录).
+     *
+     * @return 不是目录时返回-1.
+     */
+    public synchronized int getFileCount(File dir) {
+        if (!FileUtils.isDir(dir)) return -1;
+        final int[] count = new int[1];
+        total(dir, dir.getAbsolutePath(), count);
+        return count[0];
+    }
+
+    /**
+     * 标记目录需要重新扫描(只影响这一个目录，不包括子目录).
+     */
+    public synchronized void invalidate(File dir) {
+        if (null == dir) return;
+        final Node node = mNodes.get(dir.getAbsolutePath());
+        if (null != node) {
+            node.lastModified = -1;
+            mDirty = true;
+        }
+    }
+
+    /**
+     * 清空索引，下次查询全部重新扫描.
+     */
+    public synchronized void clear() {
+        mNodes.clear();
+        mDirty = true;
+    }
+
+    /**
+     * 保存到索引文件，先写临时文件再重命名，没有变化时不写.
+     *
+     * @return 是否保存成功.
+     */
+    public synchronized boolean save() {
+        if (!mDirty) return true;
+        final File temp = new File(mIndexFile.getPath() + ".tmp");
+        if (!FileUtils.createOrExistsDir(mIndexFile.getParentFile())) return false;
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 32 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(mNodes.size());
+            for (Map.Entry<String, Node> entry : mNodes.entrySet()) {
+                final Node node = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(node.lastModified);
+                out.writeLong(node.bytes);
+                out.writeInt(node.files);
+                out.writeInt(node.children.length);
+                for (String child : node.children) {
+                    out.writeUTF(child);
+                }
+            }
+            out.close();
+            out = null;
+            if (!temp.renameTo(mIndexFile)) {
+                //部分系统不能覆盖已存在的文件.
+                if (!mIndexFile.delete() || !temp.renameTo(mIndexFile)) return false;
+            }
+            mDirty = false;
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "save " + mIndexFile + " failed: " + e.getMessage());
+            return false;
+        } finally {
+            CloseUtils.closeIOQuietly(out);
+        }
+    }
+
+    private void load() {
+        if (!mIndexFile.isFile()) return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mIndexFile), 32 * 1024));
+            if (in.readInt() != MAGIC) return;
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String path = in.readUTF();
+                final long lastModified = in.readLong();
+                final long bytes = in.readLong();
+                final int files = in.readInt();
+                final String[] children = new String[in.readInt()];
+                for (int j = 0; j < children.length; j++) {
+                    children[j] = in.readUTF();
+                }
+                mNodes.put(path, new Node(lastModified, bytes, files, children));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "load " + mIndexFile + " failed: " + e.getMessage());
+            mNodes.clear();
+        } finally {
+            CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    /**
+     * 计算目录总大小，修改时间变化的目录重新扫描.
+     *
+     * @param count 不为null时累加文件数.
+     */
+    private long total(File dir, String path, int[] count) {
+        Node node = mNodes.get(path);
+        final long lastModified = dir.lastModified();
+        if (null == node || node.lastModified != lastModified || lastModified == 0) {
+            final Node scanned = scan(dir);
+            if (null != node) {
+                removeDeletedChildren(path, node.children, scanned.children);
+            }
+            mNodes.put(path, scanned);
+            mDirty = true;
+            node = scanned;
+        }
+        long total = node.bytes;
+        if (null != count) count[0] += node.files;
+        for (String child : node.children) {
+            final File childDir = new File(dir, child);
+            total += total(childDir, path + File.separator + child, count);
+        }
+        return total;
+    }
+
+    /**
+     * 扫描一个目录的直接子项.
+     */
+    private static Node scan(File dir) {
+        final long lastModified = dir.lastModified();
+        final File[] files = dir.listFiles();
+        long bytes = 0;
+        int count = 0;
+        final List<String> children = new ArrayList<>();
+        if (null != files) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    children.add(file.getName());
+                } else {
+                    bytes += file.length();
+                    count++;
+                }
+            }
+        }
+        final boolean stable = null != files && System.currentTimeMillis() - lastModified >= UNSTABLE_MILLIS;
+        return new Node(stable ? lastModified : -1, bytes, count, children.toArray(new String[children.size()]));
+    }
+
+    /**
+     * 删除已不存在的子目录的整个子树.
+     */
+    private void removeDeletedChildren(String path, String[] oldChildren, String[] newChildren) {
+        for (String child : oldChildren) {
+            if (contains(newChildren, child)) continue;
+            final String childPath = path + File.separator + child;
+            final String prefix = childPath + File.separator;
+            mNodes.remove(childPath);
+            final Iterator<String> iterator = mNodes.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) iterator.remove();
+            }
+        }
+    }
+
+    private static boolean contains(String[] array, String value) {
+        for (String s : array) {
+            if (s.equals(value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 多线程扫描整个目录树，结果放入索引，之后的{@link #total}不再需要listFiles.
+     */
+    private void scanParallel(File root, int parallelism) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        final AtomicInteger pending = new AtomicInteger(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new ScanTask(root, root.getAbsolutePath(), executor, pending, done));
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            //未扫描的目录在total中继续按需扫描.
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        mDirty = true;
+    }
+
+    private final class ScanTask implements Runnable {
+
+        private final File mDir;
+        private final String mPath;
+        private final ThreadPoolExecutor mExecutor;
+        private final AtomicInteger mPending;
+        private final CountDownLatch mDone;
+
+        ScanTask(File dir, String path, ThreadPoolExecutor executor, AtomicInteger pending, CountDownLatch done) {
+            this.mDir = dir;
+            this.mPath = path;
+            this.mExecutor = executor;
+            this.mPending = pending;
+            this.mDone = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final Node node = scan(mDir);
+                mNodes.put(mPath, node);
+                for (String child : node.children) {
+                    mPending.incrementAndGet();
+                    mExecutor.execute(new ScanTask(new File(mDir, child), mPath + File.separator + child,
+                            mExecutor, mPending, mDone));
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                if (mPending.decrementAndGet() == 0) {
+                    mDone.countDown();
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+
+        volatile long lastModified;//-1表示需要重新扫描.
+        final long bytes;//直接包含的文件字节数.
+        final int files;//直接包含的文件数.
+        final String[] children;//子目录名.
+
+        Node(long lastModified, long bytes, int files, String[] children) {
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+            this.files = files;
+            this.children = children;
+        }
+    }
+
+}
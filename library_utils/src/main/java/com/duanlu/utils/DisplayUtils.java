@@ -13,11 +13,13 @@ import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 
+import androidx.annotation.NonNull;
+
 /********************************
  * @name DisplayUtils
  * @author 段露
  * @createDate 2019/3/6  14:43.
- * @updateDate 2019/3/6  14:43.
+ * @updateDate 2026/10/19 02:40.
  * @version V1.0.0
  * @describe 获取屏幕大小等工具类.
  ********************************/
@@ -174,6 +176,23 @@ public class DisplayUtils {
         return screenBitmap;
     }
 
+    /**
+     * 获取当前屏幕截图，包含状态栏，结果按cacheKey缓存在{@link BitmapMemoryCache#getDefault()}中.
+     * 返回的Bitmap可能被多处共享，不能修改或recycle().
+     *
+     * @param cacheKey 标识界面当前状态的key，界面变化时需要换一个key.
+     */
+    public static Bitmap screenshotWithStatusBar(Activity activity, @NonNull String cacheKey) {
+        final String key = "screenshotWithStatusBar:" + cacheKey;
+        final BitmapMemoryCache cache = BitmapMemoryCache.getDefault();
+        Bitmap bitmap = cache.get(key);
+        if (null == bitmap) {
+            bitmap = screenshotWithStatusBar(activity);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
     /**
      * 获取当前屏幕截图，不包含状态栏.
      *
@@ -192,6 +211,23 @@ public class DisplayUtils {
         return screenBitmap;
     }
 
+    /**
+     * 获取当前屏幕截图，不包含状态栏，结果按cacheKey缓存在{@link BitmapMemoryCache#getDefault()}中.
+     * 返回的Bitmap可能被多处共享，不能修改或recycle().
+     *
+     * @param cacheKey 标识界面当前状态的key，界面变化时需要换一个key.
+     */
+    public static Bitmap screenshotWithoutStatusBar(Activity activity, @NonNull String cacheKey) {
+        final String key = "screenshotWithoutStatusBar:" + cacheKey;
+        final BitmapMemoryCache cache = BitmapMemoryCache.getDefault();
+        Bitmap bitmap = cache.get(key);
+        if (null == bitmap) {
+            bitmap = screenshotWithoutStatusBar(activity);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
     /**
      * 设置透明状态栏
      * 最好用代码设置，style有时有的机型不起作用.
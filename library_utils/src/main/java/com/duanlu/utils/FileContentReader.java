@@ -0,0 +1,115 @@
+package com.duanlu.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/********************************
+ * @name FileContentReader
+ * @author 段露
+ * @createDate 2026/10/18 23:50
+ * @updateDate 2026/10/18 23:50
+ * @version V1.0.0
+ * @describe 按文件大小一次读取整个文件.
+ * 字节数组按文件长度一次分配，直接读入，不经过中间缓冲区和扩容复制.
+ * 字符串读入字节数组后用CharsetDecoder一遍解码，保留原有的换行符.
+ ********************************/
+final class FileContentReader {
+
+    //数组的最大长度，部分虚拟机在数组头部保留几个字.
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private FileContentReader() {
+
+    }
+
+    /**
+     * 读取文件的全部字节.
+     *
+     * @throws IOException 读取失败或文件太大.
+     */
+    static byte[] readBytes(File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            return readBytes(in, in.getChannel().size());
+        } finally {
+            CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    /**
+     * 按charset解码文件的全部内容.
+     *
+     * @throws IOException 读取失败或文件太大.
+     */
+    static String readString(File file, Charset charset) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            //堆内数组可以走解码器的数组快速路径，比直接解码MappedByteBuffer快.
+            return decode(ByteBuffer.wrap(readBytes(in, in.getChannel().size())), charset);
+        } finally {
+            CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    /**
+     * 按预期大小分配数组读取，读取期间文件长度变化时按实际读到的长度返回.
+     */
+    private static byte[] readBytes(FileInputStream in, long expected) throws IOException {
+        if (expected > MAX_ARRAY_SIZE) throw new IOException("file too large: " + expected);
+        byte[] bytes = new byte[(int) expected];
+        int length = 0;
+        while (true) {
+            while (length < bytes.length) {
+                final int read = in.read(bytes, length, bytes.length - length);
+                if (read == -1) return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+                length += read;
+            }
+            //已经读满，确认是否到达末尾，文件变大时继续读.
+            final int next = in.read();
+            if (next == -1) return bytes;
+            if (bytes.length >= MAX_ARRAY_SIZE) throw new IOException("file too large");
+            bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_ARRAY_SIZE, Math.max(bytes.length * 2L, 1024)));
+            bytes[length++] = (byte) next;
+        }
+    }
+
+    /**
+     * 一遍解码，无法解码的字节替换为替换字符(与InputStreamReader一致).
+     */
+    private static String decode(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final long estimate = (long) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte());
+        CharBuffer chars = CharBuffer.allocate((int) Math.min(MAX_ARRAY_SIZE, estimate));
+        boolean flushing = false;
+        while (true) {
+            CoderResult result = flushing ? decoder.flush(chars) : decoder.decode(bytes, chars, true);
+            if (result.isUnderflow()) {
+                if (flushing) break;
+                flushing = true;
+                continue;
+            }
+            if (result.isOverflow()) {
+                //maxCharsPerByte不是上限的编码才会走到这里.
+                final CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2 + 16);
+                chars.flip();
+                larger.put(chars);
+                chars = larger;
+            } else {
+                result.throwException();
+            }
+        }
+        return new String(chars.array(), 0, chars.position());
+    }
+
+}
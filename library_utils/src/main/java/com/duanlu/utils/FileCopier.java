@@ -0,0 +1,86 @@
+package com.duanlu.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/********************************
+ * @name FileCopier
+ * @author 段露
+ * @createDate 2026/10/18 20:00
+ * @updateDate 2026/10/18 20:00
+ * @version V1.0.0
+ * @describe 基于FileChannel的文件复制.
+ * 优先使用transferTo(由内核直接复制，不经过Java堆)，每次最多传输{@link #TRANSFER_CHUNK}字节以便回调进度和取消；
+ * transferTo不可用或没有进展时改用直接缓冲区读写.
+ * 复制失败或取消时删除不完整的目标文件.
+ ********************************/
+final class FileCopier {
+
+    private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private FileCopier() {
+
+    }
+
+    /**
+     * 复制文件，目标文件会被覆盖.
+     *
+     * @param listener 进度回调，可以为null.
+     * @return 是否复制完成，取消时返回false.
+     */
+    static boolean copy(File srcFile, File destFile, FileUtils.OnCopyListener listener) {
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        boolean success = false;
+        try {
+            in = new FileInputStream(srcFile);
+            out = new FileOutputStream(destFile);
+            success = copy(in.getChannel(), out.getChannel(), listener);
+            return success;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            CloseUtils.closeIOQuietly(in, out);
+            if (!success) {
+                //noinspection ResultOfMethodCallIgnored
+                destFile.delete();
+            }
+        }
+    }
+
+    private static boolean copy(FileChannel src, FileChannel dest, FileUtils.OnCopyListener listener) throws IOException {
+        final long total = src.size();
+        long position = 0;
+        if (null != listener && !listener.onProgress(0, total)) return false;
+        while (position < total) {
+            final long transferred = src.transferTo(position, Math.min(TRANSFER_CHUNK, total - position), dest);
+            if (transferred <= 0) break;
+            position += transferred;
+            if (null != listener && !listener.onProgress(position, total)) return false;
+        }
+        if (position < total || src.size() > total) {
+            //transferTo没有进展，或复制期间源文件变大，继续用缓冲区复制到末尾.
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            src.position(position);
+            dest.position(position);
+            long current = total;
+            while (src.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += dest.write(buffer);
+                }
+                buffer.clear();
+                current = Math.max(current, position);
+                if (null != listener && !listener.onProgress(position, current)) return false;
+            }
+        }
+        return true;
+    }
+
+}
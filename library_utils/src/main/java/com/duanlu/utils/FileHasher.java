@@ -0,0 +1,256 @@
+package com.duanlu.utils;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/********************************
+ * @name FileHasher
+ * @author 段露
+ * @createDate 2026/10/18 22:40
+ * @updateDate 2026/10/18 22:40
+ * @version V1.0.0
+ * @describe 文件摘要计算.
+ * 读取一遍文件同时计算多种摘要(MD5、SHA-1、SHA-256、CRC32)，每个线程复用读取缓冲区和MessageDigest实例.
+ * 结果按(路径, 长度, 修改时间)缓存，文件没有变化时不再重新计算.
+ ********************************/
+public final class FileHasher {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef(flag = true, value = {MD5, SHA1, SHA256, CRC_32})
+    public @interface Algorithm {
+
+    }
+
+    public static final int MD5 = 1;
+    public static final int SHA1 = 1 << 1;
+    public static final int SHA256 = 1 << 2;
+    public static final int CRC_32 = 1 << 3;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_CACHE_SIZE = 128;
+
+    private static final String[] DIGEST_NAMES = {"MD5", "SHA-1", "SHA-256"};
+
+    private static final ThreadLocal<Hashers> sHashers = new ThreadLocal<Hashers>() {
+        @Override
+        protected Hashers initialValue() {
+            return new Hashers();
+        }
+    };
+
+    private static final LinkedHashMap<String, Result> sCache = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private FileHasher() {
+
+    }
+
+    /**
+     * 计算文件摘要.
+     *
+     * @param file       文件.
+     * @param algorithms 需要的摘要，{@link #MD5}等按位或.
+     * @return 失败时返回null.
+     */
+    public static Result hash(File file, @Algorithm int algorithms) {
+        if (null == file || !file.isFile()) return null;
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        final String path = file.getAbsolutePath();
+        Result cached;
+        synchronized (sCache) {
+            cached = sCache.get(path);
+        }
+        if (null != cached && cached.length == length && cached.lastModified == lastModified) {
+            if ((cached.algorithms & algorithms) == algorithms) return cached;
+            //补算缺少的摘要时顺便重新计算已有的，只读一遍文件.
+            algorithms |= cached.algorithms;
+        }
+        final Result result;
+        try {
+            result = sHashers.get().hash(file, algorithms, length, lastModified);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return null;
+        }
+        //计算期间文件被修改时不缓存.
+        if (file.length() == length && file.lastModified() == lastModified) {
+            synchronized (sCache) {
+                sCache.put(path, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 多线程计算多个文件的摘要，阻塞直到全部完成.
+     *
+     * @param parallelism 最多同时使用的线程数.
+     * @return 与files顺序相同，失败的文件对应null.
+     */
+    public static List<Result> hashAll(@NonNull Collection<File> files, @Algorithm final int algorithms, int parallelism) {
+        final int threads = Math.max(1, Math.min(parallelism, files.size()));
+        final List<Result> results = new ArrayList<>(files.size());
+        if (threads <= 1) {
+            for (File file : files) {
+                results.add(hash(file, algorithms));
+            }
+            return results;
+        }
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return hash(file, algorithms);
+                    }
+                }));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    results.add(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            while (results.size() < files.size()) {
+                results.add(null);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * 清空缓存.
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    /**
+     * 每个线程复用的缓冲区和MessageDigest.
+     */
+    private static final class Hashers {
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final MessageDigest[] digests = new MessageDigest[DIGEST_NAMES.length];
+        final CRC32 crc32 = new CRC32();
+
+        Result hash(File file, int algorithms, long length, long lastModified) throws IOException, NoSuchAlgorithmException {
+            final MessageDigest[] active = new MessageDigest[DIGEST_NAMES.length];
+            int activeCount = 0;
+            for (int i = 0; i < DIGEST_NAMES.length; i++) {
+                if ((algorithms & (1 << i)) == 0) continue;
+                if (null == digests[i]) {
+                    digests[i] = MessageDigest.getInstance(DIGEST_NAMES[i]);
+                }
+                digests[i].reset();
+                active[activeCount++] = digests[i];
+            }
+            final boolean crc = (algorithms & CRC_32) != 0;
+            crc32.reset();
+
+            final FileInputStream in = new FileInputStream(file);
+            try {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    for (int i = 0; i < activeCount; i++) {
+                        active[i].update(buffer, 0, read);
+                    }
+                    if (crc) crc32.update(buffer, 0, read);
+                }
+            } finally {
+                CloseUtils.closeIOQuietly(in);
+            }
+            final byte[][] values = new byte[DIGEST_NAMES.length][];
+            for (int i = 0; i < DIGEST_NAMES.length; i++) {
+                if ((algorithms & (1 << i)) != 0) {
+                    values[i] = digests[i].digest();
+                }
+            }
+            return new Result(algorithms, length, lastModified, values, crc ? crc32.getValue() : 0);
+        }
+    }
+
+    /**
+     * 摘要结果，没有计算的摘要返回null.
+     */
+    public static final class Result {
+
+        final int algorithms;
+        final long length;
+        final long lastModified;
+        private final byte[][] mDigests;
+        private final long mCrc32;
+
+        Result(int algorithms, long length, long lastModified, byte[][] digests, long crc32) {
+            this.algorithms = algorithms;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.mDigests = digests;
+            this.mCrc32 = crc32;
+        }
+
+        public byte[] getMD5() {
+            return copy(mDigests[0]);
+        }
+
+        public byte[] getSHA1() {
+            return copy(mDigests[1]);
+        }
+
+        public byte[] getSHA256() {
+            return copy(mDigests[2]);
+        }
+
+        /**
+         * @return 没有计算CRC32时返回-1.
+         */
+        public long getCRC32() {
+            return (algorithms & CRC_32) != 0 ? mCrc32 : -1;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        private static byte[] copy(byte[] bytes) {
+            return null == bytes ? null : bytes.clone();
+        }
+    }
+
+}
@@ -0,0 +1,464 @@
+package com.duanlu.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/********************************
+ * @name FileLineIndex
+ * @author 段露
+ * @createDate 2026/10/18 23:10
+ * @updateDate 2026/10/19 06:10
+ * @version V1.0.0
+ * @describe 文本文件的稀疏行索引.
+ * 每{@link #INTERVAL}行记录一次该行开始的字节偏移，按行读取时直接定位到不超过起始行的最近记录点.
+ * 用MappedByteBuffer扫描换行符，"\n"、"\r"、"\r\n"都算一次换行，与BufferedReader.readLine()的行数一致.
+ * 每次比较8个字节(SWAR)，大文件分块多线程扫描.
+ * 只适用于换行符是单字节0x0A/0x0D的编码(UTF-8、GBK等)，UTF-16等编码不使用索引.
+ * 索引按文件长度和修改时间判断是否失效，最近使用的几个缓存在内存中.
+ * 不小于{@link #MIN_PERSIST_LENGTH}的文件的索引还会保存在临时目录下，目录中最多保留{@link #MAX_INDEX_FILES}个，
+ * 超出时按最近使用时间(修改时间)删除最旧的.
+ ********************************/
+final class FileLineIndex {
+
+    static final int INTERVAL = 1024;
+
+    private static final int MAGIC = 0x4C494458;//LIDX
+    private static final String INDEX_DIR = "line_index";
+    static final long MAP_CHUNK = 8 * 1024 * 1024;
+    private static final int MAX_CACHE_SIZE = 8;
+    //小文件重新扫描很快，不保存索引文件.
+    static final long MIN_PERSIST_LENGTH = 4 * 1024 * 1024;
+    static final int MAX_INDEX_FILES = 32;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    //超过这个时间的临时文件是中途失败留下的，清理时删除.
+    private static final long STALE_TEMP_MILLIS = 60 * 60 * 1000;
+
+    private static final LinkedHashMap<String, FileLineIndex> sCache = new LinkedHashMap<String, FileLineIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileLineIndex> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private final long mLength;
+    private final long mLastModified;
+    private final int mLineCount;
+    private final long[] mOffsets;//mOffsets[k]为第k * INTERVAL + 1行开始的字节偏移.
+
+    private FileLineIndex(long length, long lastModified, int lineCount, long[] offsets) {
+        this.mLength = length;
+        this.mLastModified = lastModified;
+        this.mLineCount = lineCount;
+        this.mOffsets = offsets;
+    }
+
+    /**
+     * 获取文件的行索引，不存在或已失效时重新生成.
+     *
+     * @return 失败时返回null.
+     */
+    static FileLineIndex get(File file) {
+        final String path = file.getAbsolutePath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        FileLineIndex index;
+        synchronized (sCache) {
+            index = sCache.get(path);
+        }
+        if (null != index && index.isValid(length, lastModified)) return index;
+
+        final boolean persist = length >= MIN_PERSIST_LENGTH;
+        final File indexFile = persist ? getIndexFile(path) : null;
+        index = persist ? load(indexFile, path) : null;
+        if (null != index && index.isValid(length, lastModified)) {
+            //更新修改时间，清理时按最近使用的顺序保留.
+            //noinspection ResultOfMethodCallIgnored
+            indexFile.setLastModified(System.currentTimeMillis());
+        } else {
+            try {
+                index = build(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+            if (persist && index.isValid(file.length(), file.lastModified())) {
+                save(index, indexFile, path);
+                prune(indexFile.getParentFile());
+            }
+        }
+        synchronized (sCache) {
+            sCache.put(path, index);
+        }
+        return index;
+    }
+
+    /**
+     * 判断charsetName的编码中换行符是否为单字节的0x0D/0x0A，且其他字符不会包含这两个字节.
+     *
+     * @param charsetName 为空时表示默认编码.
+     */
+    static boolean isSupported(String charsetName) {
+        try {
+            final Charset charset = null == charsetName || charsetName.trim().length() == 0
+                    ? Charset.defaultCharset() : Charset.forName(charsetName);
+            final String name = charset.name().toUpperCase();
+            if (name.startsWith("UTF-16") || name.startsWith("UTF-32")
+                    || name.startsWith("ISO-2022") || name.startsWith("UTF-7")) {
+                return false;
+            }
+            final ByteBuffer encoded = charset.encode("\r\n");
+            return encoded.remaining() == 2 && encoded.get(0) == '\r' && encoded.get(1) == '\n';
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    int getLineCount() {
+        return mLineCount;
+    }
+
+    /**
+     * 不超过line的最近记录点的行号(从1开始).
+     */
+    int getCheckpointLine(int line) {
+        if (line <= 1) return 1;
+        final int k = Math.min((line - 1) / INTERVAL, mOffsets.length - 1);
+        return k * INTERVAL + 1;
+    }
+
+    /**
+     * 记录点行号对应的字节偏移.
+     *
+     * @param checkpointLine {@link #getCheckpointLine(int)}的返回值.
+     */
+    long getOffset(int checkpointLine) {
+        return mOffsets.length == 0 ? 0 : mOffsets[(checkpointLine - 1) / INTERVAL];
+    }
+
+    private boolean isValid(long length, long lastModified) {
+        return mLength == length && mLastModified == lastModified;
+    }
+
+    private static FileLineIndex build(File file) throws IOException {
+        final long lastModified = file.lastModified();
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long length = channel.size();
+            final int chunks = (int) ((length + MAP_CHUNK - 1) / MAP_CHUNK);
+            final int threads = Math.min(chunks, Runtime.getRuntime().availableProcessors());
+            final long[][] checkpoints = new long[chunks][];
+            final int ended = threads > 1
+                    ? scanParallel(channel, length, chunks, threads, checkpoints)
+                    : scanSerial(channel, length, chunks, checkpoints);
+            int lineCount = ended;
+            if (length > 0) {
+                //最后一个换行符之后还有内容时算作一行.
+                final ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, length - 1);
+                final byte b = last.get(0);
+                if (b != '\n' && b != '\r') lineCount++;
+            }
+            //第1行从0开始，之后每INTERVAL行一个记录点，文件以换行结尾时指向文件末尾的记录点没有对应的行.
+            int count = length > 0 ? 1 : 0;
+            for (long[] chunk : checkpoints) {
+                count += chunk.length;
+            }
+            long[] offsets = new long[count];
+            int k = length > 0 ? 1 : 0;
+            for (long[] chunk : checkpoints) {
+                System.arraycopy(chunk, 0, offsets, k, chunk.length);
+                k += chunk.length;
+            }
+            if (count > 1 && offsets[count - 1] >= length) {
+                offsets = Arrays.copyOf(offsets, count - 1);
+            }
+            return new FileLineIndex(length, lastModified, lineCount, offsets);
+        } finally {
+            CloseUtils.closeIOQuietly(raf);
+        }
+    }
+
+    /**
+     * 在当前线程依次扫描每一块，前面的行数已知，一遍完成计数和记录点.
+     *
+     * @return 换行符个数.
+     */
+    private static int scanSerial(FileChannel channel, long length, int chunks, long[][] checkpoints) throws IOException {
+        int ended = 0;
+        for (int i = 0; i < chunks; i++) {
+            final Chunk chunk = new Chunk(channel, length, i);
+            checkpoints[i] = chunk.checkpoints(ended);
+            ended += chunk.count;
+        }
+        return ended;
+    }
+
+    /**
+     * 多线程扫描：第一遍各块独立计数，累加得到每块之前的行数后，第二遍各块独立记录记录点.
+     * 每一遍扫描时才映射，扫描完不再引用，同时映射的块不超过线程数.
+     *
+     * @return 换行符个数.
+     */
+    private static int scanParallel(final FileChannel channel, final long length, int chunks, int threads,
+                                    final long[][] checkpoints) throws IOException {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            final List<Future<Chunk>> counts = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final int index = i;
+                counts.add(executor.submit(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws IOException {
+                        final Chunk chunk = new Chunk(channel, length, index);
+                        chunk.count();
+                        return chunk;
+                    }
+                }));
+            }
+            final List<Future<long[]>> results = new ArrayList<>(chunks);
+            int ended = 0;
+            for (Future<Chunk> future : counts) {
+                final Chunk chunk = future.get();
+                final int base = ended;
+                results.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws IOException {
+                        return chunk.checkpoints(base);
+                    }
+                }));
+                ended += chunk.count;
+            }
+            for (int i = 0; i < chunks; i++) {
+                checkpoints[i] = results.get(i).get();
+            }
+            return ended;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 文件中的一块.
+     * 换行符的判定："\n"，以及后面不是'\n'的'\r'，这样"\r\n"只在'\n'处算一次，每个换行符之后就是下一行的开始.
+     * 为了判断块末尾的'\r'，多映射后面的一个字节.
+     * 只在扫描期间持有映射，不随Chunk保存，避免等待第二遍时所有块的映射都不能释放.
+     * 按8字节一组(SWAR)同时比较，只有包含记录点的组才逐个定位换行符.
+     */
+    private static final class Chunk {
+
+        private static final long LF = 0x0A0A0A0A0A0A0A0AL;
+        private static final long CR = 0x0D0D0D0D0D0D0D0DL;
+        private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+        final FileChannel channel;
+        final long start;
+        final int size;
+        final int mapSize;
+        int count = -1;//换行符个数，-1表示还没有计数.
+
+        Chunk(FileChannel channel, long length, int index) {
+            this.channel = channel;
+            this.start = index * MAP_CHUNK;
+            this.size = (int) Math.min(MAP_CHUNK, length - start);
+            this.mapSize = (int) Math.min(size + 1L, length - start);
+        }
+
+        void count() throws IOException {
+            if (count < 0) checkpoints(-1);
+        }
+
+        /**
+         * 扫描整块，得到换行符个数，需要时记录每个记录点的字节偏移.
+         *
+         * @param base 这一块之前的换行符个数，小于0时只计数.
+         * @return 这一块中的记录点，只计数时返回null.
+         */
+        long[] checkpoints(int base) throws IOException {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mapSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long[] offsets = base < 0 ? null : new long[4];
+            int found = 0;
+            int ended = 0;
+            //下一个需要记录的换行符是这一块中的第几个.
+            int next = base < 0 ? Integer.MAX_VALUE : INTERVAL - base % INTERVAL;
+            final int words = size >>> 3;
+            final int limit = buffer.limit();
+            long cr = 0;
+            for (int w = 0; w < words; w++) {
+                final int p = w << 3;
+                final long word = buffer.getLong(p);
+                final long lf = zeroBytes(word ^ LF);
+                //组内最后一个字节的'\r'先算作换行符，下一组第一个字节是'\n'时再减掉.
+                ended -= (int) ((cr >>> 63) & (lf >>> 7) & 1);
+                cr = zeroBytes(word ^ CR);
+                long terminators = lf | (cr & ~(lf >>> 8));
+                final int bits = Long.bitCount(terminators);
+                if (ended + bits >= next) {
+                    //这一组中有记录点，逐个定位，这时需要准确判断最后一个字节.
+                    if (cr < 0 && p + 8 < limit && buffer.get(p + 8) == '\n') terminators &= Long.MAX_VALUE;
+                    int e = ended;
+                    while (terminators != 0) {
+                        if (++e == next) {
+                            if (found == offsets.length) offsets = Arrays.copyOf(offsets, found * 2);
+                            offsets[found++] = start + p + (Long.numberOfTrailingZeros(terminators) >>> 3) + 1;
+                            next += INTERVAL;
+                        }
+                        terminators &= terminators - 1;
+                    }
+                }
+                ended += bits;
+            }
+            if (cr < 0 && (words << 3) < limit && buffer.get(words << 3) == '\n') ended--;
+            for (int i = words << 3; i < size; i++) {
+                final byte b = buffer.get(i);
+                if (b == '\n' || b == '\r' && (i + 1 >= limit || buffer.get(i + 1) != '\n')) {
+                    ended++;
+                    if (ended == next) {
+                        if (found == offsets.length) offsets = Arrays.copyOf(offsets, found * 2);
+                        offsets[found++] = start + i + 1;
+                        next += INTERVAL;
+                    }
+                }
+            }
+            count = ended;
+            return null == offsets ? null : Arrays.copyOf(offsets, found);
+        }
+
+        /**
+         * 值为0的字节最高位置1，其他位为0，没有跨字节进位所以结果准确.
+         */
+        private static long zeroBytes(long v) {
+            return ~(((v & LOW7) + LOW7) | v | LOW7);
+        }
+    }
+
+    private static File getIndexFile(String path) {
+        final File dir = new File(System.getProperty("java.io.tmpdir", "/tmp"), INDEX_DIR);
+        final String name = new File(path).getName();
+        return new File(dir, Integer.toHexString(path.hashCode()) + "_" + name + INDEX_SUFFIX);
+    }
+
+    private static FileLineIndex load(File indexFile, String path) {
+        if (!indexFile.isFile()) return null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            if (in.readInt() != MAGIC || in.readInt() != INTERVAL || !path.equals(in.readUTF())) return null;
+            final long length = in.readLong();
+            final long lastModified = in.readLong();
+            final int lineCount = in.readInt();
+            final long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new FileLineIndex(length, lastModified, lineCount, offsets);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        } finally {
+            CloseUtils.closeIOQuietly(in);
+        }
+    }
+
+    private static void save(FileLineIndex index, File indexFile, String path) {
+        if (!FileUtils.createOrExistsDir(indexFile.getParentFile())) return;
+        File temp = null;
+        DataOutputStream out = null;
+        try {
+            //每次保存使用不同的临时文件，同时为同一个文件建索引时不会互相覆盖.
+            temp = File.createTempFile(indexFile.getName() + ".", TEMP_SUFFIX, indexFile.getParentFile());
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(INTERVAL);
+            out.writeUTF(path);
+            out.writeLong(index.mLength);
+            out.writeLong(index.mLastModified);
+            out.writeInt(index.mLineCount);
+            out.writeInt(index.mOffsets.length);
+            for (long offset : index.mOffsets) {
+                out.writeLong(offset);
+            }
+            out.close();
+            out = null;
+            if (temp.renameTo(indexFile) || indexFile.delete() && temp.renameTo(indexFile)) temp = null;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            CloseUtils.closeIOQuietly(out);
+            if (null != temp) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * 索引文件超过{@link #MAX_INDEX_FILES}个时删除最久没有使用的，同时删除过期的临时文件.
+     */
+    private static void prune(File dir) {
+        final File[] files = dir.listFiles();
+        if (null == files) return;
+        final long now = System.currentTimeMillis();
+        final List<File> indexes = new ArrayList<>(files.length);
+        for (File f : files) {
+            if (f.getName().endsWith(INDEX_SUFFIX)) {
+                indexes.add(f);
+            } else if (f.getName().endsWith(TEMP_SUFFIX) && now - f.lastModified() > STALE_TEMP_MILLIS) {
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+        if (indexes.size() <= MAX_INDEX_FILES) return;
+        final long[] modified = new long[indexes.size()];
+        final Integer[] order = new Integer[indexes.size()];
+        for (int i = 0; i < order.length; i++) {
+            modified[i] = indexes.get(i).lastModified();
+            order[i] = i;
+        }
+        //先取出修改时间再排序，排序过程中文件被修改也不会违反比较器的约定.
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(modified[a], modified[b]);
+            }
+        });
+        for (int i = 0, excess = order.length - MAX_INDEX_FILES; i < excess; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            indexes.get(order[i]).delete();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/********************************
+ * @name FileOperationResult
+ * @author 段露
+ * @createDate 2026/10/18 20:40
+ * @updateDate 2026/10/19 06:30
+ * @version V1.0.0
+ * @describe 目录批量复制、移动、删除以及{@link AtomicFileWriter.Batch}批量写入的结果.
+ * 单个文件失败不会中断整个操作，失败的文件和目录记录在{@link #getFailures()}中.
+ ********************************/
+public final class FileOperationResult {
+
+    /**
+     * 没有逐个处理文件(如整个目录直接重命名)，成功数未知.
+     */
+    public static final int UNKNOWN_COUNT = -1;
+
+    private final int mSucceeded;
+    private final List<File> mFailures;
+    private final boolean mCancelled;
+
+    FileOperationResult(int succeeded, Collection<File> failures, boolean cancelled) {
+        this.mSucceeded = succeeded;
+        this.mFailures = failures.isEmpty()
+                ? Collections.<File>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(failures));
+        this.mCancelled = cancelled;
+    }
+
+    /**
+     * 没有开始处理就失败.
+     */
+    static FileOperationResult failure(File file) {
+        return new FileOperationResult(0, Collections.singletonList(file), false);
+    }
+
+    static FileOperationResult success(int succeeded) {
+        return new FileOperationResult(succeeded, Collections.<File>emptyList(), false);
+    }
+
+    /**
+     * 全部完成，没有失败也没有被取消.
+     */
+    public boolean isSuccess() {
+        return !mCancelled && mFailures.isEmpty();
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * 成功处理的文件数(不包括目录)，没有逐个处理时为{@link #UNKNOWN_COUNT}.
+     */
+    public int getSucceededCount() {
+        return mSucceeded;
+    }
+
+    /**
+     * 处理失败的文件和目录(源路径)，顺序不确定.
+     */
+    @NonNull
+    public List<File> getFailures() {
+        return mFailures;
+    }
+
+    @Override
+    public String toString() {
+        return "FileOperationResult{" +
+                "succeeded=" + mSucceeded +
+                ", failures=" + mFailures.size() +
+                ", cancelled=" + mCancelled +
+                '}';
+    }
+
+}
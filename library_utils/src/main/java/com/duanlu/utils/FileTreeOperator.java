@@ -0,0 +1,239 @@
+package com.duanlu.utils;
+
+import android.os.CancellationSignal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/********************************
+ * @name FileTreeOperator
+ * @author 段露
+ * @createDate 2026/10/18 20:40
+ * @updateDate 2026/10/18 20:40
+ * @version V1.0.0
+ * @describe 多线程复制、移动、删除目录.
+ * 每个目录作为一个任务列出子项，子目录和每{@link #BATCH_SIZE}个文件再分别作为任务提交到固定线程数的线程池.
+ * 每个目录记录未完成的子任务数，全部完成后才处理目录本身(移动和删除时删除源目录)，再通知上级目录.
+ * ForkJoinPool需要API 21，这里用ThreadPoolExecutor实现同样的拆分.
+ ********************************/
+final class FileTreeOperator {
+
+    static final int COPY = 0;
+    static final int MOVE = 1;
+    static final int DELETE = 2;
+
+    private static final int BATCH_SIZE = 64;
+
+    private final int mMode;
+    private final boolean mDeleteRoot;
+    private final CancellationSignal mSignal;
+    private final ThreadPoolExecutor mExecutor;
+
+    private final AtomicInteger mSucceeded = new AtomicInteger();
+    private final ConcurrentLinkedQueue<File> mFailures = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch mDone = new CountDownLatch(1);
+    private volatile boolean mInterrupted;
+
+    private FileTreeOperator(int mode, boolean deleteRoot, int parallelism, CancellationSignal signal) {
+        this.mMode = mode;
+        this.mDeleteRoot = deleteRoot;
+        this.mSignal = signal;
+        final int threads = Math.max(1, parallelism);
+        this.mExecutor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "FileUtils-Tree-" + mCount.incrementAndGet());
+            }
+        });
+    }
+
+    /**
+     * 处理整个目录树，阻塞直到完成或取消.
+     *
+     * @param src         源目录，调用前已检查存在且是目录.
+     * @param dest        目标目录，删除时为null.
+     * @param deleteRoot  删除时是否删除src本身.
+     * @param parallelism 最多同时使用的线程数.
+     * @param signal      取消信号，可以为null，取消后不再开始新的文件.
+     */
+    static FileOperationResult run(int mode, File src, File dest, boolean deleteRoot, int parallelism, CancellationSignal signal) {
+        return new FileTreeOperator(mode, deleteRoot, parallelism, signal).run(src, dest);
+    }
+
+    private FileOperationResult run(File src, File dest) {
+        mExecutor.execute(new DirTask(new DirNode(src, dest, null)));
+        boolean interrupted = false;
+        while (true) {
+            try {
+                mDone.await();
+                break;
+            } catch (InterruptedException e) {
+                //当作取消，等待已经开始的任务结束.
+                interrupted = true;
+                mInterrupted = true;
+            }
+        }
+        mExecutor.shutdown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new FileOperationResult(mSucceeded.get(), mFailures, isCancelled());
+    }
+
+    private boolean isCancelled() {
+        return mInterrupted || (null != mSignal && mSignal.isCanceled());
+    }
+
+    private void fail(DirNode node, File file) {
+        node.failed = true;
+        mFailures.add(file);
+    }
+
+    /**
+     * 子任务完成，目录的子任务全部完成后处理目录本身并通知上级目录.
+     */
+    private void finish(DirNode node) {
+        while (null != node && node.pending.decrementAndGet() == 0) {
+            if (mMode != COPY && !node.failed && !isCancelled()
+                    && (null != node.parent || mDeleteRoot)
+                    && !node.src.delete() && node.src.exists()) {
+                fail(node, node.src);
+            }
+            final DirNode parent = node.parent;
+            if (null == parent) {
+                mDone.countDown();
+            } else if (node.failed) {
+                parent.failed = true;
+            }
+            node = parent;
+        }
+    }
+
+    private static final class DirNode {
+
+        final File src;
+        final File dest;
+        final DirNode parent;
+        final AtomicInteger pending = new AtomicInteger(1);//列出子项的任务本身占1个.
+        volatile boolean failed;//子树中有失败，移动和删除时不再删除本目录.
+
+        DirNode(File src, File dest, DirNode parent) {
+            this.src = src;
+            this.dest = dest;
+            this.parent = parent;
+        }
+    }
+
+    private final class DirTask implements Runnable {
+
+        private final DirNode mNode;
+
+        DirTask(DirNode node) {
+            this.mNode = node;
+        }
+
+        @Override
+        public void run() {
+            try {
+                list();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                fail(mNode, mNode.src);
+            } finally {
+                finish(mNode);
+            }
+        }
+
+        private void list() {
+            if (isCancelled()) return;
+            final DirNode node = mNode;
+            if (mMode != DELETE && !FileUtils.createOrExistsDir(node.dest)) {
+                fail(node, node.src);
+                return;
+            }
+            final File[] files = node.src.listFiles();
+            if (null == files) {
+                fail(node, node.src);
+                return;
+            }
+            List<File> batch = null;
+            for (File file : files) {
+                if (file.isFile()) {
+                    if (null == batch) batch = new ArrayList<>(Math.min(BATCH_SIZE, files.length));
+                    batch.add(file);
+                    if (batch.size() >= BATCH_SIZE) {
+                        submit(new FileTask(node, batch));
+                        batch = null;
+                    }
+                } else if (file.isDirectory()) {
+                    final File dest = null == node.dest ? null : new File(node.dest, file.getName());
+                    submit(new DirTask(new DirNode(file, dest, node)));
+                }
+            }
+            if (null != batch) {
+                submit(new FileTask(node, batch));
+            }
+        }
+
+        private void submit(Runnable task) {
+            mNode.pending.incrementAndGet();
+            mExecutor.execute(task);
+        }
+    }
+
+    private final class FileTask implements Runnable {
+
+        private final DirNode mNode;
+        private final List<File> mFiles;
+
+        FileTask(DirNode node, List<File> files) {
+            this.mNode = node;
+            this.mFiles = files;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (File file : mFiles) {
+                    if (isCancelled()) return;
+                    if (process(file)) {
+                        mSucceeded.incrementAndGet();
+                    } else {
+                        fail(mNode, file);
+                    }
+                }
+            } finally {
+                finish(mNode);
+            }
+        }
+
+        private boolean process(File file) {
+            try {
+                switch (mMode) {
+                    case COPY:
+                        return FileUtils.copyFile(file, new File(mNode.dest, file.getName()));
+                    case MOVE:
+                        return FileUtils.moveFile(file, new File(mNode.dest, file.getName()));
+                    case DELETE:
+                    default:
+                        return FileUtils.deleteFile(file);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
+import android.os.CancellationSignal;
 import android.os.Environment;
 import android.os.StatFs;
 import android.provider.DocumentsContract;
@@ -24,29 +25,29 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /********************************
  * @name FileUtils
  * @author 段露
  * @createDate 2017/9/6 13:56.
- * @updateDate 2017/9/6 13:56.
+ * @updateDate 2026/10/19 06:30.
  * @version V1.0.0
  * @describe 文件操作工具类.
+ * 文件复制使用FileChannel，见{@link FileCopier}；同一分区内的移动直接重命名.
+ * 目录遍历见{@link FileWalker}.
+ * 按行读取指定范围和统计行数使用{@link FileLineIndex}，整个文件的读取见{@link FileContentReader}.
+ * 原子写入见{@link AtomicFileWriter}.
  ********************************/
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class FileUtils {
@@ -409,6 +410,11 @@ public class FileUtils {
         if (destPath.contains(srcPath)) return false;
         // 源文件不存在或者不是目录则返回false
         if (!srcDir.exists() || !srcDir.isDirectory()) return false;
+        // 移动且目标目录不存在时先尝试直接重命名整个目录
+        if (isMove && !destDir.exists()
+                && createOrExistsDir(destDir.getParentFile()) && srcDir.renameTo(destDir)) {
+            return true;
+        }
         // 目标目录不存在返回false
         if (!createOrExistsDir(destDir)) return false;
         File[] files = srcDir.listFiles();
@@ -425,6 +431,35 @@ public class FileUtils {
         return !isMove || deleteDir(srcDir);
     }
 
+    /**
+     * 多线程复制或移动目录，单个文件失败不会中断
+     *
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param isMove      是否移动
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 复制或移动结果
+     */
+    private static FileOperationResult copyOrMoveDir(File srcDir, File destDir, boolean isMove,
+                                                     int parallelism, CancellationSignal signal) {
+        if (srcDir == null || destDir == null) return FileOperationResult.failure(srcDir);
+        // 目标目录在源目录中则失败
+        String srcPath = srcDir.getPath() + File.separator;
+        String destPath = destDir.getPath() + File.separator;
+        if (destPath.contains(srcPath)) return FileOperationResult.failure(srcDir);
+        // 源文件不存在或者不是目录则失败
+        if (!srcDir.exists() || !srcDir.isDirectory()) return FileOperationResult.failure(srcDir);
+        // 移动且目标目录不存在时先尝试直接重命名整个目录
+        if (isMove && !destDir.exists()
+                && createOrExistsDir(destDir.getParentFile()) && srcDir.renameTo(destDir)) {
+            // 重命名不逐个处理文件，也不再遍历统计，成功数未知
+            return FileOperationResult.success(FileOperationResult.UNKNOWN_COUNT);
+        }
+        return FileTreeOperator.run(isMove ? FileTreeOperator.MOVE : FileTreeOperator.COPY,
+                srcDir, destDir, true, parallelism, signal);
+    }
+
     /**
      * 复制或移动文件
      *
@@ -446,6 +481,19 @@ public class FileUtils {
      * @return {@code true}: 复制或移动成功{@code false}: 复制或移动失败
      */
     private static boolean copyOrMoveFile(File srcFile, File destFile, boolean isMove) {
+        return copyOrMoveFile(srcFile, destFile, isMove, null);
+    }
+
+    /**
+     * 复制或移动文件
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件
+     * @param isMove   是否移动
+     * @param listener 进度回调，可以为null
+     * @return {@code true}: 复制或移动成功{@code false}: 复制或移动失败或被取消
+     */
+    private static boolean copyOrMoveFile(File srcFile, File destFile, boolean isMove, OnCopyListener listener) {
         if (srcFile == null || destFile == null) return false;
         // 源文件不存在或者不是文件则返回false
         if (!srcFile.exists() || !srcFile.isFile()) return false;
@@ -453,13 +501,16 @@ public class FileUtils {
         if (destFile.exists() && destFile.isFile()) return false;
         // 目标目录不存在返回false
         if (!createOrExistsDir(destFile.getParentFile())) return false;
-        try {
-            return writeFileFromIS(destFile, new FileInputStream(srcFile), false)
-                    && !(isMove && !deleteFile(srcFile));
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return false;
+        // 同一分区内移动直接重命名
+        if (isMove && srcFile.renameTo(destFile)) {
+            if (null != listener) {
+                long length = destFile.length();
+                listener.onProgress(length, length);
+            }
+            return true;
         }
+        return FileCopier.copy(srcFile, destFile, listener)
+                && !(isMove && !deleteFile(srcFile));
     }
 
     /**
@@ -484,6 +535,19 @@ public class FileUtils {
         return copyOrMoveDir(srcDir, destDir, false);
     }
 
+    /**
+     * 多线程复制目录，单个文件失败不会中断，不能在主线程调用
+     *
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 复制结果，包括失败的文件
+     */
+    public static FileOperationResult copyDir(File srcDir, File destDir, int parallelism, CancellationSignal signal) {
+        return copyOrMoveDir(srcDir, destDir, false, parallelism, signal);
+    }
+
     /**
      * 复制文件
      *
@@ -506,6 +570,18 @@ public class FileUtils {
         return copyOrMoveFile(srcFile, destFile, false);
     }
 
+    /**
+     * 复制文件
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件
+     * @param listener 进度回调，返回false时取消复制并删除不完整的目标文件
+     * @return {@code true}: 复制成功{@code false}: 复制失败或被取消
+     */
+    public static boolean copyFile(File srcFile, File destFile, OnCopyListener listener) {
+        return copyOrMoveFile(srcFile, destFile, false, listener);
+    }
+
     /**
      * 移动目录
      *
@@ -528,6 +604,20 @@ public class FileUtils {
         return copyOrMoveDir(srcDir, destDir, true);
     }
 
+    /**
+     * 多线程移动目录，单个文件失败不会中断，有失败的子目录不会被删除，不能在主线程调用
+     *
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 移动结果，包括失败的文件；目标目录不存在时直接重命名整个目录，
+     * 成功数为{@link FileOperationResult#UNKNOWN_COUNT}
+     */
+    public static FileOperationResult moveDir(File srcDir, File destDir, int parallelism, CancellationSignal signal) {
+        return copyOrMoveDir(srcDir, destDir, true, parallelism, signal);
+    }
+
     /**
      * 移动文件
      *
@@ -550,6 +640,18 @@ public class FileUtils {
         return copyOrMoveFile(srcFile, destFile, true);
     }
 
+    /**
+     * 移动文件
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件
+     * @param listener 进度回调，返回false时取消移动，源文件保持不变
+     * @return {@code true}: 移动成功{@code false}: 移动失败或被取消
+     */
+    public static boolean moveFile(File srcFile, File destFile, OnCopyListener listener) {
+        return copyOrMoveFile(srcFile, destFile, true, listener);
+    }
+
     /**
      * 删除目录
      *
@@ -586,6 +688,18 @@ public class FileUtils {
         return dir.delete();
     }
 
+    /**
+     * 多线程删除目录，单个文件失败不会中断，不能在主线程调用
+     *
+     * @param dir         目录
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 删除结果，包括删除失败的文件
+     */
+    public static FileOperationResult deleteDir(File dir, int parallelism, CancellationSignal signal) {
+        return deleteInDir(dir, true, parallelism, signal);
+    }
+
     /**
      * 删除文件
      *
@@ -642,6 +756,36 @@ public class FileUtils {
         return true;
     }
 
+    /**
+     * 多线程删除目录下的所有文件，单个文件失败不会中断，不能在主线程调用
+     *
+     * @param dir         目录
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 删除结果，包括删除失败的文件
+     */
+    public static FileOperationResult deleteFilesInDir(File dir, int parallelism, CancellationSignal signal) {
+        return deleteInDir(dir, false, parallelism, signal);
+    }
+
+    /**
+     * 多线程删除目录下的所有文件
+     *
+     * @param dir         目录
+     * @param deleteSelf  是否删除目录本身
+     * @param parallelism 最多同时使用的线程数
+     * @param signal      取消信号，可以为null
+     * @return 删除结果
+     */
+    private static FileOperationResult deleteInDir(File dir, boolean deleteSelf, int parallelism, CancellationSignal signal) {
+        if (dir == null) return FileOperationResult.failure(null);
+        // 目录不存在视为成功
+        if (!dir.exists()) return FileOperationResult.success(0);
+        // 不是目录则失败
+        if (!dir.isDirectory()) return FileOperationResult.failure(dir);
+        return FileTreeOperator.run(FileTreeOperator.DELETE, dir, null, deleteSelf, parallelism, signal);
+    }
+
     /**
      * 获取目录下所有文件
      *
@@ -662,13 +806,7 @@ public class FileUtils {
      */
     public static List<File> listFilesInDir(File dir, boolean isRecursive) {
         if (!isDir(dir)) return null;
-        if (isRecursive) return listFilesInDir(dir);
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            Collections.addAll(list, files);
-        }
-        return list;
+        return FileWalker.of(dir).maxDepth(isRecursive ? FileWalker.UNLIMITED_DEPTH : 1).toList();
     }
 
     /**
@@ -689,17 +827,7 @@ public class FileUtils {
      */
     public static List<File> listFilesInDir(File dir) {
         if (!isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                list.add(file);
-                if (file.isDirectory()) {
-                    list.addAll(listFilesInDir(file));
-                }
-            }
-        }
-        return list;
+        return FileWalker.of(dir).toList();
     }
 
     /**
@@ -725,18 +853,11 @@ public class FileUtils {
      * @return 文件链表
      */
     public static List<File> listFilesInDirWithFilter(File dir, String suffix, boolean isRecursive) {
-        if (isRecursive) return listFilesInDirWithFilter(dir, suffix);
         if (dir == null || !isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (file.getName().toUpperCase().endsWith(suffix.toUpperCase())) {
-                    list.add(file);
-                }
-            }
-        }
-        return list;
+        return FileWalker.of(dir)
+                .maxDepth(isRecursive ? FileWalker.UNLIMITED_DEPTH : 1)
+                .match(FileWalker.suffix(suffix, true))
+                .toList();
     }
 
     /**
@@ -760,20 +881,7 @@ public class FileUtils {
      * @return 文件链表
      */
     public static List<File> listFilesInDirWithFilter(File dir, String suffix) {
-        if (dir == null || !isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (file.getName().toUpperCase().endsWith(suffix.toUpperCase())) {
-                    list.add(file);
-                }
-                if (file.isDirectory()) {
-                    list.addAll(listFilesInDirWithFilter(file, suffix));
-                }
-            }
-        }
-        return list;
+        return listFilesInDirWithFilter(dir, suffix, true);
     }
 
     /**
@@ -797,18 +905,11 @@ public class FileUtils {
      * @return 文件链表
      */
     public static List<File> listFilesInDirWithFilter(File dir, FilenameFilter filter, boolean isRecursive) {
-        if (isRecursive) return listFilesInDirWithFilter(dir, filter);
         if (dir == null || !isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (filter.accept(file.getParentFile(), file.getName())) {
-                    list.add(file);
-                }
-            }
-        }
-        return list;
+        return FileWalker.of(dir)
+                .maxDepth(isRecursive ? FileWalker.UNLIMITED_DEPTH : 1)
+                .match(FileWalker.filter(filter))
+                .toList();
     }
 
     /**
@@ -830,20 +931,7 @@ public class FileUtils {
      * @return 文件链表
      */
     public static List<File> listFilesInDirWithFilter(File dir, FilenameFilter filter) {
-        if (dir == null || !isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (filter.accept(file.getParentFile(), file.getName())) {
-                    list.add(file);
-                }
-                if (file.isDirectory()) {
-                    list.addAll(listFilesInDirWithFilter(file, filter));
-                }
-            }
-        }
-        return list;
+        return listFilesInDirWithFilter(dir, filter, true);
     }
 
     /**
@@ -868,19 +956,7 @@ public class FileUtils {
      */
     public static List<File> searchFileInDir(File dir, String fileName) {
         if (dir == null || !isDir(dir)) return null;
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (file.getName().toUpperCase().equals(fileName.toUpperCase())) {
-                    list.add(file);
-                }
-                if (file.isDirectory()) {
-                    list.addAll(searchFileInDir(file, fileName));
-                }
-            }
-        }
-        return list;
+        return FileWalker.of(dir).match(FileWalker.name(fileName, true)).toList();
     }
 
     /**
@@ -936,7 +1012,7 @@ public class FileUtils {
     }
 
     /**
-     * 将字符串写入文件
+     * 将字符串写入文件，使用系统默认编码，写入中途失败时文件可能不完整，需要原子写入时使用{@link #writeFileAtomic(File, CharSequence, Charset)}
      *
      * @param file    文件
      * @param content 写入内容
@@ -959,6 +1035,43 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 原子地将字符串写入文件：先写临时文件并落盘，再重命名为目标文件，失败时原文件保持不变
+     *
+     * @param file    文件
+     * @param content 写入内容
+     * @param charset 编码格式
+     * @return {@code true}: 写入成功{@code false}: 写入失败
+     */
+    public static boolean writeFileAtomic(File file, CharSequence content, @NonNull Charset charset) {
+        if (file == null || content == null) return false;
+        return AtomicFileWriter.write(file, content, charset);
+    }
+
+    /**
+     * 原子地将多个缓冲区依次写入文件，缓冲区的position不变
+     *
+     * @param file    文件
+     * @param buffers 写入内容
+     * @return {@code true}: 写入成功{@code false}: 写入失败
+     */
+    public static boolean writeFileAtomic(File file, ByteBuffer... buffers) {
+        if (file == null || buffers == null) return false;
+        return AtomicFileWriter.write(file, buffers);
+    }
+
+    /**
+     * 原子地将输入流写入文件，完成后关闭输入流
+     *
+     * @param file 文件
+     * @param is   输入流
+     * @return {@code true}: 写入成功{@code false}: 写入失败
+     */
+    public static boolean writeFileAtomic(File file, InputStream is) {
+        if (file == null || is == null) return false;
+        return AtomicFileWriter.write(file, is);
+    }
+
     /**
      * 指定编码按行读取文件到链表中
      *
@@ -1007,15 +1120,27 @@ public class FileUtils {
     public static List<String> readFile2List(File file, int st, int end, String charsetName) {
         if (file == null) return null;
         if (st > end) return null;
+        FileInputStream fis = null;
         BufferedReader reader = null;
         try {
             String line;
             int curLine = 1;
             List<String> list = new ArrayList<>();
+            //从后面开始读时先通过行索引定位到最近的记录点，不再从头逐行跳过.
+            final FileLineIndex index = st > 1 && file.isFile() && FileLineIndex.isSupported(charsetName)
+                    ? FileLineIndex.get(file) : null;
+            if (null != index) {
+                if (st > index.getLineCount()) return list;
+                curLine = index.getCheckpointLine(st);
+            }
+            fis = new FileInputStream(file);
             if (TextUtils.isEmpty(charsetName.trim())) {
-                reader = new BufferedReader(new FileReader(file));
+                reader = new BufferedReader(new InputStreamReader(fis));
             } else {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charsetName));
+                reader = new BufferedReader(new InputStreamReader(fis, charsetName));
+            }
+            if (null != index) {
+                fis.getChannel().position(index.getOffset(curLine));
             }
             while ((line = reader.readLine()) != null) {
                 if (curLine > end) break;
@@ -1027,12 +1152,13 @@ public class FileUtils {
             e.printStackTrace();
             return null;
         } finally {
-            CloseUtils.closeIO(reader);
+            //创建InputStreamReader失败(如不支持的编码)时reader为null，fis需要单独关闭.
+            CloseUtils.closeIO(reader, fis);
         }
     }
 
     /**
-     * 指定编码按行读取文件到字符串中
+     * 指定编码读取文件到字符串中，保留文件中原有的换行符
      *
      * @param filePath    文件路径
      * @param charsetName 编码格式
@@ -1043,33 +1169,21 @@ public class FileUtils {
     }
 
     /**
-     * 指定编码按行读取文件到字符串中
+     * 指定编码读取文件到字符串中，保留文件中原有的换行符
      *
      * @param file        文件
-     * @param charsetName 编码格式
-     * @return 字符串
+     * @param charsetName 编码格式，为空时使用默认编码
+     * @return 字符串，空文件返回""
      */
     public static String readFile2String(File file, String charsetName) {
         if (file == null) return null;
-        BufferedReader reader = null;
         try {
-            StringBuilder sb = new StringBuilder();
-            if (TextUtils.isEmpty(charsetName.trim())) {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-            } else {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charsetName));
-            }
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\r\n");// windows系统换行为\r\n，Linux为\n
-            }
-            // 要去除最后的换行符
-            return sb.delete(sb.length() - 2, sb.length()).toString();
-        } catch (IOException e) {
+            final Charset charset = null == charsetName || TextUtils.isEmpty(charsetName.trim())
+                    ? Charset.defaultCharset() : Charset.forName(charsetName);
+            return FileContentReader.readString(file, charset);
+        } catch (IOException | IllegalArgumentException e) {
             e.printStackTrace();
             return null;
-        } finally {
-            CloseUtils.closeIO(reader);
         }
     }
 
@@ -1084,7 +1198,7 @@ public class FileUtils {
     }
 
     /**
-     * 读取文件到字符数组中
+     * 读取文件到字符数组中，按文件长度一次分配
      *
      * @param file 文件
      * @return 字符数组
@@ -1092,8 +1206,8 @@ public class FileUtils {
     public static byte[] readFile2Bytes(File file) {
         if (file == null) return null;
         try {
-            return ConvertUtils.inputStream2Bytes(new FileInputStream(file));
-        } catch (FileNotFoundException e) {
+            return FileContentReader.readBytes(file);
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
@@ -1121,7 +1235,7 @@ public class FileUtils {
     }
 
     /**
-     * 简单获取文件编码格式
+     * 获取文件编码格式，根据文件开头的内容判断，见{@link CharsetDetector}
      *
      * @param filePath 文件路径
      * @return 文件编码
@@ -1131,32 +1245,24 @@ public class FileUtils {
     }
 
     /**
-     * 简单获取文件编码格式
+     * 获取文件编码格式，根据文件开头的内容判断，见{@link CharsetDetector}
+     * 只返回编码名称，调用者无法跳过BOM，所以有UTF-16/UTF-32的BOM时返回会自动去掉BOM的"UTF-16"/"UTF-32"，
+     * 只有没有BOM时才返回UTF-16LE/UTF-16BE.
      *
      * @param file 文件
-     * @return 文件编码
+     * @return 文件编码，读取失败时返回GBK
      */
     public static String getFileCharsetSimple(File file) {
-        int p = 0;
-        InputStream is = null;
-        try {
-            is = new BufferedInputStream(new FileInputStream(file));
-            p = (is.read() << 8) + is.read();
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            CloseUtils.closeIO(is);
-        }
-        switch (p) {
-            case 0xefbb:
-                return "UTF-8";
-            case 0xfffe:
-                return "Unicode";
-            case 0xfeff:
-                return "UTF-16BE";
-            default:
-                return "GBK";
+        final CharsetDetector.Result result = CharsetDetector.detect(file);
+        if (null == result) return CharsetDetector.GBK;
+        final String charsetName = result.getCharsetName();
+        if (result.getBomLength() > 0) {
+            if (CharsetDetector.UTF_16LE.equals(charsetName) || CharsetDetector.UTF_16BE.equals(charsetName)) {
+                return "UTF-16";
+            }
+            if (CharsetDetector.UTF_32LE.equals(charsetName)) return "UTF-32";
         }
+        return charsetName;
     }
 
     /**
@@ -1170,29 +1276,14 @@ public class FileUtils {
     }
 
     /**
-     * 获取文件行数
+     * 获取文件行数，与按行读取(readLine)得到的行数一致，结果来自行索引{@link FileLineIndex}
      *
      * @param file 文件
-     * @return 文件行数
+     * @return 文件行数，不是文件或读取失败时返回0
      */
     public static int getFileLines(File file) {
-        int count = 1;
-        InputStream is = null;
-        try {
-            is = new BufferedInputStream(new FileInputStream(file));
-            byte[] buffer = new byte[1024];
-            int readChars;
-            while ((readChars = is.read(buffer, 0, 1024)) != -1) {
-                for (int i = 0; i < readChars; ++i) {
-                    if (buffer[i] == '\n') ++count;
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            CloseUtils.closeIO(is);
-        }
-        return count;
+        final FileLineIndex index = null != file && file.isFile() ? FileLineIndex.get(file) : null;
+        return null == index ? 0 : index.getLineCount();
     }
 
     /**
@@ -1216,6 +1307,18 @@ public class FileUtils {
         return len == -1 ? "" : ConvertUtils.byte2FitMemorySize(len);
     }
 
+    /**
+     * 获取目录大小，只重新扫描修改时间变化的子目录
+     *
+     * @param dir   目录
+     * @param index 目录大小索引，为null时完整扫描
+     * @return 文件大小
+     */
+    public static String getDirSize(File dir, DirSizeIndex index) {
+        long len = getDirLength(dir, index);
+        return len == -1 ? "" : ConvertUtils.byte2FitMemorySize(len);
+    }
+
     /**
      * 获取文件大小
      *
@@ -1269,6 +1372,17 @@ public class FileUtils {
         return len;
     }
 
+    /**
+     * 获取目录长度，只重新扫描修改时间变化的子目录
+     *
+     * @param dir   目录
+     * @param index 目录大小索引，为null时完整扫描
+     * @return 文件大小
+     */
+    public static long getDirLength(File dir, DirSizeIndex index) {
+        return null == index ? getDirLength(dir) : index.getLength(dir);
+    }
+
     /**
      * 获取文件长度
      *
@@ -1329,22 +1443,8 @@ public class FileUtils {
      * @return 文件的MD5校验码
      */
     public static byte[] getFileMD5(File file) {
-        if (file == null) return null;
-        DigestInputStream dis = null;
-        try {
-            FileInputStream fis = new FileInputStream(file);
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            dis = new DigestInputStream(fis, md);
-            byte[] buffer = new byte[1024 * 256];
-            //while (dis.read(buffer) > 0) ;
-            md = dis.getMessageDigest();
-            return md.digest();
-        } catch (NoSuchAlgorithmException | IOException e) {
-            e.printStackTrace();
-        } finally {
-            CloseUtils.closeIO(dis);
-        }
-        return null;
+        FileHasher.Result result = FileHasher.hash(file, FileHasher.MD5);
+        return null == result ? null : result.getMD5();
     }
 
     /**
@@ -1579,4 +1679,17 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 文件复制进度回调，在复制的线程中调用
+     */
+    public interface OnCopyListener {
+
+        /**
+         * @param copied 已复制的字节数
+         * @param total  总字节数
+         * @return 返回false取消复制
+         */
+        boolean onProgress(long copied, long total);
+    }
+
 }
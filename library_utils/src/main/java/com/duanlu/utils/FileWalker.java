@@ -0,0 +1,279 @@
+package com.duanlu.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/********************************
+ * @name FileWalker
+ * @author 段露
+ * @createDate 2026/10/18 21:20
+ * @updateDate 2026/10/18 21:20
+ * @version V1.0.0
+ * @describe 目录遍历器.
+ * 按深度优先先序遍历(先返回目录本身再进入目录，同一目录内按listFiles的顺序)，边遍历边返回，目录在真正需要时才列出.
+ * 可以用for-each迭代、{@link #walk(Visitor)}访问或{@link #toList()}收集，迭代时随时停止即可提前结束遍历.
+ * 名称匹配规则预先编译，匹配时不产生新字符串.
+ * <pre>
+ * for (File file : FileWalker.of(dir).maxDepth(2).match(FileWalker.suffix(".mp4", true))) {
+ *     ...
+ * }
+ * </pre>
+ ********************************/
+public final class FileWalker implements Iterable<File> {
+
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private final File mRoot;
+    private int mMaxDepth = UNLIMITED_DEPTH;
+    private NameMatcher mMatcher;
+
+    private FileWalker(File root) {
+        this.mRoot = root;
+    }
+
+    /**
+     * @param root 遍历的目录，不是目录时没有结果.
+     */
+    public static FileWalker of(File root) {
+        return new FileWalker(root);
+    }
+
+    /**
+     * 最大深度，root下的直接子项深度为1，默认不限制.
+     */
+    public FileWalker maxDepth(int maxDepth) {
+        this.mMaxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * 只返回名称匹配的文件和目录，不影响是否进入目录.
+     */
+    public FileWalker match(NameMatcher matcher) {
+        this.mMatcher = matcher;
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public Iterator<File> iterator() {
+        return new WalkIterator(mRoot, mMaxDepth, mMatcher);
+    }
+
+    /**
+     * 依次访问，visitor返回false时停止遍历.
+     *
+     * @return 是否遍历完成(没有被visitor停止).
+     */
+    public boolean walk(@NonNull Visitor visitor) {
+        for (File file : this) {
+            if (!visitor.visit(file)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 返回第一个结果，没有时返回null，找到后立即停止遍历.
+     */
+    public File first() {
+        final Iterator<File> iterator = iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    public List<File> toList() {
+        final List<File> list = new ArrayList<>();
+        for (File file : this) {
+            list.add(file);
+        }
+        return list;
+    }
+
+    /**
+     * 后缀名匹配.
+     */
+    public static NameMatcher suffix(@NonNull final String suffix, final boolean ignoreCase) {
+        return new NameMatcher() {
+            @Override
+            public boolean matches(File dir, String name) {
+                final int length = suffix.length();
+                return name.regionMatches(ignoreCase, name.length() - length, suffix, 0, length);
+            }
+        };
+    }
+
+    /**
+     * 文件名完全匹配.
+     */
+    public static NameMatcher name(@NonNull final String fileName, final boolean ignoreCase) {
+        return new NameMatcher() {
+            @Override
+            public boolean matches(File dir, String name) {
+                return ignoreCase ? fileName.equalsIgnoreCase(name) : fileName.equals(name);
+            }
+        };
+    }
+
+    /**
+     * 通配符匹配，'*'匹配任意个字符，'?'匹配一个字符.
+     */
+    public static NameMatcher glob(@NonNull String glob, final boolean ignoreCase) {
+        final char[] pattern = glob.toCharArray();
+        return new NameMatcher() {
+            @Override
+            public boolean matches(File dir, String name) {
+                return globMatches(pattern, name, ignoreCase);
+            }
+        };
+    }
+
+    /**
+     * 使用FilenameFilter匹配.
+     */
+    public static NameMatcher filter(@NonNull final FilenameFilter filter) {
+        return new NameMatcher() {
+            @Override
+            public boolean matches(File dir, String name) {
+                return filter.accept(dir, name);
+            }
+        };
+    }
+
+    /**
+     * 贪婪匹配，遇到不匹配时回溯到上一个'*'多吃一个字符，最坏O(m*n)，不递归.
+     */
+    static boolean globMatches(char[] pattern, String name, boolean ignoreCase) {
+        final int length = name.length();
+        int p = 0;
+        int n = 0;
+        int starP = -1;
+        int starN = 0;
+        while (n < length) {
+            if (p < pattern.length && pattern[p] == '*') {
+                starP = p++;
+                starN = n;
+            } else if (p < pattern.length && (pattern[p] == '?' || charEquals(pattern[p], name.charAt(n), ignoreCase))) {
+                p++;
+                n++;
+            } else if (starP >= 0) {
+                p = starP + 1;
+                n = ++starN;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length && pattern[p] == '*') {
+            p++;
+        }
+        return p == pattern.length;
+    }
+
+    private static boolean charEquals(char a, char b, boolean ignoreCase) {
+        if (a == b) return true;
+        if (!ignoreCase) return false;
+        final char upperA = Character.toUpperCase(a);
+        final char upperB = Character.toUpperCase(b);
+        return upperA == upperB || Character.toLowerCase(upperA) == Character.toLowerCase(upperB);
+    }
+
+    /**
+     * 文件名匹配规则.
+     */
+    public interface NameMatcher {
+
+        /**
+         * @param dir  所在目录.
+         * @param name 文件名.
+         */
+        boolean matches(File dir, String name);
+    }
+
+    public interface Visitor {
+
+        /**
+         * @return 返回false停止遍历.
+         */
+        boolean visit(File file);
+    }
+
+    private static final class WalkIterator implements Iterator<File> {
+
+        private final int mMaxDepth;
+        private final NameMatcher mMatcher;
+        //当前路径上每一层目录的子项和下一个要访问的下标，栈的大小即为当前深度.
+        private final ArrayList<File[]> mEntries = new ArrayList<>();
+        private int[] mIndexes = new int[8];
+        private File mPendingDir;//上一个返回的目录，下次前进时再列出.
+        private File mNext;
+
+        WalkIterator(File root, int maxDepth, NameMatcher matcher) {
+            this.mMaxDepth = maxDepth;
+            this.mMatcher = matcher;
+            if (null != root && root.isDirectory() && maxDepth > 0) {
+                push(root.listFiles());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == mNext) {
+                mNext = advance();
+            }
+            return null != mNext;
+        }
+
+        @Override
+        public File next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final File next = mNext;
+            mNext = null;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private File advance() {
+            if (null != mPendingDir) {
+                push(mPendingDir.listFiles());
+                mPendingDir = null;
+            }
+            while (!mEntries.isEmpty()) {
+                final int top = mEntries.size() - 1;
+                final File[] entries = mEntries.get(top);
+                if (mIndexes[top] >= entries.length) {
+                    mEntries.remove(top);
+                    continue;
+                }
+                final File file = entries[mIndexes[top]++];
+                final boolean descend = mEntries.size() < mMaxDepth && file.isDirectory();
+                if (null == mMatcher || mMatcher.matches(file.getParentFile(), file.getName())) {
+                    if (descend) mPendingDir = file;
+                    return file;
+                }
+                if (descend) push(file.listFiles());
+            }
+            return null;
+        }
+
+        private void push(File[] entries) {
+            if (null == entries || entries.length == 0) return;
+            final int depth = mEntries.size();
+            if (depth == mIndexes.length) {
+                final int[] indexes = new int[depth * 2];
+                System.arraycopy(mIndexes, 0, indexes, 0, depth);
+                mIndexes = indexes;
+            }
+            mIndexes[depth] = 0;
+            mEntries.add(entries);
+        }
+    }
+
+}
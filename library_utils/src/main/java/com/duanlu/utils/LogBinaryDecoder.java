@@ -0,0 +1,394 @@
+package com.duanlu.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+
+/********************************
+ * @name LogBinaryDecoder
+ * @author 段露
+ * @createDate 2026/10/18 15:10
+ * @updateDate 2026/10/19 05:30
+ * @version V1.0.0
+ * @describe 日志二进制格式解码器，把{@link LogUtils#FORMAT_BINARY}写出的文件还原为文本格式.
+ * 纯Java实现，可在电脑上运行：java -cp utils.jar com.duanlu.utils.LogBinaryDecoder [-o 输出文件] 日志文件...
+ * <p>
+ * 文件由若干记录组成，每条记录以类型字节开头、以'\n'结尾，整数均为varint，有符号数先做zigzag编码：
+ * <pre>
+ * SESSION 0x01 "DLOG" 版本(1字节) 标志(1字节,bit0=边框) 起始时间 时区偏移(毫秒)
+ * STRING  0x02 编号 长度 UTF-8内容              定义tag、线程名、调用位置，会话内有效
+ * EVENT   0x03 时间差 tag编号 线程编号 位置编号 长度 UTF-8内容
+ * ZONE    0x04 时区偏移(毫秒)
+ * </pre>
+ * 每次打开文件都会写入新的SESSION，之后的字符串编号和时间差都相对于该会话.
+ * 内存映射文件末尾可能有0填充，解码时跳过.
+ * 进程被杀时最后一条记录可能不完整，下次启动会在后面直接追加新的SESSION.
+ * 读到第一个SESSION之后遇到损坏的记录，从该记录的第二个字节开始重新查找下一个SESSION头继续解码，之前读过的字节会重新检查；
+ * 不完整记录的长度可能把后面的SESSION当成内容读进来，所以记录中间出现SESSION头时也按损坏处理.
+ * </p>
+ ********************************/
+public final class LogBinaryDecoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String LINE_SEPARATOR = "\n";
+    private static final byte[] SESSION_HEADER = {LogBinaryEncoder.TYPE_SESSION, 'D', 'L', 'O', 'G'};
+
+    private final InputStream mInput;
+    private final Writer mOutput;
+    private final SimpleDateFormat mTimeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS ", Locale.getDefault());
+    private final Date mDate = new Date();
+    private final List<String> mStrings = new ArrayList<>();
+    private final StringBuilder mText = new StringBuilder(1024);
+    private byte[] mBytes = new byte[1024];
+    private byte[] mRecord = new byte[1024];//当前记录已经读取的字节，记录损坏时从中重新查找SESSION头.
+    private int mRecordLength;
+    private byte[] mReplay = new byte[0];//放回去重新读取的字节.
+    private int mReplayPosition;
+    private boolean mSessionStarted;
+    private boolean mBorder;
+    private long mLastTime;
+    private long mZoneOffset;
+
+    private LogBinaryDecoder(InputStream input, Writer output) {
+        this.mInput = input;
+        this.mOutput = output;
+        this.mTimeFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+    }
+
+    /**
+     * 解码二进制日志流并以文本格式写入output，不关闭流.
+     */
+    public static void decode(InputStream input, Writer output) throws IOException {
+        new LogBinaryDecoder(input, output).decode();
+    }
+
+    /**
+     * 解码二进制日志文件(.bin或压缩后的.bin.gz)并以文本格式写入output.
+     */
+    public static void decode(File file, Writer output) throws IOException {
+        InputStream is = null;
+        try {
+            is = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+            if (file.getName().endsWith(".gz")) {
+                is = new GZIPInputStream(is, 64 * 1024);
+            }
+            decode(is, output);
+        } finally {
+            CloseUtils.closeIOQuietly(is);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String output = null;
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = args[++i];
+            } else {
+                files.add(new File(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: LogBinaryDecoder [-o output] file...");
+            System.exit(1);
+            return;
+        }
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                null == output ? System.out : new FileOutputStream(output), UTF_8), 64 * 1024);
+        try {
+            for (File file : files) {
+                decode(file, writer);
+            }
+        } finally {
+            writer.flush();
+            if (null != output) {
+                CloseUtils.closeIOQuietly(writer);
+            }
+        }
+    }
+
+    private void decode() throws IOException {
+        while (true) {
+            mRecordLength = 0;
+            final int type = read();
+            if (type == -1) return;
+            try {
+                switch (type) {
+                    case 0://内存映射文件的0填充.
+                        continue;
+                    case LogBinaryEncoder.TYPE_SESSION:
+                        readSession();
+                        break;
+                    case LogBinaryEncoder.TYPE_STRING:
+                        readString();
+                        break;
+                    case LogBinaryEncoder.TYPE_EVENT:
+                        readEvent();
+                        break;
+                    case LogBinaryEncoder.TYPE_ZONE:
+                        mZoneOffset = unZigZag(readVarLong());
+                        break;
+                    default:
+                        throw new IOException("Unknown record type: " + type);
+                }
+                if (readByte() != LogBinaryEncoder.RECORD_END) {
+                    throw new IOException("Corrupted record, type: " + type);
+                }
+                //不完整记录的长度可能把后面的SESSION读成了内容，碰巧又以'\n'结尾.
+                if (indexOfSessionHeader(mRecord, 1, mRecordLength) >= 0) {
+                    throw new IOException("Session header inside record, type: " + type);
+                }
+                //读到结束符才输出，不完整的记录不输出.
+                if (type == LogBinaryEncoder.TYPE_EVENT) {
+                    mOutput.append(mText);
+                }
+            } catch (EOFException e) {
+                //崩溃时最后一条记录可能不完整，但长度损坏时可能把后面的SESSION也读进来了.
+                if (!mSessionStarted || !resync()) return;
+            } catch (IOException e) {
+                //还没有读到过SESSION时不是二进制日志文件.
+                if (!mSessionStarted) throw e;
+                if (!resync()) return;
+            }
+        }
+    }
+
+    /**
+     * 从损坏记录的第二个字节开始查找下一个SESSION头，找到时放回去由下一次循环读取.
+     *
+     * @return 是否找到.
+     */
+    private boolean resync() throws IOException {
+        unread(mRecord, 1, mRecordLength - 1);
+        int matched = 0;
+        int b;
+        while ((b = readRaw()) != -1) {
+            if (b == SESSION_HEADER[matched]) {
+                if (++matched == SESSION_HEADER.length) {
+                    unread(SESSION_HEADER, 0, SESSION_HEADER.length);
+                    return true;
+                }
+            } else {
+                matched = b == SESSION_HEADER[0] ? 1 : 0;
+            }
+        }
+        return false;
+    }
+
+    private void readSession() throws IOException {
+        for (byte b : LogBinaryEncoder.MAGIC) {
+            if (readByte() != b) throw new IOException("Not a binary log file.");
+        }
+        final int version = readByte();
+        if (version > LogBinaryEncoder.VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        mBorder = (readByte() & LogBinaryEncoder.FLAG_BORDER) != 0;
+        mLastTime = readVarLong();
+        mZoneOffset = unZigZag(readVarLong());
+        mStrings.clear();
+        mSessionStarted = true;
+    }
+
+    private void readString() throws IOException {
+        //编码器按顺序分配编号，跳号说明数据损坏.
+        final long id = readVarLong();
+        if (id < 0 || id > mStrings.size()) throw new IOException("Illegal string id: " + id);
+        final String value = readUtf8();
+        if (id == mStrings.size()) {
+            mStrings.add(value);
+        } else {
+            mStrings.set((int) id, value);
+        }
+    }
+
+    /**
+     * 读取一条日志并格式化到mText中，由调用者在确认记录完整后输出.
+     */
+    private void readEvent() throws IOException {
+        final long time = mLastTime + unZigZag(readVarLong());
+        final String tag = string(readVarLong());
+        final String thread = string(readVarLong());
+        final String location = string(readVarLong());
+        final String msg = readUtf8();
+        mLastTime = time;
+
+        //与LogFileWriter的文本格式一致.
+        final StringBuilder text = mText;
+        text.setLength(0);
+        if (mBorder) {
+            text.append(LogUtils.TOP_BORDER).append(LINE_SEPARATOR);
+        }
+        mDate.setTime(time + mZoneOffset);
+        text.append(mTimeFormat.format(mDate))
+                .append(tag)
+                .append(": ")
+                .append("Thread: ")
+                .append(thread)
+                .append(", ")
+                .append(location)
+                .append(LINE_SEPARATOR);
+        if (mBorder) {
+            appendBorderLines(text, msg);
+        } else {
+            text.append(msg);
+        }
+        text.append(LINE_SEPARATOR);
+        if (mBorder) {
+            text.append(LogUtils.BOTTOM_BORDER).append(LINE_SEPARATOR);
+        }
+    }
+
+    private String string(long id) throws IOException {
+        if (id < 0 || id >= mStrings.size()) {
+            throw new IOException("Undefined string id: " + id);
+        }
+        return mStrings.get((int) id);
+    }
+
+    private String readUtf8() throws IOException {
+        final long length = readVarLong();
+        if (length < 0 || length > Integer.MAX_VALUE) throw new IOException("Illegal length: " + length);
+        //长度可能已经损坏，随读取的数据扩容，不按长度预先分配.
+        int offset = 0;
+        while (offset < length) {
+            if (offset == mBytes.length) {
+                mBytes = Arrays.copyOf(mBytes, (int) Math.min(length, mBytes.length * 2L));
+            }
+            final int count = readBytes(mBytes, offset, (int) Math.min(length, mBytes.length) - offset);
+            if (count < 0) throw new EOFException();
+            offset += count;
+        }
+        return new String(mBytes, 0, offset, UTF_8);
+    }
+
+    private static int indexOfSessionHeader(byte[] data, int from, int to) {
+        for (int i = from, last = to - SESSION_HEADER.length; i <= last; i++) {
+            if (data[i] != SESSION_HEADER[0]) continue;
+            int k = 1;
+            while (k < SESSION_HEADER.length && data[i + k] == SESSION_HEADER[k]) {
+                k++;
+            }
+            if (k == SESSION_HEADER.length) return i;
+        }
+        return -1;
+    }
+
+    private int readByte() throws IOException {
+        final int b = read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+
+    /**
+     * 读取一个字节并记录到当前记录中.
+     */
+    private int read() throws IOException {
+        final int b = readRaw();
+        if (b >= 0) {
+            if (mRecordLength == mRecord.length) {
+                mRecord = Arrays.copyOf(mRecord, mRecord.length * 2);
+            }
+            mRecord[mRecordLength++] = (byte) b;
+        }
+        return b;
+    }
+
+    /**
+     * 读取多个字节并记录到当前记录中.
+     */
+    private int readBytes(byte[] b, int offset, int length) throws IOException {
+        final int count;
+        if (mReplayPosition < mReplay.length) {
+            count = Math.min(length, mReplay.length - mReplayPosition);
+            System.arraycopy(mReplay, mReplayPosition, b, offset, count);
+            mReplayPosition += count;
+        } else {
+            count = mInput.read(b, offset, length);
+            if (count < 0) return count;
+        }
+        if (mRecord.length - mRecordLength < count) {
+            mRecord = Arrays.copyOf(mRecord, Math.max(mRecord.length * 2, mRecordLength + count));
+        }
+        System.arraycopy(b, offset, mRecord, mRecordLength, count);
+        mRecordLength += count;
+        return count;
+    }
+
+    /**
+     * 先读放回去的字节，不记录.
+     */
+    private int readRaw() throws IOException {
+        if (mReplayPosition < mReplay.length) {
+            return mReplay[mReplayPosition++] & 0xFF;
+        }
+        return mInput.read();
+    }
+
+    /**
+     * 把字节放回到还没读取的字节前面.
+     */
+    private void unread(byte[] b, int offset, int length) {
+        if (length <= 0) return;
+        final int remaining = mReplay.length - mReplayPosition;
+        final byte[] replay = new byte[length + remaining];
+        System.arraycopy(b, offset, replay, 0, length);
+        System.arraycopy(mReplay, mReplayPosition, replay, length, remaining);
+        mReplay = replay;
+        mReplayPosition = 0;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 与{@link LogUtils}中按行加左边框的规则一致，这里固定使用'\n'分行.
+     */
+    private static void appendBorderLines(StringBuilder sb, String msg) {
+        int end = msg.length();
+        if (end > 0) {
+            while (end > 0 && msg.charAt(end - 1) == '\n') {
+                end--;
+            }
+            if (end == 0) return;
+        }
+        int start = 0;
+        while (true) {
+            int index = msg.indexOf('\n', start);
+            if (index < 0 || index >= end) {
+                sb.append(LogUtils.LEFT_BORDER).append(msg, start, end).append(LINE_SEPARATOR);
+                return;
+            }
+            sb.append(LogUtils.LEFT_BORDER).append(msg, start, index).append(LINE_SEPARATOR);
+            start = index + 1;
+        }
+    }
+
+}
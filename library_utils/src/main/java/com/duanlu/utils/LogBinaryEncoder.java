@@ -0,0 +1,179 @@
+package com.duanlu.utils;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/********************************
+ * @name LogBinaryEncoder
+ * @author 段露
+ * @createDate 2026/10/18 15:10
+ * @updateDate 2026/10/18 15:10
+ * @version V1.0.0
+ * @describe 日志二进制格式编码器，只在日志写入线程中使用.
+ * 格式见{@link LogBinaryDecoder}.
+ ********************************/
+final class LogBinaryEncoder {
+
+    static final byte[] MAGIC = {'D', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+    static final int FLAG_BORDER = 0x01;
+
+    static final int TYPE_SESSION = 0x01;
+    static final int TYPE_STRING = 0x02;
+    static final int TYPE_EVENT = 0x03;
+    static final int TYPE_ZONE = 0x04;
+    static final int RECORD_END = '\n';
+
+    private static final int MAX_STRINGS = 4096;//字符串表超过此大小时开始新的会话.
+
+    private final boolean mBorder;
+    private final Map<String, Integer> mStrings = new HashMap<>();
+    private ByteBuffer mBuffer = ByteBuffer.allocate(4096);
+    private boolean mSessionStarted;
+    private long mLastTime;
+    private int mZoneOffset;
+
+    LogBinaryEncoder(boolean border) {
+        this.mBorder = border;
+    }
+
+    /**
+     * 开始新的会话，下一条日志会重新写入会话头和字符串表，在切换到新文件时调用.
+     */
+    void reset() {
+        mSessionStarted = false;
+        mStrings.clear();
+    }
+
+    /**
+     * 编码一条日志，返回的ByteBuffer在下次调用前有效.
+     *
+     * @param zoneOffset 日志时间所在时区相对UTC的偏移(毫秒).
+     */
+    ByteBuffer encode(LogRecord record, int zoneOffset) {
+        mBuffer.clear();
+        if (!mSessionStarted || mStrings.size() + 3 > MAX_STRINGS) {
+            mStrings.clear();
+            ensure(16 + 2 * 10);
+            mBuffer.put((byte) TYPE_SESSION);
+            mBuffer.put(MAGIC);
+            mBuffer.put((byte) VERSION);
+            mBuffer.put((byte) (mBorder ? FLAG_BORDER : 0));
+            putVarLong(mBuffer, record.time);
+            putVarLong(mBuffer, zigZag(zoneOffset));
+            mBuffer.put((byte) RECORD_END);
+            mSessionStarted = true;
+            mLastTime = record.time;
+            mZoneOffset = zoneOffset;
+        } else if (zoneOffset != mZoneOffset) {
+            ensure(2 + 10);
+            mBuffer.put((byte) TYPE_ZONE);
+            putVarLong(mBuffer, zigZag(zoneOffset));
+            mBuffer.put((byte) RECORD_END);
+            mZoneOffset = zoneOffset;
+        }
+        final int tagId = intern(record.tag);
+        final int threadId = intern(record.thread);
+        final int locationId = intern(record.location);
+        final String msg = record.msg;
+        final int length = utf8Length(msg);
+        ensure(2 + 10 + 3 * 5 + 5 + length);
+        mBuffer.put((byte) TYPE_EVENT);
+        //多线程写入的日志时间可能略有回退，所以用zigzag编码的差值.
+        putVarLong(mBuffer, zigZag(record.time - mLastTime));
+        putVarLong(mBuffer, tagId);
+        putVarLong(mBuffer, threadId);
+        putVarLong(mBuffer, locationId);
+        putVarLong(mBuffer, length);
+        putUtf8(mBuffer, msg);
+        mBuffer.put((byte) RECORD_END);
+        mLastTime = record.time;
+        mBuffer.flip();
+        return mBuffer;
+    }
+
+    /**
+     * 返回字符串的编号，第一次出现时写入定义.
+     */
+    private int intern(String value) {
+        if (null == value) value = "null";
+        Integer id = mStrings.get(value);
+        if (null != id) return id;
+        id = mStrings.size();
+        mStrings.put(value, id);
+        final int length = utf8Length(value);
+        ensure(2 + 5 + 5 + length);
+        mBuffer.put((byte) TYPE_STRING);
+        putVarLong(mBuffer, id);
+        putVarLong(mBuffer, length);
+        putUtf8(mBuffer, value);
+        mBuffer.put((byte) RECORD_END);
+        return id;
+    }
+
+    private void ensure(int length) {
+        if (mBuffer.remaining() >= length) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(mBuffer.capacity() * 2, mBuffer.position() + length));
+        mBuffer.flip();
+        larger.put(mBuffer);
+        mBuffer = larger;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;//单独的代理字符与文本格式一样替换为'?'.
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putUtf8(ByteBuffer buffer, String value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+}
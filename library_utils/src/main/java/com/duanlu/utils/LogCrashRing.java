@@ -0,0 +1,173 @@
+package com.duanlu.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/********************************
+ * @name LogCrashRing
+ * @author 段露
+ * @createDate 2026/10/18 17:30
+ * @updateDate 2026/10/19 05:00
+ * @version V1.0.0
+ * @describe 崩溃现场日志环.
+ * 开启后预先分配固定数量的槽位并循环复用，保存最近N条日志(包括被过滤掉的级别)，崩溃时同步写入预先打开的崩溃文件.
+ * 日志内容在记录时就取快照：String和装箱的基本类型直接保存，其他对象立即转为String，
+ * 不持有调用者的对象，崩溃时也不会执行调用者的toString().
+ * 每个槽位带一个版本号(奇数表示正在写入)，写入者CAS抢到槽位后才写，读取时前后版本号相同才算读到完整的记录.
+ ********************************/
+final class LogCrashRing {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private volatile Slot[] mSlots;//为null时不记录.
+    private final AtomicLong mNext = new AtomicLong();
+
+    private RandomAccessFile mFile;
+    private FileChannel mChannel;
+    private final SimpleDateFormat mTimeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.getDefault());
+    private final Date mDate = new Date();
+
+    /**
+     * 设置保存的条数，会向上取整为2的幂，小于等于0表示关闭.
+     */
+    synchronized void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            mSlots = null;
+            return;
+        }
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        final Slot[] slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mNext.set(0);
+        mSlots = slots;
+    }
+
+    boolean isEnabled() {
+        return null != mSlots;
+    }
+
+    /**
+     * @param message 日志内容的快照，只能是String或装箱的基本类型，见{@link LogUtils#ringSnapshot(Object[])}.
+     */
+    void add(char level, String tag, Object message) {
+        final Slot[] slots = mSlots;
+        if (null == slots) return;
+        final long sequence = mNext.getAndIncrement();
+        final Slot slot = slots[(int) sequence & (slots.length - 1)];
+        final long version = slot.version.get();
+        //另一个线程正在写这个槽位(已经绕了一圈)，放弃这一条，不等待.
+        if ((version & 1) != 0 || !slot.version.compareAndSet(version, version + 1)) return;
+        if (slot.sequence < sequence) {
+            slot.sequence = sequence;
+            slot.time = System.currentTimeMillis();
+            slot.level = level;
+            slot.tag = tag;
+            slot.thread = Thread.currentThread().getName();
+            slot.message = message;
+        }
+        slot.version.set(version + 2);
+    }
+
+    /**
+     * 预先打开崩溃文件，崩溃时不再需要创建文件.
+     */
+    synchronized void open(File file) throws IOException {
+        close();
+        File parent = file.getParentFile();
+        if (null != parent && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("mkdirs failed: " + parent);
+        }
+        mFile = new RandomAccessFile(file, "rw");
+        mChannel = mFile.getChannel();
+    }
+
+    synchronized void close() {
+        CloseUtils.closeIOQuietly(mFile);
+        mFile = null;
+        mChannel = null;
+    }
+
+    /**
+     * 把异常和最近的日志同步追加到崩溃文件.
+     */
+    synchronized boolean dump(Thread thread, Throwable e) {
+        if (null == mChannel) return false;
+        final String sep = LogUtils.LINE_SEPARATOR;
+        final StringBuilder sb = new StringBuilder(16 * 1024);
+        mDate.setTime(System.currentTimeMillis());
+        sb.append("======== crash at ").append(mTimeFormat.format(mDate))
+                .append(", thread: ").append(null == thread ? null : thread.getName())
+                .append(" ========").append(sep);
+        if (null != e) {
+            StringWriter sw = new StringWriter();
+            e.printStackTrace(new PrintWriter(sw));
+            sb.append(sw).append(sep);
+        }
+        final Slot[] slots = mSlots;
+        final long end = null == slots ? 0 : mNext.get();
+        final long start = null == slots ? 0 : Math.max(0, end - slots.length);
+        sb.append("-------- last ").append(end - start).append(" log(s) --------").append(sep);
+        for (long sequence = start; sequence < end; sequence++) {
+            final Slot slot = slots[(int) sequence & (slots.length - 1)];
+            final long version = slot.version.get();
+            if ((version & 1) != 0) continue;//正在写入.
+            final long recordSequence = slot.sequence;
+            final long time = slot.time;
+            final char level = slot.level;
+            final String tag = slot.tag;
+            final String threadName = slot.thread;
+            final Object message = slot.message;
+            //读取期间被改写，或还没写入、已经被更新的日志覆盖.
+            if (slot.version.get() != version || recordSequence != sequence) continue;
+            mDate.setTime(time);
+            sb.append(mTimeFormat.format(mDate)).append(' ')
+                    .append(level).append('/').append(tag)
+                    .append('(').append(threadName).append("): ")
+                    .append(message).append(sep);
+        }
+        sb.append(sep);
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(UTF_8));
+            long position = mChannel.size();
+            while (buffer.hasRemaining()) {
+                position += mChannel.write(buffer, position);
+            }
+            mChannel.force(true);
+            return true;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 预先分配、循环复用的槽位.
+     * 字段都是volatile，保证读取者在前后两次读到相同的偶数版本号时，中间读到的字段属于同一条记录.
+     */
+    private static final class Slot {
+
+        final AtomicLong version = new AtomicLong();
+        volatile long sequence = -1;
+        volatile long time;
+        volatile char level;
+        volatile String tag;
+        volatile String thread;
+        volatile Object message;
+    }
+
+}
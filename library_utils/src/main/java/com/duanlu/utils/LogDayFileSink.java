@@ -0,0 +1,104 @@
+package com.duanlu.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/********************************
+ * @name LogDayFileSink
+ * @author 段露
+ * @createDate 2026/10/18 14:20
+ * @updateDate 2026/10/18 14:20
+ * @version V1.0.0
+ * @describe 每天一个日志文件(yyyy-MM-dd.txt或yyyy-MM-dd.bin)，通过FileChannel追加写入.
+ ********************************/
+final class LogDayFileSink implements LogSink {
+
+    private final String mFolder;
+    private final String mSuffix;
+    private final ByteBuffer mBuffer;
+
+    private String mDay;
+    private String mPath;
+    private FileOutputStream mStream;
+    private FileChannel mChannel;
+
+    LogDayFileSink(String folder, String suffix, int bufferSize) {
+        this.mFolder = folder;
+        this.mSuffix = suffix;
+        this.mBuffer = ByteBuffer.allocateDirect(Math.max(1024, bufferSize));
+    }
+
+    @Override
+    public boolean prepare(String day, int length) throws IOException {
+        if (null == mChannel || !day.equals(mDay)) {
+            open(day);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        if (src.remaining() > mBuffer.remaining()) {
+            flush();
+            if (src.remaining() > mBuffer.capacity()) {
+                while (src.hasRemaining()) {
+                    mChannel.write(src);
+                }
+                return;
+            }
+        }
+        mBuffer.put(src);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (null == mChannel) return;
+        mBuffer.flip();
+        try {
+            while (mBuffer.hasRemaining()) {
+                mChannel.write(mBuffer);
+            }
+        } finally {
+            mBuffer.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (null != mChannel) {
+            try {
+                flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        CloseUtils.closeIOQuietly(mStream);
+        mStream = null;
+        mChannel = null;
+        mDay = null;
+        mBuffer.clear();
+    }
+
+    @Override
+    public String getPath() {
+        return mPath;
+    }
+
+    private void open(String day) throws IOException {
+        close();
+        mPath = mFolder + day + mSuffix;
+        File file = new File(mPath);
+        File parent = file.getParentFile();
+        if (null != parent && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("mkdirs failed: " + parent);
+        }
+        mStream = new FileOutputStream(file, true);
+        mChannel = mStream.getChannel();
+        mDay = day;
+    }
+
+}
@@ -0,0 +1,336 @@
+package com.duanlu.utils;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/********************************
+ * @name LogFileWriter
+ * @author 段露
+ * @createDate 2026/10/18 10:02
+ * @updateDate 2026/10/18 10:02
+ * @version V1.0.0
+ * @describe 日志文件异步写入器.
+ * 调用线程只负责把日志放入有界无锁队列，由唯一的后台线程按顺序格式化(文本或{@link LogBinaryEncoder}二进制格式)后交给{@link LogSink}写入.
+ * 按字节数和时间间隔批量flush.
+ ********************************/
+final class LogFileWriter implements Runnable {
+
+    private static final String TAG = "LogFileWriter";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_DRAIN_BATCH = 256;//单次最多连续写入的条数，写完后检查一次flush条件.
+
+    private final LogSink mSink;
+    private final LogBinaryEncoder mBinaryEncoder;//为null时写文本格式.
+    private final boolean mBorder;
+    private final int mOverflowPolicy;
+    private final int mFlushBytes;
+    private final long mFlushIntervalNanos;
+
+    private final LogRingQueue<LogRecord> mQueue;
+    private final Thread mThread;
+    private volatile boolean mRunning = true;
+    private volatile boolean mParked;
+
+    private final AtomicLong mDropped = new AtomicLong();
+    private final AtomicLong mFlushRequests = new AtomicLong();
+    private volatile long mFlushed;
+    private final Object mFlushLock = new Object();
+
+    //以下字段只在写入线程中访问.
+    private final SimpleDateFormat mDayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    private final SimpleDateFormat mTimeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS ", Locale.getDefault());
+    private final Date mDate = new Date();
+    private final Calendar mCalendar = Calendar.getInstance();
+    private long mDayStart = Long.MAX_VALUE;
+    private long mDayEnd = Long.MIN_VALUE;
+    private String mDay;
+    private final StringBuilder mText = new StringBuilder(1024);
+    private char[] mChars = new char[1024];
+    private CharBuffer mCharBuffer = CharBuffer.wrap(mChars);
+    private ByteBuffer mBytes = ByteBuffer.allocate(4096);
+    private final CharsetEncoder mEncoder = UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private int mUnflushed;
+    private long mLastFlushNanos;
+
+    LogFileWriter(LogSink sink, boolean binary, boolean border, int capacity, int overflowPolicy, int flushBytes, long flushIntervalMillis) {
+        this.mSink = sink;
+        this.mBinaryEncoder = binary ? new LogBinaryEncoder(border) : null;
+        this.mBorder = border;
+        this.mOverflowPolicy = overflowPolicy;
+        this.mFlushBytes = Math.max(1024, flushBytes);
+        this.mFlushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.mQueue = new LogRingQueue<>(Math.max(2, capacity));
+        this.mThread = new Thread(this, "LogUtils-FileWriter");
+        this.mThread.setDaemon(true);
+        this.mThread.start();
+    }
+
+    /**
+     * 放入一条日志，队列满时按溢出策略处理.
+     */
+    void enqueue(LogRecord record) {
+        if (!mRunning) return;
+        if (!mQueue.offer(record)) {
+            switch (mOverflowPolicy) {
+                case LogUtils.OVERFLOW_DROP_NEWEST:
+                    mDropped.incrementAndGet();
+                    return;
+                case LogUtils.OVERFLOW_BLOCK:
+                    while (!mQueue.offer(record)) {
+                        if (!mRunning) return;
+                        LockSupport.unpark(mThread);
+                        LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    }
+                    break;
+                case LogUtils.OVERFLOW_DROP_OLDEST:
+                default:
+                    while (!mQueue.offer(record)) {
+                        if (null != mQueue.poll()) {
+                            mDropped.incrementAndGet();
+                        }
+                    }
+                    break;
+            }
+        }
+        if (mParked) {
+            LockSupport.unpark(mThread);
+        }
+    }
+
+    /**
+     * 等待调用之前放入的日志全部写入文件.
+     *
+     * @param timeoutMillis 最长等待时间.
+     * @return 超时或写入器已停止返回false.
+     */
+    boolean flush(long timeoutMillis) {
+        if (Thread.currentThread() == mThread || !mThread.isAlive()) return false;
+        final long target = mFlushRequests.incrementAndGet();
+        LockSupport.unpark(mThread);
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (mFlushLock) {
+            while (mFlushed < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !mThread.isAlive()) return false;
+                try {
+                    mFlushLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 停止接收新日志，写完队列中剩余日志后关闭文件.
+     *
+     * @param timeoutMillis 最长等待时间.
+     * @return 是否在超时之前完成.
+     */
+    boolean shutdown(long timeoutMillis) {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        if (Thread.currentThread() == mThread) return false;
+        try {
+            mThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !mThread.isAlive();
+    }
+
+    @Override
+    public void run() {
+        mLastFlushNanos = System.nanoTime();
+        while (true) {
+            final long flushRequest = mFlushRequests.get();
+            final boolean running = mRunning;
+            drain();
+            if (mUnflushed > 0 && (!running
+                    || flushRequest > mFlushed
+                    || System.nanoTime() - mLastFlushNanos >= mFlushIntervalNanos)) {
+                flushWriter();
+            }
+            if (flushRequest > mFlushed) {
+                synchronized (mFlushLock) {
+                    mFlushed = flushRequest;
+                    mFlushLock.notifyAll();
+                }
+            }
+            if (!running) {
+                if (mQueue.isEmpty()) break;
+                continue;
+            }
+            mParked = true;
+            if (mQueue.isEmpty() && mRunning && mFlushRequests.get() == flushRequest) {
+                LockSupport.parkNanos(this, mFlushIntervalNanos);
+            }
+            mParked = false;
+        }
+        closeFile();
+        synchronized (mFlushLock) {
+            mFlushLock.notifyAll();
+        }
+    }
+
+    private void drain() {
+        LogRecord record;
+        int count = 0;
+        while (null != (record = mQueue.poll())) {
+            write(record);
+            if (mUnflushed >= mFlushBytes) {
+                flushWriter();
+            }
+            if (++count >= MAX_DRAIN_BATCH) {
+                count = 0;
+                writeDroppedIfNeed(record.time);
+            }
+        }
+        writeDroppedIfNeed(System.currentTimeMillis());
+    }
+
+    private void writeDroppedIfNeed(long time) {
+        final long dropped = mDropped.getAndSet(0);
+        if (dropped > 0) {
+            write(new LogRecord(time, TAG, mThread.getName(), TAG,
+                    "dropped " + dropped + " log(s) because the queue was full."));
+        }
+    }
+
+    private void write(LogRecord record) {
+        updateDay(record.time);
+        ByteBuffer bytes = encode(record);
+        try {
+            if (mSink.prepare(mDay, bytes.remaining()) && null != mBinaryEncoder) {
+                //新文件需要重新写入会话头和字符串表.
+                mBinaryEncoder.reset();
+                bytes = encode(record);
+            }
+            mUnflushed += bytes.remaining();
+            mSink.write(bytes);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(record.tag, "log to " + mSink.getPath() + " failed!");
+            mSink.close();
+        }
+    }
+
+    private ByteBuffer encode(LogRecord record) {
+        if (null != mBinaryEncoder) {
+            return mBinaryEncoder.encode(record, mCalendar.getTimeZone().getOffset(record.time));
+        }
+        mDate.setTime(record.time);
+        final StringBuilder text = mText;
+        text.setLength(0);
+        if (mBorder) {
+            text.append(LogUtils.TOP_BORDER).append(LogUtils.LINE_SEPARATOR);
+        }
+        text.append(mTimeFormat.format(mDate))
+                .append(record.tag)
+                .append(": ")
+                .append("Thread: ")
+                .append(record.thread)
+                .append(", ")
+                .append(record.location)
+                .append(LogUtils.LINE_SEPARATOR);
+        if (mBorder) {
+            LogUtils.appendBorderLines(text, record.msg);
+        } else {
+            text.append(record.msg);
+        }
+        text.append(LogUtils.LINE_SEPARATOR);
+        if (mBorder) {
+            text.append(LogUtils.BOTTOM_BORDER).append(LogUtils.LINE_SEPARATOR);
+        }
+        final ByteBuffer bytes = encodeText(text);
+        if (text.capacity() > 64 * 1024) {
+            text.setLength(0);
+            text.trimToSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * 计算time所在的日期，跨天时更新.
+     */
+    private void updateDay(long time) {
+        if (null != mDay && time >= mDayStart && time < mDayEnd) return;
+        mCalendar.setTimeInMillis(time);
+        mCalendar.set(Calendar.HOUR_OF_DAY, 0);
+        mCalendar.set(Calendar.MINUTE, 0);
+        mCalendar.set(Calendar.SECOND, 0);
+        mCalendar.set(Calendar.MILLISECOND, 0);
+        mDayStart = mCalendar.getTimeInMillis();
+        mCalendar.add(Calendar.DAY_OF_MONTH, 1);
+        mDayEnd = mCalendar.getTimeInMillis();
+        mDate.setTime(time);
+        mDay = mDayFormat.format(mDate);
+    }
+
+    /**
+     * 把text编码为UTF-8，返回的ByteBuffer在下次调用前有效.
+     */
+    private ByteBuffer encodeText(StringBuilder text) {
+        final int length = text.length();
+        if (mChars.length < length) {
+            mChars = new char[Math.max(length, mChars.length * 2)];
+            mCharBuffer = CharBuffer.wrap(mChars);
+        }
+        text.getChars(0, length, mChars, 0);
+        final CharBuffer in = mCharBuffer;
+        in.clear();
+        in.limit(length);
+        ByteBuffer out = mBytes;
+        out.clear();
+        mEncoder.reset();
+        while (true) {
+            CoderResult result = mEncoder.encode(in, out, true);
+            if (result.isUnderflow()) {
+                result = mEncoder.flush(out);
+            }
+            if (result.isUnderflow()) break;
+            ByteBuffer larger = ByteBuffer.allocate(out.capacity() * 2);
+            out.flip();
+            larger.put(out);
+            out = larger;
+            mBytes = larger;
+        }
+        out.flip();
+        return out;
+    }
+
+    private void flushWriter() {
+        mUnflushed = 0;
+        mLastFlushNanos = System.nanoTime();
+        try {
+            mSink.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            mSink.close();
+        }
+    }
+
+    private void closeFile() {
+        mSink.close();
+    }
+
+}
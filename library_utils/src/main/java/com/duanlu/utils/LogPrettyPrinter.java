@@ -0,0 +1,333 @@
+package com.duanlu.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/********************************
+ * @name LogPrettyPrinter
+ * @author 段露
+ * @createDate 2026/10/18 16:05
+ * @updateDate 2026/10/18 16:05
+ * @version V1.0.0
+ * @describe JSON/XML流式缩进.
+ * 逐字符读取并直接输出缩进后的内容，不解析成JSONObject或DOM，输出超过最大长度时截断并停止读取.
+ * 不校验语法，格式错误的内容也会尽量缩进输出.
+ ********************************/
+final class LogPrettyPrinter {
+
+    private static final String INDENT = "    ";
+    private static final String TRUNCATED = "...(truncated)";
+
+    private final Reader mReader;
+    private final char[] mBuffer = new char[8 * 1024];
+    private int mPosition;
+    private int mLimit;
+
+    private final StringBuilder mOutput;
+    private final int mStart;
+    private final int mMaxLength;
+    private final String mLineSeparator;
+    private boolean mTruncated;
+
+    private LogPrettyPrinter(Reader reader, StringBuilder output, int maxLength, String lineSeparator) {
+        this.mReader = reader;
+        this.mOutput = output;
+        this.mStart = output.length();
+        this.mMaxLength = maxLength > 0 ? output.length() + maxLength : Integer.MAX_VALUE;
+        this.mLineSeparator = lineSeparator;
+    }
+
+    /**
+     * 缩进JSON，不是以'{'或'['开头时原样输出.
+     *
+     * @param reader    输入，不会关闭.
+     * @param output    输出.
+     * @param maxLength 最多输出的字符数，小于等于0表示不限制.
+     * @param lineSeparator 换行符.
+     */
+    static void formatJson(Reader reader, StringBuilder output, int maxLength, String lineSeparator) throws IOException {
+        new LogPrettyPrinter(reader, output, maxLength, lineSeparator).formatJson();
+    }
+
+    /**
+     * 缩进XML，不是以'<'开头时原样输出.
+     *
+     * @param reader    输入，不会关闭.
+     * @param output    输出.
+     * @param maxLength 最多输出的字符数，小于等于0表示不限制.
+     * @param lineSeparator 换行符.
+     */
+    static void formatXml(Reader reader, StringBuilder output, int maxLength, String lineSeparator) throws IOException {
+        new LogPrettyPrinter(reader, output, maxLength, lineSeparator).formatXml();
+    }
+
+    private void formatJson() throws IOException {
+        int c = skipWhitespace();
+        if (c != '{' && c != '[') {
+            copyRest(c);
+            return;
+        }
+        int depth = 0;
+        boolean open = false;//刚输出'{'或'['，还不确定是否为空.
+        for (; c != -1 && !mTruncated; c = read()) {
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    break;
+                case '{':
+                case '[':
+                    if (open) newLine(depth);
+                    append((char) c);
+                    depth++;
+                    open = true;
+                    break;
+                case '}':
+                case ']':
+                    depth = Math.max(0, depth - 1);
+                    if (!open) newLine(depth);
+                    append((char) c);
+                    open = false;
+                    break;
+                case ',':
+                    append(',');
+                    newLine(depth);
+                    break;
+                case ':':
+                    append(':');
+                    append(' ');
+                    break;
+                case '"':
+                    if (open) newLine(depth);
+                    open = false;
+                    append('"');
+                    copyJsonString();
+                    break;
+                default:
+                    if (open) newLine(depth);
+                    open = false;
+                    append((char) c);
+                    break;
+            }
+        }
+        appendTruncatedIfNeed();
+    }
+
+    /**
+     * 原样复制字符串剩余部分(开头的引号已输出).
+     */
+    private void copyJsonString() throws IOException {
+        boolean escape = false;
+        int c;
+        while ((c = read()) != -1 && !mTruncated) {
+            append((char) c);
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private void formatXml() throws IOException {
+        int c = skipWhitespace();
+        if (c != '<') {
+            copyRest(c);
+            return;
+        }
+        int depth = 0;
+        boolean inline = false;//上一个是开始标签，且之后只有文本，结束标签可以放在同一行.
+        boolean text = false;//正在输出文本.
+        while (c != -1 && !mTruncated) {
+            if (c != '<') {
+                //文本，跳过标签之间的空白.
+                if (Character.isWhitespace(c) && !text) {
+                    c = read();
+                    continue;
+                }
+                if (!text && !inline) newLine(depth);
+                text = true;
+                append((char) c);
+                c = read();
+                continue;
+            }
+            text = false;
+            c = read();
+            if (c == '/') {//结束标签.
+                depth = Math.max(0, depth - 1);
+                if (!inline) newLine(depth);
+                append('<');
+                append('/');
+                copyUntil(">");
+                inline = false;
+            } else if (c == '?') {//声明或处理指令.
+                newLine(depth);
+                append('<');
+                append('?');
+                copyUntil("?>");
+                inline = false;
+            } else if (c == '!') {
+                c = read();
+                if (c == '-') {//注释.
+                    newLine(depth);
+                    append("<!-");
+                    copyUntil("-->");
+                    inline = false;
+                } else if (c == '[') {//CDATA，作为文本.
+                    if (!inline) newLine(depth);
+                    append("<![");
+                    copyUntil("]]>");
+                } else {//DOCTYPE等.
+                    newLine(depth);
+                    append("<!");
+                    if (c != -1) {
+                        append((char) c);
+                        if (c != '>') copyDeclaration();
+                    }
+                    inline = false;
+                }
+            } else {//开始标签.
+                newLine(depth);
+                append('<');
+                if (c != -1) {
+                    append((char) c);
+                    if (c != '>' && copyTag()) {
+                        inline = false;//自闭合标签.
+                    } else {
+                        depth++;
+                        inline = true;
+                    }
+                }
+            }
+            c = read();
+        }
+        appendTruncatedIfNeed();
+    }
+
+    /**
+     * 复制标签剩余部分，属性值中的'>'不作为结束.
+     *
+     * @return 是否为自闭合标签.
+     */
+    private boolean copyTag() throws IOException {
+        int quote = 0;
+        int previous = 0;
+        int c;
+        while ((c = read()) != -1 && !mTruncated) {
+            append((char) c);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return previous == '/';
+            }
+            previous = c;
+        }
+        return false;
+    }
+
+    /**
+     * 复制DOCTYPE等声明，内部的[...]中可能包含'>'.
+     */
+    private void copyDeclaration() throws IOException {
+        int brackets = 0;
+        int c;
+        while ((c = read()) != -1 && !mTruncated) {
+            append((char) c);
+            if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if (c == '>' && brackets <= 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 复制直到end(包含end)为止.
+     */
+    private void copyUntil(String end) throws IOException {
+        final int last = end.length() - 1;
+        final char lastChar = end.charAt(last);
+        int c;
+        while ((c = read()) != -1 && !mTruncated) {
+            append((char) c);
+            if (c == lastChar && endsWith(end)) return;
+        }
+    }
+
+    private boolean endsWith(String end) {
+        final int length = mOutput.length();
+        final int count = end.length();
+        if (length < count) return false;
+        for (int i = 0; i < count; i++) {
+            if (mOutput.charAt(length - count + i) != end.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void copyRest(int c) throws IOException {
+        for (; c != -1 && !mTruncated; c = read()) {
+            append((char) c);
+        }
+        appendTruncatedIfNeed();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (mPosition >= mLimit) {
+            mLimit = mReader.read(mBuffer, 0, mBuffer.length);
+            mPosition = 0;
+            if (mLimit <= 0) {
+                mLimit = 0;
+                return -1;
+            }
+        }
+        return mBuffer[mPosition++];
+    }
+
+    private void newLine(int depth) {
+        if (mOutput.length() == mStart) return;
+        append(mLineSeparator);
+        for (int i = 0; i < depth; i++) {
+            append(INDENT);
+        }
+    }
+
+    private void append(char c) {
+        if (mOutput.length() >= mMaxLength) {
+            mTruncated = true;
+            return;
+        }
+        mOutput.append(c);
+    }
+
+    private void append(String s) {
+        final int remaining = mMaxLength - mOutput.length();
+        if (s.length() > remaining) {
+            mOutput.append(s, 0, Math.max(0, remaining));
+            mTruncated = true;
+            return;
+        }
+        mOutput.append(s);
+    }
+
+    private void appendTruncatedIfNeed() {
+        if (mTruncated) {
+            mOutput.append(mLineSeparator).append(TRUNCATED);
+        }
+    }
+
+}
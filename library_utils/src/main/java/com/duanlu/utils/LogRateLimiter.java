@@ -0,0 +1,245 @@
+package com.duanlu.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/********************************
+ * @name LogRateLimiter
+ * @author 段露
+ * @createDate 2026/10/18 16:50
+ * @updateDate 2026/10/19 06:00
+ * @version V1.0.0
+ * @describe 日志限流和采样.
+ * 在格式化之前决定是否输出：按tag的令牌桶限流(GCRA算法，一个AtomicLong即可表示桶状态)，按级别每N条取1条.
+ * 所有判断都是常数时间的CAS操作，不加锁.
+ * 被丢弃的条数在同一tag/级别下一条通过时附带输出；之后不再有日志时，由后台线程在间隔到期后通过{@link SummaryListener}输出，
+ * 也可以调用{@link #drainPending(boolean)}立即输出.
+ ********************************/
+final class LogRateLimiter {
+
+    static final long REJECTED = -1;
+
+    private static final int MAX_KEYS = 1024;
+    private static final int LEVEL_COUNT = 6;
+    private static final long MIN_SUMMARY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static volatile ScheduledThreadPoolExecutor sScheduler;
+
+    private final ConcurrentHashMap<String, Bucket> mBuckets = new ConcurrentHashMap<>();
+    private final AtomicLongArray mSampleCounters = new AtomicLongArray(LEVEL_COUNT);
+    private final AtomicLongArray mSampleSuppressed = new AtomicLongArray(LEVEL_COUNT);
+    private final AtomicLongArray mSampleSummaries = new AtomicLongArray(LEVEL_COUNT);
+    private final AtomicIntegerArray mSampleRates = new AtomicIntegerArray(LEVEL_COUNT);
+
+    private volatile long mEmissionIntervalNanos;//每条日志消耗的时间，0表示不限流.
+    private volatile long mBurstNanos;//允许的突发量对应的时间.
+    private volatile long mSummaryIntervalNanos;
+    private volatile SummaryListener mListener;
+    private final AtomicBoolean mSummaryScheduled = new AtomicBoolean();
+    private final Runnable mSummaryTask = new Runnable() {
+        @Override
+        public void run() {
+            mSummaryScheduled.set(false);
+            if (drainPending(false)) scheduleSummary();
+        }
+    };
+
+    void setSummaryListener(SummaryListener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * 设置每个tag的限流.
+     *
+     * @param permitsPerSecond      每秒允许的条数，小于等于0表示不限流.
+     * @param burst                 允许的突发条数.
+     * @param summaryIntervalMillis 两次输出"suppressed N"提示的最小间隔.
+     */
+    void setRate(double permitsPerSecond, int burst, long summaryIntervalMillis) {
+        if (permitsPerSecond <= 0) {
+            mEmissionIntervalNanos = 0;
+            mBurstNanos = 0;
+        } else {
+            long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            mEmissionIntervalNanos = interval;
+            mBurstNanos = interval * Math.max(0, burst - 1);
+        }
+        mSummaryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, summaryIntervalMillis));
+        mBuckets.clear();
+    }
+
+    /**
+     * 设置某个级别每N条输出1条.
+     *
+     * @param levelIndex 级别序号，V为0.
+     * @param oneInN     小于等于1表示不采样.
+     */
+    void setSampling(int levelIndex, int oneInN) {
+        mSampleRates.set(levelIndex, Math.max(1, oneInN));
+        mSampleCounters.set(levelIndex, 0);
+        mSampleSummaries.set(levelIndex, System.nanoTime());
+    }
+
+    /**
+     * 判断是否允许输出.
+     *
+     * @param levelIndex 级别序号，V为0，小于0表示不参与采样.
+     * @param type       日志类型，只用于输出被丢弃条数时{@link SummaryListener}的参数.
+     * @param tag        限流的key.
+     * @return {@link #REJECTED}表示丢弃；否则为需要提示的此前被丢弃的条数.
+     */
+    long acquire(int levelIndex, int type, String tag) {
+        long suppressed = 0;
+        if (levelIndex >= 0) {
+            final int rate = mSampleRates.get(levelIndex);
+            if (rate > 1) {
+                if (mSampleCounters.getAndIncrement(levelIndex) % rate != 0) {
+                    mSampleSuppressed.incrementAndGet(levelIndex);
+                    scheduleSummary();
+                    return REJECTED;
+                }
+                final long now = System.nanoTime();
+                final long last = mSampleSummaries.get(levelIndex);
+                if (now - last >= mSummaryIntervalNanos && mSampleSummaries.compareAndSet(levelIndex, last, now)) {
+                    suppressed = mSampleSuppressed.getAndSet(levelIndex, 0);
+                }
+            }
+        }
+        final long interval = mEmissionIntervalNanos;
+        if (interval == 0) return suppressed;
+
+        final String key = null == tag ? "" : tag;
+        Bucket bucket = mBuckets.get(key);
+        if (null == bucket) {
+            if (mBuckets.size() >= MAX_KEYS) {
+                mBuckets.clear();
+            }
+            Bucket created = new Bucket();
+            bucket = mBuckets.putIfAbsent(key, created);
+            if (null == bucket) bucket = created;
+        }
+        final long now = System.nanoTime();
+        if (!bucket.tryAcquire(now, interval, mBurstNanos)) {
+            //采样已经取出的条数放回去，下次再提示.
+            if (suppressed > 0) mSampleSuppressed.addAndGet(levelIndex, suppressed);
+            bucket.type = type;
+            bucket.suppressed.incrementAndGet();
+            scheduleSummary();
+            return REJECTED;
+        }
+        return suppressed + bucket.drainSuppressed(now, mSummaryIntervalNanos);
+    }
+
+    /**
+     * 通过{@link SummaryListener}输出还没有提示的被丢弃条数.
+     *
+     * @param force 为true时不管距离上次提示的间隔，全部输出，如flush()、shutdown()时.
+     * @return 是否还有因为间隔没到而没有输出的.
+     */
+    boolean drainPending(boolean force) {
+        final SummaryListener listener = mListener;
+        final long now = System.nanoTime();
+        final long summaryInterval = force ? 0 : mSummaryIntervalNanos;
+        boolean pending = false;
+        for (int i = 0; i < LEVEL_COUNT; i++) {
+            if (mSampleSuppressed.get(i) == 0) continue;
+            final long last = mSampleSummaries.get(i);
+            if (now - last >= summaryInterval && mSampleSummaries.compareAndSet(i, last, now)) {
+                final long count = mSampleSuppressed.getAndSet(i, 0);
+                if (count > 0 && null != listener) listener.onSuppressed(1 << i, null, count);
+            } else {
+                pending = true;
+            }
+        }
+        for (Map.Entry<String, Bucket> entry : mBuckets.entrySet()) {
+            final Bucket bucket = entry.getValue();
+            final long count = bucket.drainSuppressed(now, summaryInterval);
+            if (count > 0) {
+                if (null != listener) listener.onSuppressed(bucket.type, entry.getKey(), count);
+            } else if (bucket.suppressed.get() > 0) {
+                pending = true;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 有日志被丢弃时在一个提示间隔后检查，保证刷屏停止后被丢弃的条数也能输出.
+     */
+    private void scheduleSummary() {
+        if (mSummaryScheduled.get() || !mSummaryScheduled.compareAndSet(false, true)) return;
+        getScheduler().schedule(mSummaryTask,
+                Math.max(MIN_SUMMARY_DELAY_NANOS, mSummaryIntervalNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor getScheduler() {
+        ScheduledThreadPoolExecutor scheduler = sScheduler;
+        if (null == scheduler) {
+            synchronized (LogRateLimiter.class) {
+                scheduler = sScheduler;
+                if (null == scheduler) {
+                    scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "LogUtils-RateLimit");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    scheduler.setKeepAliveTime(10, TimeUnit.SECONDS);
+                    scheduler.allowCoreThreadTimeOut(true);
+                    sScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * 输出被丢弃条数的回调，在调用{@link #drainPending(boolean)}的线程或后台线程中执行.
+     */
+    interface SummaryListener {
+
+        /**
+         * @param type  最后一条被丢弃的日志的类型.
+         * @param tag   限流的key，按级别采样时为null.
+         * @param count 被丢弃的条数.
+         */
+        void onSuppressed(int type, String tag, long count);
+    }
+
+    private static final class Bucket {
+
+        final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLong suppressed = new AtomicLong();
+        final AtomicLong lastSummary = new AtomicLong(System.nanoTime());
+        volatile int type;//最后一条被丢弃的日志的类型.
+
+        /**
+         * GCRA：允许的条件是now不早于(理论到达时间-突发量)，通过后理论到达时间后移一个间隔.
+         */
+        boolean tryAcquire(long now, long interval, long burst) {
+            while (true) {
+                final long tat = theoreticalArrival.get();
+                final long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+                if (base - now > burst) return false;
+                if (theoreticalArrival.compareAndSet(tat, base + interval)) return true;
+            }
+        }
+
+        long drainSuppressed(long now, long summaryInterval) {
+            if (suppressed.get() == 0) return 0;
+            final long last = lastSummary.get();
+            if (now - last < summaryInterval || !lastSummary.compareAndSet(last, now)) return 0;
+            return suppressed.getAndSet(0);
+        }
+    }
+
+}
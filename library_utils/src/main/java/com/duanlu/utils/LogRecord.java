@@ -0,0 +1,27 @@
+package com.duanlu.utils;
+
+/********************************
+ * @name LogRecord
+ * @author 段露
+ * @createDate 2026/10/18 10:02
+ * @updateDate 2026/10/18 15:10
+ * @version V1.0.0
+ * @describe 一条待写入文件的日志.
+ ********************************/
+final class LogRecord {
+
+    final long time;//产生时间(毫秒).
+    final String tag;
+    final String thread;//线程名.
+    final String location;//调用位置：method(SimpleClassName.java:line).
+    final String msg;//日志内容，不含头部和边框.
+
+    LogRecord(long time, String tag, String thread, String location, String msg) {
+        this.time = time;
+        this.tag = tag;
+        this.thread = thread;
+        this.location = location;
+        this.msg = msg;
+    }
+
+}
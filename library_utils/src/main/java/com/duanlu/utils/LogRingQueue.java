@@ -0,0 +1,97 @@
+package com.duanlu.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/********************************
+ * @name LogRingQueue
+ * @author 段露
+ * @createDate 2026/10/18 10:02
+ * @updateDate 2026/10/18 10:02
+ * @version V1.0.0
+ * @describe 有界无锁环形队列(多生产者多消费者).
+ * 每个槽位带一个序号，生产者/消费者通过CAS抢占位置，不使用任何锁.
+ * 参考：Dmitry Vyukov的Bounded MPMC queue.
+ ********************************/
+final class LogRingQueue<E> {
+
+    private final int mMask;
+    private final AtomicLongArray mSequences;
+    private final AtomicReferenceArray<E> mBuffer;
+    private final AtomicLong mTail = new AtomicLong();//下一个入队位置.
+    private final AtomicLong mHead = new AtomicLong();//下一个出队位置.
+
+    LogRingQueue(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mMask = size - 1;
+        mSequences = new AtomicLongArray(size);
+        mBuffer = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            mSequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队.
+     *
+     * @return 队列已满时返回false.
+     */
+    boolean offer(E e) {
+        long pos = mTail.get();
+        for (; ; ) {
+            int index = (int) pos & mMask;
+            long dif = mSequences.get(index) - pos;
+            if (dif == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    mBuffer.lazySet(index, e);
+                    mSequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = mTail.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队.
+     *
+     * @return 队列为空时返回null.
+     */
+    E poll() {
+        long pos = mHead.get();
+        for (; ; ) {
+            int index = (int) pos & mMask;
+            long dif = mSequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (mHead.compareAndSet(pos, pos + 1)) {
+                    E e = mBuffer.get(index);
+                    mBuffer.lazySet(index, null);
+                    mSequences.set(index, pos + mMask + 1);
+                    return e;
+                }
+                pos = mHead.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = mHead.get();
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    int capacity() {
+        return mMask + 1;
+    }
+
+}
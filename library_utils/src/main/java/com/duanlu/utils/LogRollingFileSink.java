@@ -0,0 +1,408 @@
+package com.duanlu.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/********************************
+ * @name LogRollingFileSink
+ * @author 段露
+ * @createDate 2026/10/18 14:20
+ * @updateDate 2026/10/19 06:40
+ * @version V1.0.0
+ * @describe 按大小和日期滚动的日志文件.
+ * 当前文件(yyyy-MM-dd.txt，二进制格式为.bin)通过MappedByteBuffer分段映射追加写入，进程崩溃时已写入的内容仍在页缓存中不会丢失.
+ * 滚动出的文件重命名为yyyy-MM-dd.N.txt，在后台线程中gzip压缩为yyyy-MM-dd.N.txt.gz，
+ * 并按总大小和最长保留时间清理日志目录.
+ * 清理只删除已经滚动出的文件(yyyy-MM-dd.N.txt[.gz])，跳过等待压缩的文件，
+ * 当前文件的长度由写入线程提交任务时传入，后台线程不读取写入线程的状态.
+ * 写满的映射段立即解除映射(见{@link #unmap(MappedByteBuffer)})，不等GC回收，Android上任何时刻只保留一段映射.
+ * 压缩都在同一个后台线程中执行，启动时的整理跳过roll()已经提交压缩的文件.
+ ********************************/
+final class LogRollingFileSink implements LogSink {
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile Method sFreeDirectBuffer;
+    private static volatile boolean sUnmapUnsupported;
+
+    private final File mFolder;
+    private final String mSuffix;
+    private final Pattern mLogName;//yyyy-MM-dd[.N].txt[.gz]
+    private final int mSegmentSize;
+    private final long mMaxFileSize;
+    private final long mMaxTotalSize;
+    private final long mMaxAgeMillis;
+    private final Executor mExecutor;
+    //已经滚动出、还没有压缩完成的文件，清理时跳过.
+    private final Set<File> mPending = Collections.synchronizedSet(new HashSet<File>());
+
+    private boolean mRecovered;
+    private String mDay;
+    private volatile File mFile;
+    private RandomAccessFile mRandomAccessFile;
+    private FileChannel mChannel;
+    private MappedByteBuffer mMapped;
+    private volatile long mLength;//当前文件的有效长度.
+
+    /**
+     * @param folder       日志目录.
+     * @param suffix       文件后缀.
+     * @param segmentSize  每次映射的大小.
+     * @param maxFileSize  单个文件最大字节数，超过后滚动，小于等于0表示只按日期滚动.
+     * @param maxTotalSize 日志目录最大总字节数，小于等于0表示不限制.
+     * @param maxAgeMillis 日志最长保留时间，小于等于0表示不限制.
+     */
+    LogRollingFileSink(String folder, String suffix, int segmentSize, long maxFileSize, long maxTotalSize, long maxAgeMillis) {
+        this.mFolder = new File(folder);
+        this.mSuffix = suffix;
+        this.mLogName = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})(\\.(\\d+))?" + Pattern.quote(suffix) + "(\\.gz)?");
+        this.mSegmentSize = Math.max(4096, segmentSize);
+        this.mMaxFileSize = maxFileSize;
+        this.mMaxTotalSize = maxTotalSize;
+        this.mMaxAgeMillis = maxAgeMillis;
+        //压缩和清理在单独的低优先级线程中执行，空闲时线程自动退出.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LogUtils-RollingFile");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.mExecutor = executor;
+    }
+
+    @Override
+    public boolean prepare(String day, int length) throws IOException {
+        if (null == mChannel || !day.equals(mDay)) {
+            if (null != mChannel) roll();
+            open(day);
+            return true;
+        } else if (mMaxFileSize > 0 && mLength > 0 && mLength + length > mMaxFileSize) {
+            roll();
+            open(day);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (null == mMapped || !mMapped.hasRemaining()) {
+                unmap(mMapped);
+                //映射失败时不能留下已解除映射的buffer.
+                mMapped = null;
+                mMapped = mChannel.map(FileChannel.MapMode.READ_WRITE, mLength, mSegmentSize);
+            }
+            final int count = Math.min(src.remaining(), mMapped.remaining());
+            final int limit = src.limit();
+            src.limit(src.position() + count);
+            mMapped.put(src);
+            src.limit(limit);
+            mLength += count;
+        }
+    }
+
+    @Override
+    public void flush() {
+        //映射区的内容已在页缓存中，由系统写回.
+    }
+
+    @Override
+    public void close() {
+        closeActive();
+        mFile = null;
+        mLength = 0;
+        mDay = null;
+    }
+
+    @Override
+    public String getPath() {
+        final File file = mFile;
+        return null == file ? mFolder.getPath() : file.getPath();
+    }
+
+    private void open(String day) throws IOException {
+        if (!mFolder.exists() && !mFolder.mkdirs()) {
+            throw new IOException("mkdirs failed: " + mFolder);
+        }
+        final File file = new File(mFolder, day + mSuffix);
+        mRandomAccessFile = new RandomAccessFile(file, "rw");
+        mChannel = mRandomAccessFile.getChannel();
+        mLength = validLength(mChannel);
+        mMapped = null;
+        mFile = file;
+        mDay = day;
+        if (!mRecovered) {
+            mRecovered = true;
+            submitMaintenance(day, mLength);
+        }
+    }
+
+    /**
+     * 关闭当前文件并截掉映射时多出来的部分.
+     */
+    private void closeActive() {
+        if (null == mChannel) return;
+        //先解除映射再截断，截断后映射区超出文件的部分不能再访问.
+        unmap(mMapped);
+        mMapped = null;
+        try {
+            mChannel.truncate(mLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        CloseUtils.closeIOQuietly(mRandomAccessFile);
+        mRandomAccessFile = null;
+        mChannel = null;
+    }
+
+    /**
+     * 把当前文件重命名为yyyy-MM-dd.N.txt并交给后台线程压缩.
+     */
+    private void roll() {
+        final File file = mFile;
+        final long length = mLength;
+        final String day = mDay;
+        closeActive();
+        mFile = null;
+        mLength = 0;
+        if (null == file || length == 0) return;
+        final File rolled = new File(mFolder, day + "." + nextIndex(day) + mSuffix);
+        //先标记再重命名，后台线程列出目录时不会看到还没有标记的滚动文件.
+        mPending.add(rolled);
+        if (!file.renameTo(rolled)) {
+            mPending.remove(rolled);
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compress(rolled);
+                } finally {
+                    mPending.remove(rolled);
+                }
+                //滚动后紧接着打开的新文件还是空的.
+                enforceRetention(0);
+            }
+        });
+    }
+
+    private int nextIndex(String day) {
+        int max = 0;
+        final String[] names = mFolder.list();
+        if (null != names) {
+            for (String name : names) {
+                Matcher matcher = mLogName.matcher(name);
+                if (matcher.matches() && day.equals(matcher.group(1)) && null != matcher.group(3)) {
+                    max = Math.max(max, Integer.parseInt(matcher.group(3)));
+                }
+            }
+        }
+        return max + 1;
+    }
+
+    /**
+     * 启动时处理上次遗留的文件：之前日期未滚动的文件、未压缩完成的文件，然后清理.
+     */
+    private void submitMaintenance(final String today, final long activeLength) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File[] files = mFolder.listFiles();
+                if (null == files) return;
+                for (File file : files) {
+                    final String name = file.getName();
+                    if (name.endsWith(GZIP_SUFFIX + TEMP_SUFFIX)) {
+                        file.delete();
+                        continue;
+                    }
+                    Matcher matcher = mLogName.matcher(name);
+                    if (!matcher.matches() || null != matcher.group(4)) continue;
+                    final String day = matcher.group(1);
+                    if (null != matcher.group(3)) {
+                        //roll()已经提交了压缩任务的文件由那个任务压缩.
+                        if (!mPending.contains(file)) compress(file);
+                    } else if (day.compareTo(today) < 0) {
+                        recoverStale(file, day);
+                    }
+                }
+                enforceRetention(activeLength);
+            }
+        });
+    }
+
+    private void recoverStale(File file, String day) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.getChannel().truncate(validLength(raf.getChannel()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            CloseUtils.closeIOQuietly(raf);
+        }
+        final File rolled = new File(mFolder, day + "." + nextIndex(day) + mSuffix);
+        if (file.length() == 0) {
+            file.delete();
+        } else if (file.renameTo(rolled)) {
+            compress(rolled);
+        }
+    }
+
+    private static void compress(File src) {
+        final File temp = new File(src.getPath() + GZIP_SUFFIX + TEMP_SUFFIX);
+        InputStream is = null;
+        OutputStream os = null;
+        boolean success = false;
+        try {
+            is = new FileInputStream(src);
+            os = new GZIPOutputStream(new FileOutputStream(temp), IO_BUFFER_SIZE);
+            final byte[] buffer = new byte[IO_BUFFER_SIZE];
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                os.write(buffer, 0, len);
+            }
+            os.close();
+            os = null;
+            success = temp.renameTo(new File(src.getPath() + GZIP_SUFFIX));
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            CloseUtils.closeIOQuietly(is, os);
+        }
+        if (success) {
+            src.delete();
+        } else {
+            temp.delete();
+        }
+    }
+
+    /**
+     * 删除超过保留时间的文件，再从最旧的开始删除直到总大小不超过限制.
+     * 只删除已经滚动出的文件，当前文件(没有序号)和等待压缩的文件不会被删除.
+     *
+     * @param activeLength 提交任务时当前文件的长度，由写入线程传入.
+     */
+    private void enforceRetention(long activeLength) {
+        if (mMaxTotalSize <= 0 && mMaxAgeMillis <= 0) return;
+        final File[] files = mFolder.listFiles();
+        if (null == files) return;
+        final List<LogFileEntry> logs = new ArrayList<>(files.length);
+        long total = activeLength;
+        for (File file : files) {
+            final Matcher matcher = mLogName.matcher(file.getName());
+            if (!matcher.matches()) continue;
+            if (null == matcher.group(3) || mPending.contains(file)) {
+                //当前文件或等待压缩的文件，只计入总大小.
+                if (null != matcher.group(3)) total += file.length();
+                continue;
+            }
+            LogFileEntry entry = new LogFileEntry(file);
+            logs.add(entry);
+            total += entry.length;
+        }
+        Collections.sort(logs, new Comparator<LogFileEntry>() {
+            @Override
+            public int compare(LogFileEntry o1, LogFileEntry o2) {
+                return o1.modified < o2.modified ? -1 : (o1.modified == o2.modified ? 0 : 1);
+            }
+        });
+        final long expired = System.currentTimeMillis() - mMaxAgeMillis;
+        for (LogFileEntry entry : logs) {//从旧到新.
+            boolean tooOld = mMaxAgeMillis > 0 && entry.modified < expired;
+            boolean tooLarge = mMaxTotalSize > 0 && total > mMaxTotalSize;
+            if (!tooOld && !tooLarge) break;
+            if (entry.file.delete()) {
+                total -= entry.length;
+            }
+        }
+    }
+
+    /**
+     * 文件末尾映射时补的0不属于日志内容，从后向前找到最后一个非0字节.
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long end = channel.size();
+        final ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        while (end > 0) {
+            final long start = Math.max(0, end - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) break;
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * 立即解除映射，映射区中已写入的内容仍在页缓存中，由系统写回.
+     * Android上通过NioUtils.freeDirectBuffer()实现，不支持时只能等GC回收.
+     * 调用后不能再访问buffer.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (null == buffer || sUnmapUnsupported) return;
+        try {
+            Method method = sFreeDirectBuffer;
+            if (null == method) {
+                method = Class.forName("java.nio.NioUtils").getMethod("freeDirectBuffer", ByteBuffer.class);
+                sFreeDirectBuffer = method;
+            }
+            method.invoke(null, buffer);
+        } catch (Exception e) {
+            sUnmapUnsupported = true;
+        }
+    }
+
+    private static final class LogFileEntry {
+
+        final File file;
+        final long modified;
+        final long length;
+
+        LogFileEntry(File file) {
+            this.file = file;
+            this.modified = file.lastModified();
+            this.length = file.length();
+        }
+    }
+
+}
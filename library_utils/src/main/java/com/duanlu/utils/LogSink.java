@@ -0,0 +1,41 @@
+package com.duanlu.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/********************************
+ * @name LogSink
+ * @author 段露
+ * @createDate 2026/10/18 14:20
+ * @updateDate 2026/10/18 14:20
+ * @version V1.0.0
+ * @describe 日志文件的输出端，只在日志写入线程中调用.
+ ********************************/
+interface LogSink {
+
+    /**
+     * 准备写入一条日志，必要时切换文件.
+     *
+     * @param day    日志所属日期(yyyy-MM-dd)，变化时切换到新一天的文件.
+     * @param length 将要写入的字节数.
+     * @return 是否打开了新的文件(包括追加到已存在的文件).
+     */
+    boolean prepare(String day, int length) throws IOException;
+
+    /**
+     * 写入一条已编码的日志，须先调用{@link #prepare(String, int)}.
+     *
+     * @param src 日志内容，写完后position等于limit.
+     */
+    void write(ByteBuffer src) throws IOException;
+
+    void flush() throws IOException;
+
+    void close();
+
+    /**
+     * 当前文件路径，用于出错提示.
+     */
+    String getPath();
+
+}
@@ -3,29 +3,14 @@ package com.duanlu.utils;
 import androidx.annotation.IntDef;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Formatter;
-import java.util.Locale;
-
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /********************************
  * @name LogUtils
@@ -50,10 +35,45 @@ public class LogUtils {
     private @interface Filter {
     }
 
+    /**
+     * 日志文件写入队列满时丢弃最早的日志.
+     */
+    public static final int OVERFLOW_DROP_OLDEST = 0;
+    /**
+     * 日志文件写入队列满时丢弃新日志.
+     */
+    public static final int OVERFLOW_DROP_NEWEST = 1;
+    /**
+     * 日志文件写入队列满时阻塞调用线程直到有空位.
+     */
+    public static final int OVERFLOW_BLOCK = 2;
+
+    @IntDef({OVERFLOW_DROP_OLDEST, OVERFLOW_DROP_NEWEST, OVERFLOW_BLOCK})
+    @Retention(RetentionPolicy.SOURCE)
+    private @interface Overflow {
+    }
+
+    /**
+     * 日志文件为文本格式.
+     */
+    public static final int FORMAT_TEXT = 0;
+    /**
+     * 日志文件为紧凑的二进制格式(.bin)，用{@link LogBinaryDecoder}还原为文本.
+     */
+    public static final int FORMAT_BINARY = 1;
+
+    @IntDef({FORMAT_TEXT, FORMAT_BINARY})
+    @Retention(RetentionPolicy.SOURCE)
+    private @interface Format {
+    }
+
     private static final int FILE = 0xF1;
     private static final int JSON = 0xF2;
     private static final int XML = 0xF4;
 
+    private static final int ROUTE_LOGCAT = 0x01;
+    private static final int ROUTE_FILE = 0x02;
+
     private static String sFolder;//log存储目录
     private static boolean sLogEnabled = true; // log总开关
     private static String sGlobalTag = null; // log标签
@@ -62,16 +82,38 @@ public class LogUtils {
     private static boolean isBorder = true; // log边框开关
     private static int sFilter = V;    // log过滤器
 
-    private static final String TOP_BORDER = "╔═══════════════════════════════════════════════════════════════════════════════════════════════════";
-    private static final String LEFT_BORDER = "║ ";
-    private static final String BOTTOM_BORDER = "╚═══════════════════════════════════════════════════════════════════════════════════════════════════";
-    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static int sQueueCapacity = 1024;// log文件写入队列容量
+    private static int sOverflowPolicy = OVERFLOW_DROP_OLDEST;// log文件写入队列溢出策略
+    private static int sFlushBytes = 8 * 1024;// log文件累计多少字节flush一次
+    private static long sFlushIntervalMillis = 1000;// log文件最长多久flush一次
+    private static final LogCrashRing sCrashRing = new LogCrashRing();// 崩溃现场日志
+    private static volatile LogRateLimiter sRateLimiter;// log限流和采样
+    private static int sFormatMaxLength = 128 * 1024;// json、xml缩进后最多输出的字符数
+    private static int sFileFormat = FORMAT_TEXT;// log文件格式
+    private static boolean sRollingEnabled = false;// log文件是否按大小滚动
+    private static int sRollingSegmentSize;// log文件每次映射的大小
+    private static long sRollingMaxFileSize;// 单个log文件最大字节数
+    private static long sRollingMaxTotalSize;// log目录最大总字节数
+    private static long sRollingMaxAgeMillis;// log文件最长保留时间
+    private static volatile LogFileWriter sFileWriter;// log文件写入器
+
+    static final String TOP_BORDER = "╔═══════════════════════════════════════════════════════════════════════════════════════════════════";
+    static final String LEFT_BORDER = "║ ";
+    static final String BOTTOM_BORDER = "╚═══════════════════════════════════════════════════════════════════════════════════════════════════";
+    static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
     private static final int MAX_LEN = 4000;
     private static final String NULL_TIPS = "Log with null object.";
     private static final String NULL = "null";
+    private static final String READER = "[Reader]";
     private static final String ARGS = "args";
 
+    private static final String LOG_CLASS_NAME = LogUtils.class.getName();
+    private static final int MAX_CALL_SITES = 1024;
+    private static final Map<StackTraceElement, CallSite> sCallSites = new ConcurrentHashMap<>();
+    private static final int MAX_BUILDER_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> sBuilder = new ThreadLocal<>();
+
     private LogUtils() {
 
     }
@@ -94,6 +136,164 @@ public class LogUtils {
         }
 
         LogUtils.isBorder = isBorder;
+
+        shutdown();
+    }
+
+    /**
+     * 配置日志文件写入器，在下一条写入文件的日志时生效.
+     *
+     * @param queueCapacity       写入队列容量，会向上取整为2的幂.
+     * @param overflowPolicy      队列满时的处理策略.
+     * @param flushBytes          累计写入多少字节后flush一次.
+     * @param flushIntervalMillis 最长多久flush一次.
+     */
+    public static void initFileWriter(int queueCapacity, @Overflow int overflowPolicy, int flushBytes, long flushIntervalMillis) {
+        LogUtils.sQueueCapacity = queueCapacity;
+        LogUtils.sOverflowPolicy = overflowPolicy;
+        LogUtils.sFlushBytes = flushBytes;
+        LogUtils.sFlushIntervalMillis = flushIntervalMillis;
+
+        shutdown();
+    }
+
+    /**
+     * 按tag限流，超出的日志在格式化之前直接丢弃，之后放行的日志前会附带一行被丢弃的条数.
+     *
+     * @param permitsPerSecond      每个tag每秒允许的条数，小于等于0表示不限流.
+     * @param burst                 每个tag允许的突发条数.
+     * @param summaryIntervalMillis 两次输出被丢弃条数的最小间隔.
+     */
+    public static void initRateLimit(double permitsPerSecond, int burst, long summaryIntervalMillis) {
+        getRateLimiter().setRate(permitsPerSecond, burst, summaryIntervalMillis);
+    }
+
+    /**
+     * 按级别采样，该级别每oneInN条只输出1条.
+     *
+     * @param level  日志级别.
+     * @param oneInN 小于等于1表示全部输出.
+     */
+    public static void initSampling(@Filter int level, int oneInN) {
+        getRateLimiter().setSampling(Integer.numberOfTrailingZeros(level), oneInN);
+    }
+
+    private static LogRateLimiter getRateLimiter() {
+        LogRateLimiter limiter = sRateLimiter;
+        if (null == limiter) {
+            synchronized (LogUtils.class) {
+                limiter = sRateLimiter;
+                if (null == limiter) {
+                    limiter = new LogRateLimiter();
+                    limiter.setSummaryListener(new LogRateLimiter.SummaryListener() {
+                        @Override
+                        public void onSuppressed(int type, String tag, long count) {
+                            printSuppressed(type, tag, count);
+                        }
+                    });
+                    sRateLimiter = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * 在内存中保存最近的capacity条日志(包括被过滤掉的级别)，崩溃时由{@link CrashHandler}写入崩溃文件.
+     * 记录时就把日志内容转为String(String和装箱的基本类型直接保存)，不持有调用者的对象.
+     *
+     * @param capacity 保存的条数，小于等于0表示关闭.
+     */
+    public static void initCrashRing(int capacity) {
+        sCrashRing.setCapacity(capacity);
+    }
+
+    /**
+     * 预先打开崩溃文件，崩溃时直接写入.
+     */
+    static void openCrashFile(File file) throws IOException {
+        sCrashRing.open(file);
+    }
+
+    /**
+     * 把异常和内存中最近的日志同步写入崩溃文件.
+     *
+     * @return 崩溃文件未打开或写入失败返回false.
+     */
+    static boolean dumpCrashRing(Thread thread, Throwable e) {
+        return sCrashRing.dump(thread, e);
+    }
+
+    /**
+     * 设置json、xml缩进后最多输出的字符数，超出部分截断.
+     *
+     * @param maxLength 小于等于0表示不限制.
+     */
+    public static void initFormatMaxLength(int maxLength) {
+        LogUtils.sFormatMaxLength = maxLength;
+    }
+
+    /**
+     * 设置日志文件格式，在下一条写入文件的日志时生效.
+     * 二进制格式省去了边框和重复的tag、线程名、调用位置，写入量远小于文本格式.
+     */
+    public static void initFileFormat(@Format int format) {
+        LogUtils.sFileFormat = format;
+
+        shutdown();
+    }
+
+    /**
+     * 开启按大小和日期滚动的日志文件，在下一条写入文件的日志时生效.
+     * 当前文件通过内存映射写入，滚动出的文件会在后台压缩为.gz，并按总大小和保留时间清理日志目录.
+     *
+     * @param mappedSegmentSize 每次映射的字节数.
+     * @param maxFileSize       单个文件最大字节数，小于等于0表示只按日期滚动.
+     * @param maxTotalSize      日志目录最大总字节数，小于等于0表示不限制.
+     * @param maxAgeMillis      日志最长保留时间，小于等于0表示不限制.
+     */
+    public static void initRollingFile(int mappedSegmentSize, long maxFileSize, long maxTotalSize, long maxAgeMillis) {
+        LogUtils.sRollingEnabled = true;
+        LogUtils.sRollingSegmentSize = mappedSegmentSize;
+        LogUtils.sRollingMaxFileSize = maxFileSize;
+        LogUtils.sRollingMaxTotalSize = maxTotalSize;
+        LogUtils.sRollingMaxAgeMillis = maxAgeMillis;
+
+        shutdown();
+    }
+
+    /**
+     * 等待已产生的日志全部写入文件，如在崩溃处理中调用.
+     *
+     * @return 超时返回false.
+     */
+    public static boolean flush() {
+        drainSuppressed();
+        final LogFileWriter writer = sFileWriter;
+        return null == writer || writer.flush(2000);
+    }
+
+    /**
+     * 写完已产生的日志后关闭日志文件写入器，之后再写文件时会重新创建.
+     *
+     * @return 超时返回false.
+     */
+    public static boolean shutdown() {
+        drainSuppressed();
+        final LogFileWriter writer;
+        synchronized (LogUtils.class) {
+            writer = sFileWriter;
+            sFileWriter = null;
+        }
+        return null == writer || writer.shutdown(2000);
+    }
+
+    /**
+     * 立即输出还没有提示的被限流丢弃的条数.
+     */
+    private static void drainSuppressed() {
+        final LogRateLimiter limiter = sRateLimiter;
+        if (null != limiter) limiter.drainPending(true);
     }
 
     public static void v(Object contents) {
@@ -168,11 +368,61 @@ public class LogUtils {
         log(XML, tag, contents);
     }
 
+    /**
+     * 边读边缩进输出JSON，大内容不需要先读成String，reader由调用者关闭.
+     */
+    public static void json(String tag, Reader reader) {
+        log(JSON, tag, reader);
+    }
+
+    /**
+     * 边读边缩进输出XML，大内容不需要先读成String，reader由调用者关闭.
+     */
+    public static void xml(String tag, Reader reader) {
+        log(XML, tag, reader);
+    }
+
     private static void log(int type, String tag, Object... contents) {
+        if (sCrashRing.isEnabled()) {
+            sCrashRing.add(levelChar(type), tag, ringSnapshot(contents));
+        }
         if (!sLogEnabled) return;
-        final String[] processContents = processContents(type, tag, contents);
-        tag = processContents[0];
-        String msg = processContents[1];
+        final int route = route(type);
+        final boolean toLogcat = (route & ROUTE_LOGCAT) != 0;
+        final boolean toFile = (route & ROUTE_FILE) != 0;
+        //被过滤掉的日志不查调用栈、不格式化.
+        if (!toLogcat && !toFile) return;
+        long suppressed = 0;
+        final LogRateLimiter limiter = sRateLimiter;
+        if (null != limiter) {
+            suppressed = limiter.acquire(type <= A ? Integer.numberOfTrailingZeros(type) : -1, type, tag);
+            if (LogRateLimiter.REJECTED == suppressed) return;
+        }
+
+        final CallSite callSite = findCallSite();
+        if (!sTagIsSpace) {// 如果全局tag不为空，那就用全局tag
+            tag = sGlobalTag;
+        } else {// 全局tag为空时，如果传入的tag为空那就显示类名，否则显示tag
+            tag = isSpace(tag) ? callSite.simpleClassName : tag;
+        }
+        String msg = processContents(type, contents);
+        if (suppressed > 0) {
+            msg = "suppressed " + suppressed + " log(s)." + LINE_SEPARATOR + msg;
+        }
+        if (toLogcat) {
+            printLog(JSON == type || XML == type ? D : type, tag, renderHead(callSite, msg));
+        }
+        if (toFile) {
+            print2File(tag, callSite, msg);
+        }
+    }
+
+    /**
+     * 日志的输出位置.
+     *
+     * @return {@link #ROUTE_LOGCAT}和{@link #ROUTE_FILE}的组合，0表示不输出.
+     */
+    private static int route(int type) {
         switch (type) {
             case V:
             case D:
@@ -180,111 +430,239 @@ public class LogUtils {
             case W:
             case E:
             case A:
-                if (V == sFilter || type >= sFilter) {
-                    printLog(type, tag, msg);
-                }
-                if (sFileEnabled) {
-                    print2File(tag, msg);
-                }
-                break;
+                return (V == sFilter || type >= sFilter ? ROUTE_LOGCAT : 0) | (sFileEnabled ? ROUTE_FILE : 0);
             case FILE:
-                print2File(tag, msg);
-                break;
+                return ROUTE_FILE;
             case JSON:
-                printLog(D, tag, msg);
-                break;
             case XML:
-                printLog(D, tag, msg);
-                break;
+                return ROUTE_LOGCAT;
+            default:
+                return 0;
         }
+    }
 
+    /**
+     * 输出被限流丢弃的条数，用于刷屏停止后没有下一条日志可以附带的情况，不再经过限流.
+     *
+     * @param type  最后一条被丢弃的日志的类型.
+     * @param tag   限流的key，按级别采样时为null.
+     * @param count 被丢弃的条数.
+     */
+    private static void printSuppressed(int type, String tag, long count) {
+        if (!sLogEnabled) return;
+        final int route = route(type);
+        if (route == 0) return;
+        if (!sTagIsSpace) {
+            tag = sGlobalTag;
+        } else if (isSpace(tag)) {
+            tag = "LogUtils";
+        }
+        final String msg = "suppressed " + count + " log(s).";
+        if ((route & ROUTE_LOGCAT) != 0) {
+            printLog(JSON == type || XML == type ? D : type, tag, renderHead(CallSite.UNKNOWN, msg));
+        }
+        if ((route & ROUTE_FILE) != 0) {
+            print2File(tag, CallSite.UNKNOWN, msg);
+        }
     }
 
-    private static String[] processContents(int type, String tag, Object... contents) {
-        StackTraceElement targetElement = Thread.currentThread().getStackTrace()[5];
-        String className = targetElement.getClassName();
-        String[] classNameInfo = className.split("\\.");
-        if (classNameInfo.length > 0) {
-            className = classNameInfo[classNameInfo.length - 1];
+    private static char levelChar(int type) {
+        switch (type) {
+            case V:
+                return 'V';
+            case D:
+            case JSON:
+            case XML:
+                return 'D';
+            case I:
+                return 'I';
+            case W:
+                return 'W';
+            case E:
+                return 'E';
+            case A:
+                return 'A';
+            default:
+                return 'F';
         }
-        if (className.contains("$")) {
-            className = className.split("\\$")[0];
+    }
+
+    /**
+     * 崩溃现场日志的内容快照，不持有调用者的对象.
+     * 单个String或装箱的基本类型不可变，直接保存不产生分配；其他内容立即转为String，不做JSON/XML缩进；
+     * Reader读完就失效，只记录占位.
+     */
+    static Object ringSnapshot(Object[] contents) {
+        if (contents != null && contents.length == 1) {
+            final Object object = contents[0];
+            if (object == null) return NULL;
+            if (object instanceof Reader) return READER;
+            if (isImmutable(object)) return object;
+            return object.toString();
         }
-        if (!sTagIsSpace) {// 如果全局tag不为空，那就用全局tag
-            tag = sGlobalTag;
-        } else {// 全局tag为空时，如果传入的tag为空那就显示类名，否则显示tag
-            tag = isSpace(tag) ? className : tag;
+        return processContents(V, contents);
+    }
+
+    private static boolean isImmutable(Object object) {
+        final Class<?> type = object.getClass();
+        return type == String.class || type == Integer.class || type == Long.class || type == Boolean.class
+                || type == Character.class || type == Double.class || type == Float.class
+                || type == Short.class || type == Byte.class;
+    }
+
+    /**
+     * 查找LogUtils的调用位置.
+     */
+    private static CallSite findCallSite() {
+        final StackTraceElement[] elements = new Throwable().getStackTrace();
+        StackTraceElement target = null;
+        for (StackTraceElement element : elements) {
+            if (!LOG_CLASS_NAME.equals(element.getClassName())) {
+                target = element;
+                break;
+            }
+        }
+        if (null == target) return CallSite.UNKNOWN;
+        CallSite callSite = sCallSites.get(target);
+        if (null == callSite) {
+            if (sCallSites.size() >= MAX_CALL_SITES) {
+                sCallSites.clear();
+            }
+            callSite = new CallSite(target);
+            sCallSites.put(target, callSite);
         }
+        return callSite;
+    }
 
-        String head = new Formatter()
-                .format("Thread: %s, %s(%s.java:%d)" + LINE_SEPARATOR,
-                        Thread.currentThread().getName(),
-                        targetElement.getMethodName(),
-                        className,
-                        targetElement.getLineNumber())
-                .toString();
+    private static String processContents(int type, Object... contents) {
         String msg = NULL_TIPS;
         if (contents != null) {
             if (contents.length == 1) {
                 Object object = contents[0];
-                msg = object == null ? NULL : object.toString();
-                if (type == JSON) {
-                    msg = formatJson(msg);
-                } else if (type == XML) {
-                    msg = formatXml(msg);
+                if ((type == JSON || type == XML) && object instanceof Reader) {
+                    msg = format(type, (Reader) object);
+                } else {
+                    msg = object == null ? NULL : object.toString();
+                    if (type == JSON || type == XML) {
+                        msg = format(type, new StringReader(msg));
+                    }
                 }
             } else {
-                StringBuilder sb = new StringBuilder();
+                //先取出各参数的字符串，toString()中可能再次调用LogUtils.
+                final String[] values = new String[contents.length];
                 for (int i = 0, len = contents.length; i < len; ++i) {
                     Object content = contents[i];
+                    values[i] = content == null ? NULL : content.toString();
+                }
+                StringBuilder sb = obtainBuilder();
+                for (int i = 0, len = values.length; i < len; ++i) {
                     sb.append(ARGS)
-                            .append("[")
+                            .append('[')
                             .append(i)
-                            .append("]")
+                            .append(']')
                             .append(" = ")
-                            .append(content == null ? NULL : content.toString())
+                            .append(values[i])
                             .append(LINE_SEPARATOR);
                 }
-                msg = sb.toString();
+                msg = releaseBuilder(sb);
             }
         }
+        return msg;
+    }
+
+    /**
+     * 加上线程、调用位置头部和左边框.
+     */
+    private static String renderHead(CallSite callSite, String msg) {
+        StringBuilder sb = obtainBuilder();
+        sb.append("Thread: ")
+                .append(Thread.currentThread().getName())
+                .append(", ")
+                .append(callSite.location)
+                .append(LINE_SEPARATOR);
         if (isBorder) {
-            StringBuilder sb = new StringBuilder();
-            String[] lines = msg.split(LINE_SEPARATOR);
-            for (String line : lines) {
-                sb.append(LEFT_BORDER).append(line).append(LINE_SEPARATOR);
+            appendBorderLines(sb, msg);
+        } else {
+            sb.append(msg);
+        }
+        return releaseBuilder(sb);
+    }
+
+    /**
+     * 给msg的每一行加上左边框，与msg.split(LINE_SEPARATOR)的分行结果一致(忽略末尾的空行).
+     */
+    static void appendBorderLines(StringBuilder sb, String msg) {
+        final int sepLen = LINE_SEPARATOR.length();
+        int end = msg.length();
+        if (end > 0) {
+            while (end >= sepLen && msg.startsWith(LINE_SEPARATOR, end - sepLen)) {
+                end -= sepLen;
+            }
+            if (end == 0) return;
+        }
+        int start = 0;
+        while (true) {
+            int index = msg.indexOf(LINE_SEPARATOR, start);
+            if (index < 0 || index >= end) {
+                sb.append(LEFT_BORDER).append(msg, start, end).append(LINE_SEPARATOR);
+                return;
             }
-            msg = sb.toString();
+            sb.append(LEFT_BORDER).append(msg, start, index).append(LINE_SEPARATOR);
+            start = index + sepLen;
         }
-        return new String[]{tag, head + msg};
     }
 
-    private static String formatJson(String json) {
-        try {
-            if (json.startsWith("{")) {
-                json = new JSONObject(json).toString(4);
-            } else if (json.startsWith("[")) {
-                json = new JSONArray(json).toString(4);
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
+    /**
+     * 取当前线程复用的StringBuilder，取出期间重入时会新建一个.
+     */
+    private static StringBuilder obtainBuilder() {
+        StringBuilder sb = sBuilder.get();
+        if (null == sb) return new StringBuilder(256);
+        sBuilder.set(null);
+        sb.setLength(0);
+        return sb;
+    }
+
+    private static String releaseBuilder(StringBuilder sb) {
+        final String result = sb.toString();
+        if (sb.capacity() <= MAX_BUILDER_CAPACITY) {
+            sBuilder.set(sb);
         }
-        return json;
+        return result;
     }
 
-    private static String formatXml(String xml) {
+    /**
+     * 调用位置，按StackTraceElement缓存，避免每次拆分类名和拼接位置.
+     */
+    private static final class CallSite {
+
+        static final CallSite UNKNOWN = new CallSite(new StackTraceElement("Unknown", "unknown", null, -1));
+
+        final String simpleClassName;
+        final String location;// method(SimpleClassName.java:line)
+
+        CallSite(StackTraceElement element) {
+            String className = element.getClassName();
+            int start = className.lastIndexOf('.') + 1;
+            int end = className.indexOf('$', start);
+            simpleClassName = className.substring(start, end < 0 ? className.length() : end);
+            location = element.getMethodName() + '(' + simpleClassName + ".java:" + element.getLineNumber() + ')';
+        }
+    }
+
+    private static String format(int type, Reader reader) {
+        StringBuilder sb = obtainBuilder();
         try {
-            Source xmlInput = new StreamSource(new StringReader(xml));
-            StreamResult xmlOutput = new StreamResult(new StringWriter());
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-            transformer.transform(xmlInput, xmlOutput);
-            xml = xmlOutput.getWriter().toString().replaceFirst(">", ">" + LINE_SEPARATOR);
-        } catch (Exception e) {
+            if (type == JSON) {
+                LogPrettyPrinter.formatJson(reader, sb, sFormatMaxLength, LINE_SEPARATOR);
+            } else {
+                LogPrettyPrinter.formatXml(reader, sb, sFormatMaxLength, LINE_SEPARATOR);
+            }
+        } catch (IOException e) {
             e.printStackTrace();
+            sb.append(LINE_SEPARATOR).append(e.toString());
         }
-        return xml;
+        return releaseBuilder(sb);
     }
 
     private static void printLog(int type, String tag, String msg) {
@@ -354,66 +732,28 @@ public class LogUtils {
         }
     }
 
-    private synchronized static void print2File(final String tag, final String msg) {
-        Date now = new Date();
-        String date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(now);
-        final String fullPath = sFolder + date + ".txt";
-        if (!createOrExistsFile(fullPath)) {
-            Log.e(tag, "log to " + fullPath + " failed!");
-            return;
-        }
-        String time = new SimpleDateFormat("MM-dd HH:mm:ss.SSS ", Locale.getDefault()).format(now);
-        StringBuilder sb = new StringBuilder();
-        if (isBorder) sb.append(TOP_BORDER).append(LINE_SEPARATOR);
-        sb.append(time)
-                .append(tag)
-                .append(": ")
-                .append(msg)
-                .append(LINE_SEPARATOR);
-        if (isBorder) sb.append(BOTTOM_BORDER).append(LINE_SEPARATOR);
-        final String dateLogContent = sb.toString();
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                BufferedWriter bw = null;
-                try {
-                    bw = new BufferedWriter(new FileWriter(fullPath, true));
-                    bw.write(dateLogContent);
-                    Log.d(tag, "log to " + fullPath + " success!");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Log.e(tag, "log to " + fullPath + " failed!");
-                } finally {
-                    try {
-                        if (bw != null) {
-                            bw.close();
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+    private static void print2File(String tag, CallSite callSite, String msg) {
+        getFileWriter().enqueue(new LogRecord(System.currentTimeMillis(), tag,
+                Thread.currentThread().getName(), callSite.location, msg));
+    }
+
+    private static LogFileWriter getFileWriter() {
+        LogFileWriter writer = sFileWriter;
+        if (null == writer) {
+            synchronized (LogUtils.class) {
+                writer = sFileWriter;
+                if (null == writer) {
+                    final boolean binary = FORMAT_BINARY == sFileFormat;
+                    final String suffix = binary ? ".bin" : ".txt";
+                    final LogSink sink = sRollingEnabled
+                            ? new LogRollingFileSink(sFolder, suffix, sRollingSegmentSize, sRollingMaxFileSize, sRollingMaxTotalSize, sRollingMaxAgeMillis)
+                            : new LogDayFileSink(sFolder, suffix, sFlushBytes);
+                    writer = new LogFileWriter(sink, binary, isBorder, sQueueCapacity, sOverflowPolicy, sFlushBytes, sFlushIntervalMillis);
+                    sFileWriter = writer;
                 }
             }
-        }).start();
-    }
-
-    private static boolean createOrExistsFile(String filePath) {
-        return createOrExistsFile(isSpace(filePath) ? null : new File(filePath));
-    }
-
-    private static boolean createOrExistsFile(File file) {
-        if (file == null) return false;
-        if (file.exists()) return file.isFile();
-        if (!createOrExistsDir(file.getParentFile())) return false;
-        try {
-            return file.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
         }
-    }
-
-    private static boolean createOrExistsDir(File file) {
-        return file != null && (file.exists() ? file.isDirectory() : file.mkdirs());
+        return writer;
     }
 
     private static boolean isSpace(String s) {
@@ -0,0 +1,235 @@
+package com.duanlu.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link AtomicFileWriter}的单元测试，包括失败时目标文件不变、不留下临时文件.
+ */
+public class AtomicFileWriterTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("atomic", "");
+        assertTrue(mDir.delete());
+        assertTrue(mDir.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(mDir);
+    }
+
+    @Test
+    public void write_replacesContent() throws IOException {
+        final File file = new File(mDir, "a.txt");
+        assertTrue(AtomicFileWriter.write(file, "旧内容", UTF_8));
+        assertEquals("旧内容", read(file));
+        assertTrue(AtomicFileWriter.write(file, "new", UTF_8));
+        assertEquals("new", read(file));
+        //目录不存在时创建.
+        final File nested = new File(mDir, "x/y/b.txt");
+        assertTrue(AtomicFileWriter.write(nested, "b", UTF_8));
+        assertEquals("b", read(nested));
+        assertNoTempFiles(mDir);
+    }
+
+    @Test
+    public void write_buffersAreNotConsumed() throws IOException {
+        final File file = new File(mDir, "buffers.bin");
+        final ByteBuffer first = ByteBuffer.wrap("0123456789".getBytes(UTF_8));
+        first.position(2).limit(8);
+        final ByteBuffer second = ByteBuffer.allocateDirect(4);
+        second.put("abcd".getBytes(UTF_8)).flip();
+        assertTrue(AtomicFileWriter.write(file, first, second));
+        assertEquals("234567abcd", read(file));
+        assertEquals(2, first.position());
+        assertEquals(8, first.limit());
+        assertEquals(0, second.position());
+        assertEquals(4, second.limit());
+        //可以用同样的缓冲区再写一次.
+        final File again = new File(mDir, "again.bin");
+        assertTrue(AtomicFileWriter.write(again, first, second));
+        assertEquals("234567abcd", read(again));
+    }
+
+    @Test
+    public void write_largeStream() throws IOException {
+        final byte[] data = new byte[300 * 1024 + 7];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (i * 31);
+        final File file = new File(mDir, "stream.bin");
+        final TrackingInputStream in = new TrackingInputStream(new ByteArrayInputStream(data), -1);
+        assertTrue(AtomicFileWriter.write(file, in));
+        assertTrue(in.closed);
+        assertArrayEquals(data, readBytes(file));
+    }
+
+    @Test
+    public void write_streamFailureKeepsTarget() throws IOException {
+        final File file = new File(mDir, "target.txt");
+        assertTrue(AtomicFileWriter.write(file, "original", UTF_8));
+        final long lastModified = file.lastModified();
+        final byte[] data = new byte[200 * 1024];
+        final TrackingInputStream in = new TrackingInputStream(new ByteArrayInputStream(data), 100 * 1024);
+        assertFalse(AtomicFileWriter.write(file, in));
+        assertTrue(in.closed);
+        assertEquals("original", read(file));
+        assertEquals(lastModified, file.lastModified());
+        assertNoTempFiles(mDir);
+    }
+
+    @Test
+    public void write_renameFailureKeepsTarget() throws IOException {
+        //目标是非空目录，重命名失败.
+        final File target = new File(mDir, "dir");
+        assertTrue(target.mkdir());
+        assertTrue(AtomicFileWriter.write(new File(target, "child"), "child", UTF_8));
+        assertFalse(AtomicFileWriter.write(target, "content", UTF_8));
+        assertTrue(target.isDirectory());
+        assertEquals("child", read(new File(target, "child")));
+        assertNoTempFiles(mDir);
+    }
+
+    @Test
+    public void write_parentIsFile() throws IOException {
+        final File parent = new File(mDir, "parent");
+        assertTrue(AtomicFileWriter.write(parent, "file", UTF_8));
+        assertFalse(AtomicFileWriter.write(new File(parent, "child"), "content", UTF_8));
+        assertEquals("file", read(parent));
+    }
+
+    @Test
+    public void batch_partialFailure() throws IOException {
+        final File parent = new File(mDir, "parent");
+        assertTrue(AtomicFileWriter.write(parent, "file", UTF_8));
+        final File dirTarget = new File(mDir, "dir");
+        assertTrue(dirTarget.mkdir());
+        assertTrue(AtomicFileWriter.write(new File(dirTarget, "child"), "child", UTF_8));
+        final File existing = new File(mDir, "existing.txt");
+        assertTrue(AtomicFileWriter.write(existing, "old", UTF_8));
+
+        final ByteBuffer shared = ByteBuffer.wrap("shared".getBytes(UTF_8));
+        final AtomicFileWriter.Batch batch = AtomicFileWriter.batch();
+        //超过一组的文件数，覆盖分组和并发落盘.
+        for (int i = 0; i < 40; i++) {
+            batch.add(new File(mDir, "f" + i + ".txt"), "content " + i, UTF_8);
+        }
+        batch.add(new File(parent, "child"), shared);
+        batch.add(dirTarget, shared);
+        batch.add(existing, "new", UTF_8);
+        assertEquals(43, batch.size());
+        //提交前不写任何文件.
+        assertFalse(new File(mDir, "f0.txt").exists());
+
+        final FileOperationResult result = batch.commit();
+        assertFalse(result.isSuccess());
+        assertEquals(41, result.getSucceededCount());
+        assertEquals(2, result.getFailures().size());
+        assertTrue(result.getFailures().containsAll(Arrays.asList(new File(parent, "child"), dirTarget)));
+        for (int i = 0; i < 40; i++) {
+            assertEquals("content " + i, read(new File(mDir, "f" + i + ".txt")));
+        }
+        assertEquals("new", read(existing));
+        assertEquals("file", read(parent));
+        assertEquals("child", read(new File(dirTarget, "child")));
+        assertEquals(0, shared.position());
+        assertNoTempFiles(mDir);
+        //提交后清空，可以继续使用.
+        assertEquals(0, batch.size());
+        assertTrue(batch.add(existing, "again", UTF_8).commit().isSuccess());
+        assertEquals("again", read(existing));
+    }
+
+    private static void assertNoTempFiles(File dir) {
+        final File[] files = dir.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+            if (file.isDirectory()) assertNoTempFiles(file);
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(readBytes(file), UTF_8);
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        final byte[] data = new byte[(int) file.length()];
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = in.read(data, offset, data.length - offset)) != -1) {
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * 记录是否关闭，读取failAfter个字节后抛出异常，小于0表示不抛出.
+     */
+    private static final class TrackingInputStream extends InputStream {
+
+        private final InputStream mIn;
+        private final int mFailAfter;
+        private int mRead;
+        boolean closed;
+
+        TrackingInputStream(InputStream in, int failAfter) {
+            this.mIn = in;
+            this.mFailAfter = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (mFailAfter >= 0 && mRead >= mFailAfter) throw new IOException("broken stream");
+            final int read = mIn.read(b, off, len);
+            if (read > 0) mRead += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            mIn.close();
+        }
+    }
+
+}
@@ -0,0 +1,325 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ByteCodec}的单元测试.
+ */
+public class ByteCodecTest {
+
+    //------------------------------------------十六进制------------------------------------------/
+
+    @Test
+    public void encodeHex_allByteValues() {
+        final byte[] bytes = allBytes();
+        final String lower = ByteCodec.encodeHex(bytes, 0, bytes.length, false);
+        final String upper = ByteCodec.encodeHex(bytes, 0, bytes.length, true);
+        final StringBuilder expected = new StringBuilder();
+        for (byte b : bytes) {
+            expected.append(String.format("%02x", b & 0xFF));
+        }
+        assertEquals(expected.toString(), lower);
+        assertEquals(expected.toString().toUpperCase(), upper);
+        assertArrayEquals(bytes, ByteCodec.decodeHex(lower));
+        assertArrayEquals(bytes, ByteCodec.decodeHex(upper));
+    }
+
+    @Test
+    public void encodeHex_offsetAndLength() {
+        final byte[] bytes = {0x01, (byte) 0xAB, (byte) 0xCD, 0x7F};
+        assertEquals("abcd", ByteCodec.encodeHex(bytes, 1, 2, false));
+        assertEquals("", ByteCodec.encodeHex(bytes, 4, 0, false));
+        final char[] dst = "xxxxxxxx".toCharArray();
+        assertEquals(4, ByteCodec.encodeHex(bytes, 1, 2, dst, 2, true));
+        assertEquals("xxABCDxx", new String(dst));
+    }
+
+    @Test
+    public void encodeHex_byteBuffer() {
+        final byte[] bytes = {0x00, 0x10, (byte) 0xFE, (byte) 0xFF};
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct(bytes)}) {
+            buffer.position(1);
+            final char[] dst = new char[6];
+            assertEquals(6, ByteCodec.encodeHex(buffer, dst, 0, false));
+            assertEquals("10feff", new String(dst));
+            assertFalse(buffer.hasRemaining());
+        }
+        //带arrayOffset的切片.
+        final ByteBuffer slice = ByteBuffer.wrap(bytes, 2, 2).slice();
+        final char[] dst = new char[4];
+        assertEquals(4, ByteCodec.encodeHex(slice, dst, 0, true));
+        assertEquals("FEFF", new String(dst));
+    }
+
+    @Test
+    public void decodeHex_oddLengthPadsLeadingZero() {
+        assertEquals(2, ByteCodec.decodedHexLength(3));
+        assertEquals(0, ByteCodec.decodedHexLength(0));
+        assertArrayEquals(new byte[]{0x0A, (byte) 0xBC}, ByteCodec.decodeHex("abc"));
+        assertArrayEquals(new byte[]{0x0F}, ByteCodec.decodeHex("F"));
+        assertArrayEquals(new byte[0], ByteCodec.decodeHex(""));
+
+        final byte[] dst = new byte[4];
+        assertEquals(2, ByteCodec.decodeHex("--abc--", 2, 5, dst, 1));
+        assertArrayEquals(new byte[]{0, 0x0A, (byte) 0xBC, 0}, dst);
+    }
+
+    @Test
+    public void decodeHex_byteBuffer() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(4), ByteBuffer.allocateDirect(4)}) {
+            buffer.put((byte) 0x55);
+            assertEquals(2, ByteCodec.decodeHex("fAb", 0, 3, buffer));
+            assertEquals(3, buffer.position());
+            buffer.flip();
+            final byte[] bytes = new byte[3];
+            buffer.get(bytes);
+            assertArrayEquals(new byte[]{0x55, 0x0F, (byte) 0xAB}, bytes);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeHex_byteBufferTooSmall() {
+        ByteCodec.decodeHex("abcdef", 0, 6, ByteBuffer.allocate(2));
+    }
+
+    @Test
+    public void decodeHex_illegalCharacters() {
+        final String[] invalid = {"0g", "g0", "1 ", "-1", "0x", "éa", "a中", "12:3", "０１"};
+        for (String text : invalid) {
+            try {
+                ByteCodec.decodeHex(text);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+                //ok
+            }
+        }
+    }
+
+    @Test
+    public void hexStream_roundTripAcrossChunkBoundaries() throws IOException {
+        final byte[] bytes = randomBytes(20000 + 7);
+        final StringWriter writer = new StringWriter();
+        assertEquals(bytes.length, ByteCodec.encodeHex(new ChunkedInputStream(bytes, 777), writer, false));
+        final String hex = writer.toString();
+        assertEquals(ByteCodec.encodeHex(bytes, 0, bytes.length, false), hex);
+
+        //每次读取奇数个字符，半个字节跨越两次读取.
+        for (int chunk : new int[]{1, 3, 7, 8191, 16385}) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(bytes.length, ByteCodec.decodeHex(new ChunkedReader(hex, chunk), out));
+            assertArrayEquals("chunk " + chunk, bytes, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void hexStream_emptyInput() throws IOException {
+        final StringWriter writer = new StringWriter();
+        assertEquals(0, ByteCodec.encodeHex(new ByteArrayInputStream(new byte[0]), writer, true));
+        assertEquals("", writer.toString());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, ByteCodec.decodeHex(new StringReader(""), out));
+        assertEquals(0, out.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hexStream_oddLength() throws IOException {
+        ByteCodec.decodeHex(new ChunkedReader("abc", 1), new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hexStream_illegalCharacter() throws IOException {
+        ByteCodec.decodeHex(new ChunkedReader("00112z", 2), new ByteArrayOutputStream());
+    }
+
+    //------------------------------------------二进制------------------------------------------/
+
+    @Test
+    public void encodeBits_allByteValues() {
+        final byte[] bytes = allBytes();
+        final String bits = ByteCodec.encodeBits(bytes, 0, bytes.length);
+        final StringBuilder expected = new StringBuilder();
+        for (byte b : bytes) {
+            final String s = Integer.toBinaryString(b & 0xFF);
+            for (int i = s.length(); i < 8; i++) {
+                expected.append('0');
+            }
+            expected.append(s);
+        }
+        assertEquals(expected.toString(), bits);
+        assertArrayEquals(bytes, ByteCodec.decodeBits(bits));
+    }
+
+    @Test
+    public void encodeBits_offsetAndLength() {
+        final byte[] bytes = {0x01, (byte) 0x80, 0x7F};
+        assertEquals("10000000", ByteCodec.encodeBits(bytes, 1, 1));
+        final char[] dst = new char[18];
+        Arrays.fill(dst, 'x');
+        assertEquals(16, ByteCodec.encodeBits(bytes, 1, 2, dst, 1));
+        assertEquals("x1000000001111111x", new String(dst));
+    }
+
+    @Test
+    public void decodeBits_partialLeadingByte() {
+        assertEquals(0, ByteCodec.decodedBitsLength(0));
+        assertEquals(1, ByteCodec.decodedBitsLength(1));
+        assertEquals(1, ByteCodec.decodedBitsLength(8));
+        assertEquals(2, ByteCodec.decodedBitsLength(9));
+        assertArrayEquals(new byte[]{0x05}, ByteCodec.decodeBits("101"));
+        assertArrayEquals(new byte[]{0x01, (byte) 0xFF}, ByteCodec.decodeBits("111111111"));
+        assertArrayEquals(new byte[0], ByteCodec.decodeBits(""));
+
+        final byte[] dst = new byte[3];
+        assertEquals(2, ByteCodec.decodeBits("##1100000001##", 2, 12, dst, 1));
+        assertArrayEquals(new byte[]{0, 0x03, 0x01}, dst);
+    }
+
+    @Test
+    public void decodeBits_byteBuffer() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(3), ByteBuffer.allocateDirect(3)}) {
+            buffer.put((byte) 0x55);
+            assertEquals(2, ByteCodec.decodeBits("1010000000001", 0, 13, buffer));
+            buffer.flip();
+            final byte[] bytes = new byte[3];
+            buffer.get(bytes);
+            assertArrayEquals(new byte[]{0x55, 0x14, 0x01}, bytes);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeBits_byteBufferTooSmall() {
+        ByteCodec.decodeBits("111111111", 0, 9, ByteBuffer.allocateDirect(1));
+    }
+
+    @Test
+    public void decodeBits_illegalCharacters() {
+        final String[] invalid = {"2", "0000000a", "1 ", "/", "İ", "0000１"};
+        for (String text : invalid) {
+            try {
+                ByteCodec.decodeBits(text);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+                //ok
+            }
+        }
+    }
+
+    @Test
+    public void bitsStream_roundTripAcrossChunkBoundaries() throws IOException {
+        final byte[] bytes = randomBytes(9000 + 3);
+        final StringWriter writer = new StringWriter();
+        assertEquals(bytes.length, ByteCodec.encodeBits(new ChunkedInputStream(bytes, 1001), writer));
+        final String bits = writer.toString();
+        assertEquals(ByteCodec.encodeBits(bytes, 0, bytes.length), bits);
+
+        //每次读取的字符数不是8的倍数，一个字节跨越多次读取.
+        for (int chunk : new int[]{1, 3, 13, 65535, 65537}) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(bytes.length, ByteCodec.decodeBits(new ChunkedReader(bits, chunk), out));
+            assertArrayEquals("chunk " + chunk, bytes, out.toByteArray());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bitsStream_notMultipleOfEight() throws IOException {
+        ByteCodec.decodeBits(new ChunkedReader("101010101", 4), new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bitsStream_illegalCharacter() throws IOException {
+        ByteCodec.decodeBits(new ChunkedReader("0000000100000012", 5), new ByteArrayOutputStream());
+    }
+
+    private static byte[] allBytes() {
+        final byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(20261019).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 每次最多返回chunk个字节的输入流.
+     */
+    private static final class ChunkedInputStream extends InputStream {
+
+        private final byte[] mData;
+        private final int mChunk;
+        private int mPosition;
+
+        ChunkedInputStream(byte[] data, int chunk) {
+            this.mData = data;
+            this.mChunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return mPosition < mData.length ? mData[mPosition++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (mPosition >= mData.length) return -1;
+            final int count = Math.min(Math.min(len, mChunk), mData.length - mPosition);
+            System.arraycopy(mData, mPosition, b, off, count);
+            mPosition += count;
+            return count;
+        }
+    }
+
+    /**
+     * 每次最多返回chunk个字符的Reader.
+     */
+    private static final class ChunkedReader extends Reader {
+
+        private final String mText;
+        private final int mChunk;
+        private int mPosition;
+
+        ChunkedReader(String text, int chunk) {
+            this.mText = text;
+            this.mChunk = chunk;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (mPosition >= mText.length()) return -1;
+            final int count = Math.min(Math.min(len, mChunk), mText.length() - mPosition);
+            mText.getChars(mPosition, mPosition + count, cbuf, off);
+            mPosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+
+}
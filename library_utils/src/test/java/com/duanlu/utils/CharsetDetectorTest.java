@@ -0,0 +1,179 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CharsetDetector}的单元测试.
+ */
+public class CharsetDetectorTest {
+
+    private static final String CHINESE = "编码检测：根据文件开头的内容猜测文本编码，中文内容用于测试。";
+
+    @Test
+    public void detect_bom() {
+        assertResult(CharsetDetector.UTF_8, 100, 3, detect(bytes(0xEF, 0xBB, 0xBF, 'a', 'b')));
+        assertResult(CharsetDetector.UTF_16LE, 100, 2, detect(bytes(0xFF, 0xFE, 'a', 0)));
+        assertResult(CharsetDetector.UTF_16BE, 100, 2, detect(bytes(0xFE, 0xFF, 0, 'a')));
+        assertResult(CharsetDetector.UTF_32LE, 100, 4, detect(bytes(0xFF, 0xFE, 0, 0, 'a', 0, 0, 0)));
+        //只有BOM没有内容.
+        assertResult(CharsetDetector.UTF_8, 100, 3, detect(bytes(0xEF, 0xBB, 0xBF)));
+        //不完整的BOM不算.
+        assertEquals(0, detect(bytes(0xEF, 0xBB)).getBomLength());
+    }
+
+    @Test
+    public void detect_utf16WithoutBom() {
+        final String text = "Hello, charset detector! 你好";
+        assertEquals(CharsetDetector.UTF_16LE, detect(text.getBytes(charset("UTF-16LE"))).getCharsetName());
+        assertEquals(CharsetDetector.UTF_16BE, detect(text.getBytes(charset("UTF-16BE"))).getCharsetName());
+    }
+
+    @Test
+    public void detect_ascii() {
+        final CharsetDetector.Result result = detect("plain ascii text\r\n12345".getBytes(charset("US-ASCII")));
+        assertResult(CharsetDetector.UTF_8, 60, 0, result);
+        assertResult(CharsetDetector.UTF_8, 60, 0, detect(new byte[0]));
+    }
+
+    @Test
+    public void detect_utf8() {
+        final CharsetDetector.Result result = detect(CHINESE.getBytes(charset("UTF-8")));
+        assertEquals(CharsetDetector.UTF_8, result.getCharsetName());
+        assertEquals(99, result.getConfidence());
+        assertEquals(0, result.getBomLength());
+        //多字节字符越少可信度越低，但仍高于纯ASCII.
+        final CharsetDetector.Result one = detect("abcdefghé".getBytes(charset("UTF-8")));
+        assertEquals(CharsetDetector.UTF_8, one.getCharsetName());
+        assertEquals(85, one.getConfidence());
+    }
+
+    @Test
+    public void detect_truncatedUtf8() {
+        final byte[] data = ("abc" + CHINESE).getBytes(charset("UTF-8"));
+        //在每个位置截断，截断处不完整的字符不算错误.
+        for (int length = 4; length < data.length; length++) {
+            assertEquals("length " + length, CharsetDetector.UTF_8,
+                    CharsetDetector.detect(data, 0, length, true).getCharsetName());
+        }
+        //没有截断时不完整的字符说明不是UTF-8.
+        final byte[] cut = bytes('a', 'b', 'c', 0xE4, 0xB8);
+        assertTrue(CharsetDetector.validateUtf8(cut, 0, cut.length, true) >= 0);
+        assertEquals(-1, CharsetDetector.validateUtf8(cut, 0, cut.length, false));
+        //截断处已有的字节也必须合法.
+        final byte[] badCut = bytes('a', 0xE4, 0x41);
+        assertEquals(-1, CharsetDetector.validateUtf8(badCut, 0, badCut.length, true));
+    }
+
+    @Test
+    public void validateUtf8_rejectsInvalidSequences() {
+        assertEquals(-1, validate(0xC0, 0x80));//过长编码.
+        assertEquals(-1, validate(0xC1, 0xBF));
+        assertEquals(-1, validate(0xE0, 0x80, 0x80));
+        assertEquals(-1, validate(0xF0, 0x80, 0x80, 0x80));
+        assertEquals(-1, validate(0xED, 0xA0, 0x80));//代理区.
+        assertEquals(-1, validate(0xF4, 0x90, 0x80, 0x80));//超过U+10FFFF.
+        assertEquals(-1, validate(0xF5, 0x80, 0x80, 0x80));
+        assertEquals(-1, validate(0x80));//单独的后续字节.
+        assertEquals(-1, validate(0xE4, 0xB8, 0x41));
+        assertEquals(1, validate(0xC2, 0x80));
+        assertEquals(1, validate(0xED, 0x9F, 0xBF));
+        assertEquals(1, validate(0xF4, 0x8F, 0xBF, 0xBF));
+        assertEquals(1, validate(0xF0, 0x9F, 0x98, 0x80));
+        assertEquals(0, validate('a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i'));
+        //跳过整组ASCII后仍能检查到后面的字节.
+        assertEquals(-1, validate('a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 0xFF));
+    }
+
+    @Test
+    public void detect_gbk() {
+        final CharsetDetector.Result result = detect(CHINESE.getBytes(charset("GBK")));
+        assertEquals(CharsetDetector.GBK, result.getCharsetName());
+        assertTrue(result.toString(), result.getConfidence() >= 90);
+        //截断在双字节中间.
+        final byte[] data = CHINESE.getBytes(charset("GBK"));
+        assertEquals(CharsetDetector.GBK, CharsetDetector.detect(data, 0, 5, true).getCharsetName());
+        //不是合法GBK的高位字节可信度为0.
+        assertEquals(0, detect(bytes(0x80, 0xFF, 0x80, 0xFF)).getConfidence());
+    }
+
+    @Test
+    public void detect_offsetAndLength() {
+        final byte[] utf8 = CHINESE.getBytes(charset("UTF-8"));
+        final byte[] data = new byte[utf8.length + 4];
+        //前后的BOM和非法字节不在范围内.
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xFE;
+        System.arraycopy(utf8, 0, data, 2, utf8.length);
+        data[data.length - 2] = (byte) 0xC0;
+        data[data.length - 1] = (byte) 0x80;
+        assertResult(CharsetDetector.UTF_8, 99, 0, CharsetDetector.detect(data, 2, utf8.length, false));
+    }
+
+    @Test
+    public void detect_file() throws IOException {
+        final File file = File.createTempFile("charset", ".txt");
+        try {
+            write(file, CHINESE.getBytes(charset("GBK")));
+            assertEquals(CharsetDetector.GBK, CharsetDetector.detect(file).getCharsetName());
+
+            //修改后长度或时间变化，不使用缓存.
+            write(file, ("x" + CHINESE).getBytes(charset("UTF-8")));
+            assertTrue(file.setLastModified(file.lastModified() + 2000));
+            assertEquals(CharsetDetector.UTF_8, CharsetDetector.detect(file).getCharsetName());
+
+            //只读取开头，截断在多字节字符中间仍判断为UTF-8.
+            final CharsetDetector.Result result = CharsetDetector.detect(file, 6);
+            assertEquals(CharsetDetector.UTF_8, result.getCharsetName());
+            assertSame(result, CharsetDetector.detect(file, 6));
+        } finally {
+            CharsetDetector.clearCache();
+            assertTrue(file.delete());
+        }
+        assertNull(CharsetDetector.detect(file));
+        assertNull(CharsetDetector.detect(null));
+    }
+
+    private static CharsetDetector.Result detect(byte[] data) {
+        return CharsetDetector.detect(data, 0, data.length, false);
+    }
+
+    private static int validate(int... values) {
+        final byte[] data = bytes(values);
+        return CharsetDetector.validateUtf8(data, 0, data.length, false);
+    }
+
+    private static void assertResult(String charsetName, int confidence, int bomLength, CharsetDetector.Result result) {
+        assertEquals(result.toString(), charsetName, result.getCharsetName());
+        assertEquals(result.toString(), confidence, result.getConfidence());
+        assertEquals(result.toString(), bomLength, result.getBomLength());
+    }
+
+    private static byte[] bytes(int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static Charset charset(String name) {
+        return Charset.forName(name);
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DateEpochDays}的单元测试，结果与SimpleDateFormat和Calendar对比.
+ */
+public class DateEpochDaysTest {
+
+    private static final String[] ZONES = {
+            "GMT", "Asia/Shanghai", "America/New_York", "America/St_Johns", "Pacific/Kiritimati", "Pacific/Pago_Pago"
+    };
+
+    @Test
+    public void localEpochDay_matchesSimpleDateFormat() throws Exception {
+        final Random random = new Random(20261019);
+        final SimpleDateFormat utc = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        utc.setTimeZone(TimeZone.getTimeZone("GMT"));
+        for (String zone : ZONES) {
+            final TimeZone timeZone = TimeZone.getTimeZone(zone);
+            final SimpleDateFormat local = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+            local.setTimeZone(timeZone);
+            for (int i = 0; i < 5000; i++) {
+                //1901 ~ 2100，包含1970年以前的负数毫秒值.
+                final long millis = -2177452800000L + (long) (random.nextDouble() * 6311433600000L);
+                //本地日期按UTC零点解析得到的天数即为本地日期序号.
+                final long expected = utc.parse(local.format(new Date(millis))).getTime() / DateUtils.MILLISECOND_IN_DAY;
+                assertEquals(zone + " " + millis, expected, DateEpochDays.localEpochDay(millis, timeZone));
+            }
+        }
+    }
+
+    @Test
+    public void localEpochDay_dayBoundaries() {
+        final TimeZone gmt = TimeZone.getTimeZone("GMT");
+        assertEquals(0, DateEpochDays.localEpochDay(0, gmt));
+        assertEquals(0, DateEpochDays.localEpochDay(DateUtils.MILLISECOND_IN_DAY - 1, gmt));
+        assertEquals(1, DateEpochDays.localEpochDay(DateUtils.MILLISECOND_IN_DAY, gmt));
+        assertEquals(-1, DateEpochDays.localEpochDay(-1, gmt));
+        assertEquals(-1, DateEpochDays.localEpochDay(-DateUtils.MILLISECOND_IN_DAY, gmt));
+        assertEquals(-2, DateEpochDays.localEpochDay(-DateUtils.MILLISECOND_IN_DAY - 1, gmt));
+
+        final TimeZone shanghai = TimeZone.getTimeZone("Asia/Shanghai");
+        //UTC 1970-01-01 16:00是北京时间1970-01-02 00:00.
+        assertEquals(0, DateEpochDays.localEpochDay(16 * DateUtils.MILLISECOND_IN_HOUR - 1, shanghai));
+        assertEquals(1, DateEpochDays.localEpochDay(16 * DateUtils.MILLISECOND_IN_HOUR, shanghai));
+    }
+
+    @Test
+    public void dayOfWeek_matchesCalendar() {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"), Locale.US);
+        for (long day = -1000; day <= 1000; day++) {
+            calendar.setTimeInMillis(day * DateUtils.MILLISECOND_IN_DAY);
+            assertEquals("day " + day, calendar.get(Calendar.DAY_OF_WEEK) - 1, DateEpochDays.dayOfWeek(day));
+        }
+        assertEquals(4, DateEpochDays.dayOfWeek(0));//1970-01-01是周四.
+        assertEquals(3, DateEpochDays.dayOfWeek(-1));
+    }
+
+    @Test
+    public void today_matchesLocalEpochDayOfNow() {
+        for (String zone : ZONES) {
+            final TimeZone timeZone = TimeZone.getTimeZone(zone);
+            //每次切换时区都要重新计算缓存的今天.
+            final long before = DateEpochDays.localEpochDay(System.currentTimeMillis(), timeZone);
+            final long today = DateEpochDays.today(timeZone);
+            final long again = DateEpochDays.today(timeZone);
+            final long after = DateEpochDays.localEpochDay(System.currentTimeMillis(), timeZone);
+            assertTrue(zone, today == before || today == after);
+            assertTrue(zone, again == today || again == after);
+        }
+    }
+
+}
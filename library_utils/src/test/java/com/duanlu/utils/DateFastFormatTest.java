@@ -0,0 +1,186 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DateFastFormat}的单元测试，结果与SimpleDateFormat对比.
+ */
+public class DateFastFormatTest {
+
+    private static final String[] PATTERNS = {
+            DateUtils.DEFAULT_PATTERN,
+            DateUtils.DEFAULT_DETAIL_PATTERN,
+            DateUtils.PATTERN_YEAR_MONTH_DAY,
+            DateUtils.PATTERN_HOUR_MINUTE
+    };
+
+    private static final String[] ZONES = {
+            "GMT", "Asia/Shanghai", "America/New_York", "Europe/London", "Australia/Lord_Howe", "Asia/Kolkata"
+    };
+
+    //1600-01-01 ~ 9999-12-31.
+    private static final long MIN_MILLIS = -11676096000000L;
+    private static final long MAX_MILLIS = 253402300799999L;
+
+    @Test
+    public void patternOf() {
+        assertEquals(DateFastFormat.PATTERN_DEFAULT, DateFastFormat.patternOf("yyyy-MM-dd HH:mm:ss"));
+        assertEquals(DateFastFormat.PATTERN_DETAIL, DateFastFormat.patternOf("yyyy-MM-dd HH:mm:ss:SSS"));
+        assertEquals(DateFastFormat.PATTERN_YEAR_MONTH_DAY, DateFastFormat.patternOf("yyyy-MM-dd"));
+        assertEquals(DateFastFormat.PATTERN_HOUR_MINUTE, DateFastFormat.patternOf("HH:mm"));
+        assertEquals(DateFastFormat.PATTERN_NONE, DateFastFormat.patternOf("yyyy/MM/dd"));
+        assertEquals(DateFastFormat.PATTERN_NONE, DateFastFormat.patternOf(null));
+    }
+
+    @Test
+    public void epochDay() {
+        assertEquals(0, DateFastFormat.epochDay(1970, 1, 1));
+        assertEquals(-1, DateFastFormat.epochDay(1969, 12, 31));
+        assertEquals(11016, DateFastFormat.epochDay(2000, 2, 29));
+        assertEquals(11017, DateFastFormat.epochDay(2000, 3, 1));
+        assertEquals(MIN_MILLIS / DateUtils.MILLISECOND_IN_DAY, DateFastFormat.MIN_EPOCH_DAY);
+        assertEquals(MAX_MILLIS / DateUtils.MILLISECOND_IN_DAY, DateFastFormat.MAX_EPOCH_DAY);
+    }
+
+    @Test
+    public void floorDiv() {
+        assertEquals(2, DateFastFormat.floorDiv(7, 3));
+        assertEquals(-3, DateFastFormat.floorDiv(-7, 3));
+        assertEquals(-1, DateFastFormat.floorDiv(-1, DateUtils.MILLISECOND_IN_DAY));
+        assertEquals(-1, DateFastFormat.floorDiv(-DateUtils.MILLISECOND_IN_DAY, DateUtils.MILLISECOND_IN_DAY));
+        assertEquals(0, DateFastFormat.floorDiv(0, DateUtils.MILLISECOND_IN_DAY));
+    }
+
+    @Test
+    public void format_matchesSimpleDateFormat() {
+        final Random random = new Random(20261019);
+        for (String zone : ZONES) {
+            final TimeZone timeZone = TimeZone.getTimeZone(zone);
+            for (int p = 0; p < PATTERNS.length; p++) {
+                final SimpleDateFormat format = simpleDateFormat(PATTERNS[p], timeZone);
+                for (long millis : fixedMillis()) {
+                    assertFormat(format, p, millis, timeZone);
+                }
+                for (int i = 0; i < 5000; i++) {
+                    final long millis = MIN_MILLIS + DateUtils.MILLISECOND_IN_DAY
+                            + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS - 2 * DateUtils.MILLISECOND_IN_DAY));
+                    assertFormat(format, p, millis, timeZone);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void format_outOfRangeReturnsNull() {
+        final TimeZone gmt = TimeZone.getTimeZone("GMT");
+        assertNull(DateFastFormat.format(DateFastFormat.PATTERN_DEFAULT, MIN_MILLIS - 1, gmt));
+        assertNull(DateFastFormat.format(DateFastFormat.PATTERN_DEFAULT, MAX_MILLIS + 1, gmt));
+        assertEquals("1600-01-01 00:00:00", DateFastFormat.format(DateFastFormat.PATTERN_DEFAULT, MIN_MILLIS, gmt));
+        assertEquals("9999-12-31 23:59:59:999", DateFastFormat.format(DateFastFormat.PATTERN_DETAIL, MAX_MILLIS, gmt));
+    }
+
+    @Test
+    public void parse_matchesSimpleDateFormat() throws ParseException {
+        final Random random = new Random(20261019);
+        for (String zone : ZONES) {
+            final TimeZone timeZone = TimeZone.getTimeZone(zone);
+            for (int p = 0; p < PATTERNS.length; p++) {
+                final SimpleDateFormat format = simpleDateFormat(PATTERNS[p], timeZone);
+                int parsed = 0;
+                for (int i = 0; i < 5000; i++) {
+                    final long millis = MIN_MILLIS + DateUtils.MILLISECOND_IN_DAY
+                            + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS - 2 * DateUtils.MILLISECOND_IN_DAY));
+                    final String text = format.format(new Date(millis));
+                    final long fast = DateFastFormat.parse(p, text, timeZone);
+                    //夏令时切换前后允许不走快速解析，其他情况结果必须相同.
+                    if (fast == DateFastFormat.PARSE_FAILED) continue;
+                    assertEquals(zone + " " + text, format.parse(text).getTime(), fast);
+                    parsed++;
+                }
+                assertTrue(zone + " " + PATTERNS[p] + " parsed " + parsed, parsed > 4500);
+            }
+        }
+    }
+
+    @Test
+    public void parse_nearDstTransitionFallsBack() {
+        final TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        //2026-03-08 02:30不存在，2026-11-01 01:30出现两次，交给SimpleDateFormat处理.
+        assertEquals(DateFastFormat.PARSE_FAILED,
+                DateFastFormat.parse(DateFastFormat.PATTERN_DEFAULT, "2026-03-08 02:30:00", newYork));
+        assertEquals(DateFastFormat.PARSE_FAILED,
+                DateFastFormat.parse(DateFastFormat.PATTERN_DEFAULT, "2026-11-01 01:30:00", newYork));
+    }
+
+    @Test
+    public void parse_rejectsMalformedText() {
+        final TimeZone gmt = TimeZone.getTimeZone("GMT");
+        final String[] invalid = {
+                "2026-10-19 12:00",
+                "2026-10-19 12:00:000",
+                "2026/10/19 12:00:00",
+                "2026-10-19T12:00:00",
+                "2026-10-19 12-00-00",
+                "2026-13-19 12:00:00",
+                "2026-00-19 12:00:00",
+                "2026-10-00 12:00:00",
+                "2026-02-29 12:00:00",
+                "2026-04-31 12:00:00",
+                "2026-10-19 24:00:00",
+                "2026-10-19 12:60:00",
+                "2026-10-19 12:00:60",
+                "2026-1a-19 12:00:00",
+                "+026-10-19 12:00:00",
+                "1599-12-31 23:59:59",
+        };
+        for (String text : invalid) {
+            assertEquals(text, DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_DEFAULT, text, gmt));
+        }
+        assertEquals(DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_DETAIL, "2026-10-19 12:00:00.000", gmt));
+        assertEquals(DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_DETAIL, "2026-10-19 12:00:00:0x0", gmt));
+        assertEquals(DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_YEAR_MONTH_DAY, "2026-10-9", gmt));
+        assertEquals(DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_HOUR_MINUTE, "7:30", gmt));
+        assertEquals(DateFastFormat.PARSE_FAILED, DateFastFormat.parse(DateFastFormat.PATTERN_HOUR_MINUTE, "07 30", gmt));
+    }
+
+    @Test
+    public void parse_leapDay() {
+        final TimeZone gmt = TimeZone.getTimeZone("GMT");
+        assertEquals(11016 * DateUtils.MILLISECOND_IN_DAY,
+                DateFastFormat.parse(DateFastFormat.PATTERN_YEAR_MONTH_DAY, "2000-02-29", gmt));
+        assertEquals(DateFastFormat.PARSE_FAILED,
+                DateFastFormat.parse(DateFastFormat.PATTERN_YEAR_MONTH_DAY, "1900-02-29", gmt));
+    }
+
+    private static void assertFormat(SimpleDateFormat format, int pattern, long millis, TimeZone timeZone) {
+        assertEquals(timeZone.getID() + " " + millis, format.format(new Date(millis)),
+                DateFastFormat.format(pattern, millis, timeZone));
+    }
+
+    private static long[] fixedMillis() {
+        return new long[]{
+                0, -1, 1, 999, 1000, -DateUtils.MILLISECOND_IN_DAY, DateUtils.MILLISECOND_IN_DAY - 1,
+                951782400000L,//2000-02-29
+                1760875199999L,
+                MIN_MILLIS + DateUtils.MILLISECOND_IN_DAY,
+                MAX_MILLIS - DateUtils.MILLISECOND_IN_DAY,
+        };
+    }
+
+    private static SimpleDateFormat simpleDateFormat(String pattern, TimeZone timeZone) {
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(timeZone);
+        format.setLenient(false);
+        return format;
+    }
+
+}
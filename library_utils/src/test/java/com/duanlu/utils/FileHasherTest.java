@@ -0,0 +1,144 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FileHasher}和{@link FileUtils#getFileMD5(File)}的单元测试，结果与标准测试向量对比.
+ */
+public class FileHasherTest {
+
+    private static final int ALL = FileHasher.MD5 | FileHasher.SHA1 | FileHasher.SHA256 | FileHasher.CRC_32;
+
+    @Test
+    public void hash_knownVectors() throws IOException {
+        final File file = File.createTempFile("hasher", ".bin");
+        try {
+            write(file, "abc".getBytes(Charset.forName("US-ASCII")));
+            FileHasher.Result result = FileHasher.hash(file, ALL);
+            assertEquals("900150983cd24fb0d6963f7d28e17f72", hex(result.getMD5()));
+            assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", hex(result.getSHA1()));
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(result.getSHA256()));
+            assertEquals(0x352441C2L, result.getCRC32());
+            assertEquals(3, result.getLength());
+
+            write(file, new byte[0]);
+            assertTrue(file.setLastModified(file.lastModified() + 2000));
+            result = FileHasher.hash(file, ALL);
+            assertEquals("d41d8cd98f00b204e9800998ecf8427e", hex(result.getMD5()));
+            assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", hex(result.getSHA1()));
+            assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", hex(result.getSHA256()));
+            assertEquals(0, result.getCRC32());
+        } finally {
+            FileHasher.clearCache();
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void hash_largerThanBuffer() throws IOException {
+        //一百万个'a'，跨越多次读取.
+        final byte[] data = new byte[1000000];
+        Arrays.fill(data, (byte) 'a');
+        final File file = File.createTempFile("hasher", ".bin");
+        try {
+            write(file, data);
+            final FileHasher.Result result = FileHasher.hash(file, ALL);
+            assertEquals("7707d6ae4e027c70eea2a935c2296f21", hex(result.getMD5()));
+            assertEquals("34aa973cd4c4daa4f61eeb2bdbad27316534016f", hex(result.getSHA1()));
+            assertEquals("cdc76e5c9914fb9281a1c7e284d73e67f1809a48a497200e046d39ccc7112cd0", hex(result.getSHA256()));
+        } finally {
+            FileHasher.clearCache();
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void hash_onlyRequestedDigests() throws IOException {
+        final File file = File.createTempFile("hasher", ".bin");
+        try {
+            write(file, "abc".getBytes(Charset.forName("US-ASCII")));
+            final FileHasher.Result md5 = FileHasher.hash(file, FileHasher.MD5);
+            assertNotNull(md5.getMD5());
+            assertNull(md5.getSHA1());
+            assertNull(md5.getSHA256());
+            assertEquals(-1, md5.getCRC32());
+            //已缓存的结果满足时直接返回.
+            assertSame(md5, FileHasher.hash(file, FileHasher.MD5));
+            //缺少的摘要补算，已有的仍然保留.
+            final FileHasher.Result both = FileHasher.hash(file, FileHasher.SHA1);
+            assertEquals("900150983cd24fb0d6963f7d28e17f72", hex(both.getMD5()));
+            assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", hex(both.getSHA1()));
+
+            //文件变化后重新计算.
+            write(file, "abcd".getBytes(Charset.forName("US-ASCII")));
+            assertTrue(file.setLastModified(file.lastModified() + 2000));
+            assertEquals("e2fc714c4727ee9395f324cd2e7f331f", hex(FileHasher.hash(file, FileHasher.MD5).getMD5()));
+        } finally {
+            FileHasher.clearCache();
+            assertTrue(file.delete());
+        }
+        assertNull(FileHasher.hash(file, FileHasher.MD5));
+        assertNull(FileHasher.hash(null, FileHasher.MD5));
+    }
+
+    @Test
+    public void hashAll_keepsOrder() throws IOException {
+        final File first = File.createTempFile("hasher", ".bin");
+        final File second = File.createTempFile("hasher", ".bin");
+        final File missing = new File(first.getPath() + ".missing");
+        try {
+            write(first, "abc".getBytes(Charset.forName("US-ASCII")));
+            write(second, new byte[0]);
+            final List<FileHasher.Result> results = FileHasher.hashAll(Arrays.asList(first, missing, second), FileHasher.MD5, 3);
+            assertEquals(3, results.size());
+            assertEquals("900150983cd24fb0d6963f7d28e17f72", hex(results.get(0).getMD5()));
+            assertNull(results.get(1));
+            assertEquals("d41d8cd98f00b204e9800998ecf8427e", hex(results.get(2).getMD5()));
+        } finally {
+            FileHasher.clearCache();
+            assertTrue(first.delete());
+            assertTrue(second.delete());
+        }
+    }
+
+    @Test
+    public void getFileMD5_knownVector() throws IOException {
+        final File file = File.createTempFile("hasher", ".bin");
+        try {
+            write(file, "The quick brown fox jumps over the lazy dog".getBytes(Charset.forName("US-ASCII")));
+            assertEquals("9e107d9d372bb6826bd81d3542a419d6", hex(FileUtils.getFileMD5(file)));
+            assertEquals("9e107d9d372bb6826bd81d3542a419d6", hex(FileUtils.getFileMD5(file.getPath())));
+        } finally {
+            FileHasher.clearCache();
+            assertTrue(file.delete());
+        }
+        assertNull(FileUtils.getFileMD5(file));
+    }
+
+    private static String hex(byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+        }
+        return builder.toString();
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FileLineIndex}的单元测试，行数和记录点与BufferedReader.readLine()的结果对比.
+ */
+public class FileLineIndexTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final String[] TERMINATORS = {"\n", "\r", "\r\n"};
+
+    @Test
+    public void get_smallFiles() throws IOException {
+        assertIndex("");
+        assertIndex("a");
+        assertIndex("\n");
+        assertIndex("\r");
+        assertIndex("\r\n");
+        assertIndex("\n\r");
+        assertIndex("\r\r\n\n");
+        assertIndex("a\r\nb\rc\nd");
+        assertIndex("a\r\nb\rc\nd\r");
+        final Random random = new Random(20261019);
+        for (int i = 0; i < 50; i++) {
+            assertIndex(randomLines(random, random.nextInt(3 * FileLineIndex.INTERVAL), random.nextBoolean()));
+        }
+    }
+
+    @Test
+    public void get_terminatorsAtWordBoundaries() throws IOException {
+        //"\r\n"跨越8字节一组的边界，以及'\r'在组末尾但后面不是'\n'.
+        for (int offset = 0; offset < 16; offset++) {
+            final StringBuilder builder = new StringBuilder();
+            for (int line = 0; line < 2 * FileLineIndex.INTERVAL + 3; line++) {
+                for (int i = 0; i < 7 + (offset + line) % 3; i++) builder.append('x');
+                builder.append(TERMINATORS[line % 3]);
+            }
+            assertIndex(builder.toString());
+        }
+    }
+
+    @Test
+    public void get_chunkBoundaries() throws IOException {
+        //超过两块，并行扫描；第一块末尾是"\r\n"中的'\r'，第二块末尾是单独的'\r'.
+        final int chunk = (int) FileLineIndex.MAP_CHUNK;
+        final byte[] data = new byte[2 * chunk + 12345];
+        final Random random = new Random(17);
+        int p = 0;
+        while (p < data.length) {
+            final int length = Math.min(random.nextInt(40), data.length - p);
+            for (int i = 0; i < length; i++) data[p++] = (byte) ('a' + random.nextInt(26));
+            if (p < data.length) {
+                final byte[] terminator = TERMINATORS[random.nextInt(3)].getBytes(ASCII);
+                for (int i = 0; i < terminator.length && p < data.length; i++) data[p++] = terminator[i];
+            }
+        }
+        data[chunk - 2] = 'x';
+        data[chunk - 1] = '\r';
+        data[chunk] = '\n';
+        data[2 * chunk - 1] = '\r';
+        data[2 * chunk] = 'y';
+        final File file = write(data);
+        try {
+            assertIndex(file);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void getFileLines_matchesReadLine() throws IOException {
+        final File file = write("first\r\nsecond\rthird\n\nlast".getBytes(ASCII));
+        try {
+            assertEquals(5, FileUtils.getFileLines(file));
+            //修改后长度和时间变化，重新生成.
+            write(file, "only\n".getBytes(ASCII));
+            assertTrue(file.setLastModified(file.lastModified() + 2000));
+            assertEquals(1, FileUtils.getFileLines(file));
+        } finally {
+            assertTrue(file.delete());
+        }
+        assertEquals(0, FileUtils.getFileLines(file));
+    }
+
+    @Test
+    public void isSupported() {
+        assertTrue(FileLineIndex.isSupported("UTF-8"));
+        assertTrue(FileLineIndex.isSupported("GBK"));
+        assertTrue(FileLineIndex.isSupported(""));
+        assertFalse(FileLineIndex.isSupported("UTF-16"));
+        assertFalse(FileLineIndex.isSupported("UTF-16LE"));
+        assertFalse(FileLineIndex.isSupported("no-such-charset"));
+    }
+
+    private static String randomLines(Random random, int lines, boolean tail) {
+        final StringBuilder builder = new StringBuilder();
+        for (int line = 0; line < lines; line++) {
+            final int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) builder.append((char) ('a' + random.nextInt(26)));
+            builder.append(TERMINATORS[random.nextInt(3)]);
+        }
+        if (tail) builder.append("tail");
+        return builder.toString();
+    }
+
+    private static void assertIndex(String content) throws IOException {
+        final File file = write(content.getBytes(ASCII));
+        try {
+            assertIndex(file);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * 行数与readLine()一致，且从每个记录点的偏移开始读到的行与从头读到的同一行相同.
+     */
+    private static void assertIndex(File file) throws IOException {
+        final List<String> checkpointLines = new ArrayList<>();
+        int lineCount = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ASCII));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lineCount % FileLineIndex.INTERVAL == 0) checkpointLines.add(line);
+                lineCount++;
+            }
+        } finally {
+            reader.close();
+        }
+        final FileLineIndex index = FileLineIndex.get(file);
+        assertNotNull(index);
+        assertEquals(lineCount, index.getLineCount());
+        for (int k = 0; k < checkpointLines.size(); k++) {
+            final int line = k * FileLineIndex.INTERVAL + 1;
+            assertEquals(line, index.getCheckpointLine(line));
+            assertEquals(line, index.getCheckpointLine(line + FileLineIndex.INTERVAL - 1));
+            final FileInputStream in = new FileInputStream(file);
+            try {
+                in.getChannel().position(index.getOffset(line));
+                final String read = new BufferedReader(new InputStreamReader(in, ASCII)).readLine();
+                assertEquals("line " + line, checkpointLines.get(k), read);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private static File write(byte[] data) throws IOException {
+        final File file = File.createTempFile("line_index", ".txt");
+        write(file, data);
+        return file;
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+}
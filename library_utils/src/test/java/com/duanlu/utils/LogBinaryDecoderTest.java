@@ -0,0 +1,244 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LogBinaryEncoder}和{@link LogBinaryDecoder}的单元测试.
+ */
+public class LogBinaryDecoderTest {
+
+    private static final long TIME = 1760000000123L;
+    private static final int ZONE_OFFSET = 8 * 3600 * 1000;
+
+    @Test
+    public void encode_sessionAndEventBytes() {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        byte[] bytes = toBytes(encoder.encode(new LogRecord(300, "T", "main", "m(A.java:1)", "hi"), -1));
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        //SESSION：起始时间300的varint为0xAC 0x02，时区偏移-1的zigzag为1.
+        write(expected, 0x01, 'D', 'L', 'O', 'G', 1, 0, 0xAC, 0x02, 0x01, '\n');
+        write(expected, 0x02, 0, 1, 'T', '\n');
+        write(expected, 0x02, 1, 4, 'm', 'a', 'i', 'n', '\n');
+        expected.write(0x02);
+        expected.write(2);
+        expected.write(11);
+        expected.write("m(A.java:1)".getBytes(), 0, 11);
+        expected.write('\n');
+        //EVENT：时间差0，字符串编号0、1、2.
+        write(expected, 0x03, 0, 0, 1, 2, 2, 'h', 'i', '\n');
+        assertArrayEquals(expected.toByteArray(), bytes);
+
+        //同一会话中重复的字符串不再定义，时间回退时差值zigzag编码为奇数：-2 -> 3.
+        bytes = toBytes(encoder.encode(new LogRecord(298, "T", "main", "m(A.java:1)", ""), -1));
+        assertArrayEquals(new byte[]{0x03, 3, 0, 1, 2, 0, '\n'}, bytes);
+    }
+
+    @Test
+    public void roundTrip_plain() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "Tag", "main", "run(A.java:10)", "first"), ZONE_OFFSET)));
+        out.write(toBytes(encoder.encode(new LogRecord(TIME + 5, "Tag", "worker", "run(A.java:11)", "second\nline"), ZONE_OFFSET)));
+        //多线程写入时时间可能略有回退.
+        out.write(toBytes(encoder.encode(new LogRecord(TIME - 1000, "Other", "main", "run(A.java:10)", "third"), ZONE_OFFSET)));
+
+        String expected = header(TIME, ZONE_OFFSET, "Tag", "main", "run(A.java:10)") + "first\n"
+                + header(TIME + 5, ZONE_OFFSET, "Tag", "worker", "run(A.java:11)") + "second\nline\n"
+                + header(TIME - 1000, ZONE_OFFSET, "Other", "main", "run(A.java:10)") + "third\n";
+        assertEquals(expected, decode(out.toByteArray()));
+    }
+
+    @Test
+    public void roundTrip_border() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(true);
+        byte[] bytes = toBytes(encoder.encode(new LogRecord(TIME, "Tag", "main", "run(A.java:10)", "a\nb\n\n"), ZONE_OFFSET));
+
+        String expected = LogUtils.TOP_BORDER + "\n"
+                + header(TIME, ZONE_OFFSET, "Tag", "main", "run(A.java:10)")
+                + LogUtils.LEFT_BORDER + "a\n"
+                + LogUtils.LEFT_BORDER + "b\n"
+                + "\n"
+                + LogUtils.BOTTOM_BORDER + "\n";
+        assertEquals(expected, decode(bytes));
+    }
+
+    @Test
+    public void roundTrip_largeVarintsAndUnicode() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        //长度超过127字节需要多字节varint，包含2、3、4字节的UTF-8字符.
+        final String msg = sb + "é中文😀";
+        final long time = Long.MAX_VALUE / 4;
+        final int zone = -(5 * 3600 + 30 * 60) * 1000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(time, "标签", "线程", null, msg), zone)));
+        //时区变化写入ZONE记录.
+        out.write(toBytes(encoder.encode(new LogRecord(time + 1, "标签", "线程", null, "x"), ZONE_OFFSET)));
+
+        String expected = header(time, zone, "标签", "线程", "null") + msg + "\n"
+                + header(time + 1, ZONE_OFFSET, "标签", "线程", "null") + "x\n";
+        assertEquals(expected, decode(out.toByteArray()));
+    }
+
+    @Test
+    public void roundTrip_loneSurrogateBecomesQuestionMark() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        byte[] bytes = toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "a\uD800b\uDC00"), 0));
+        assertEquals(header(TIME, 0, "T", "t", "l") + "a?b?\n", decode(bytes));
+    }
+
+    @Test
+    public void decode_skipsZeroPadding() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "one"), 0)));
+        //内存映射文件在记录之间和末尾都可能有0填充.
+        out.write(new byte[37]);
+        out.write(toBytes(encoder.encode(new LogRecord(TIME + 1, "T", "t", "l", "two"), 0)));
+        out.write(new byte[4096]);
+
+        String expected = header(TIME, 0, "T", "t", "l") + "one\n"
+                + header(TIME + 1, 0, "T", "t", "l") + "two\n";
+        assertEquals(expected, decode(out.toByteArray()));
+    }
+
+    @Test
+    public void decode_newSessionAfterReset() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "A", "t", "l", "one"), 0)));
+        encoder.reset();
+        //新会话重新定义字符串，编号从0开始，与上一个会话的"A"不同.
+        out.write(toBytes(encoder.encode(new LogRecord(TIME + 1, "B", "t", "l", "two"), 0)));
+
+        String expected = header(TIME, 0, "A", "t", "l") + "one\n"
+                + header(TIME + 1, 0, "B", "t", "l") + "two\n";
+        assertEquals(expected, decode(out.toByteArray()));
+    }
+
+    @Test
+    public void decode_truncatedLastRecordIsDropped() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "one"), 0)));
+        final int complete = out.size();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME + 1, "T", "t", "l", "two"), 0)));
+        final byte[] bytes = out.toByteArray();
+
+        final String first = header(TIME, 0, "T", "t", "l") + "one\n";
+        for (int length = complete + 1; length < bytes.length; length++) {
+            assertEquals("length " + length, first, decode(Arrays.copyOf(bytes, length)));
+        }
+    }
+
+    @Test
+    public void decode_resyncsAfterTruncatedRecordFollowedByNewSession() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        final String longMsg = sb.toString();
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        final byte[] first = toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "one"), 0));
+        //第二条带新的tag，包含STRING定义和较长的内容.
+        final byte[] second = toBytes(encoder.encode(new LogRecord(TIME + 1, "Second", "t", "l", longMsg), 0));
+        //进程被杀后重新启动，新会话直接追加在不完整的记录后面.
+        LogBinaryEncoder next = new LogBinaryEncoder(false);
+        final ByteArrayOutputStream tail = new ByteArrayOutputStream();
+        final StringBuilder expected = new StringBuilder(header(TIME, 0, "T", "t", "l") + "one\n");
+        //后面的内容比不完整记录声明的长度更长，也会被当作内容读进去.
+        for (int i = 0; i < 40; i++) {
+            tail.write(toBytes(next.encode(new LogRecord(TIME + 2 + i, "T", "t", "l", "next" + i), 0)));
+            expected.append(header(TIME + 2 + i, 0, "T", "t", "l")).append("next").append(i).append('\n');
+        }
+        for (int cut = 1; cut < second.length; cut++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(first);
+            out.write(second, 0, cut);
+            out.write(tail.toByteArray());
+            assertEquals("cut " + cut, expected.toString(), decode(out.toByteArray()));
+        }
+    }
+
+    @Test
+    public void decode_resyncsAfterGarbage() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "one"), 0)));
+        //未知类型、未定义的字符串编号和残缺的SESSION头.
+        out.write(new byte[]{0x7F, 0x03, 0, 9, 9, 9, 0, '\n', 0x01, 'D', 'L', 0x02, (byte) 0xFF});
+        encoder.reset();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME + 1, "T", "t", "l", "two"), 0)));
+
+        String expected = header(TIME, 0, "T", "t", "l") + "one\n"
+                + header(TIME + 1, 0, "T", "t", "l") + "two\n";
+        assertEquals(expected, decode(out.toByteArray()));
+    }
+
+    @Test
+    public void decode_corruptedTailWithoutNewSession() throws IOException {
+        LogBinaryEncoder encoder = new LogBinaryEncoder(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(toBytes(encoder.encode(new LogRecord(TIME, "T", "t", "l", "one"), 0)));
+        //损坏的长度不会预先分配内存.
+        out.write(new byte[]{0x02, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'x'});
+        assertEquals(header(TIME, 0, "T", "t", "l") + "one\n", decode(out.toByteArray()));
+    }
+
+    //还没有读到SESSION时不是二进制日志文件，直接报错.
+    @Test(expected = IOException.class)
+    public void decode_unknownRecordType() throws IOException {
+        decode(new byte[]{0x7F, '\n'});
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_badMagic() throws IOException {
+        decode(new byte[]{0x01, 'D', 'L', 'O', 'X', 1, 0, 0, 0, '\n'});
+    }
+
+    @Test
+    public void decode_undefinedStringIdIsSkipped() throws IOException {
+        assertEquals("", decode(new byte[]{0x01, 'D', 'L', 'O', 'G', 1, 0, 0, 0, '\n', 0x03, 0, 5, 5, 5, 0, '\n'}));
+    }
+
+    private static String decode(byte[] bytes) throws IOException {
+        StringWriter writer = new StringWriter();
+        LogBinaryDecoder.decode(new ByteArrayInputStream(bytes), writer);
+        return writer.toString();
+    }
+
+    private static String header(long time, int zoneOffset, String tag, String thread, String location) {
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS ", Locale.getDefault());
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time + zoneOffset)) + tag + ": Thread: " + thread + ", " + location + "\n";
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void write(ByteArrayOutputStream out, int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+    }
+
+}
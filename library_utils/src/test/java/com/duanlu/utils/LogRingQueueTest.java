@@ -0,0 +1,132 @@
+package com.duanlu.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LogRingQueue}的单元测试.
+ */
+public class LogRingQueueTest {
+
+    @Test
+    public void capacity_roundsUpToPowerOfTwo() {
+        assertEquals(2, new LogRingQueue<String>(0).capacity());
+        assertEquals(2, new LogRingQueue<String>(2).capacity());
+        assertEquals(4, new LogRingQueue<String>(3).capacity());
+        assertEquals(1024, new LogRingQueue<String>(1000).capacity());
+    }
+
+    @Test
+    public void emptyQueue_pollReturnsNull() {
+        LogRingQueue<String> queue = new LogRingQueue<>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fullQueue_offerReturnsFalse() {
+        LogRingQueue<Integer> queue = new LogRingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(5));
+    }
+
+    @Test
+    public void wraparound_keepsFifoOrder() {
+        LogRingQueue<Integer> queue = new LogRingQueue<>(4);
+        int next = 0;
+        int expected = 0;
+        //每轮放入3个取出3个，写入位置多次绕过数组末尾.
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            assertFalse(queue.isEmpty());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(expected++), queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void wraparound_fillAndDrainRepeatedly() {
+        LogRingQueue<Integer> queue = new LogRingQueue<>(8);
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 8; i++) {
+                assertTrue(queue.offer(round * 8 + i));
+            }
+            assertFalse(queue.offer(-1));
+            for (int i = 0; i < 8; i++) {
+                assertEquals(Integer.valueOf(round * 8 + i), queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void concurrentProducersAndConsumer_noLossOrDuplication() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 20000;
+        final LogRingQueue<Long> queue = new LogRingQueue<>(64);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final long base = (long) p * perProducer;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!queue.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        final boolean[] seen = new boolean[producers * perProducer];
+        final long[] last = new long[producers];
+        for (int p = 0; p < producers; p++) {
+            last[p] = -1;
+        }
+        int received = 0;
+        while (received < seen.length) {
+            Long value = queue.poll();
+            if (null == value) {
+                Thread.yield();
+                continue;
+            }
+            int index = (int) (long) value;
+            assertFalse("duplicated " + value, seen[index]);
+            seen[index] = true;
+            //同一个生产者的元素保持入队顺序.
+            int producer = index / perProducer;
+            assertTrue(value > last[producer]);
+            last[producer] = value;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+}